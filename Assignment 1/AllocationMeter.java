@@ -0,0 +1,50 @@
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+/**
+ * The AllocationMeter class measures the heap memory allocated by the current thread, where the
+ * virtual machine supports it, so the allocations of a piece of code can be followed.
+ * @author Neriya Ben David
+ */
+public class AllocationMeter {
+
+    // constants
+    private static final long UNSUPPORTED = -1;
+
+    // fields
+    private final com.sun.management.ThreadMXBean threadBean;
+
+    /**
+     * Constructs a new AllocationMeter object.
+     */
+    public AllocationMeter() {
+        ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (bean instanceof com.sun.management.ThreadMXBean &&
+                ((com.sun.management.ThreadMXBean) bean).isThreadAllocatedMemorySupported()) {
+            this.threadBean = (com.sun.management.ThreadMXBean) bean;
+            threadBean.setThreadAllocatedMemoryEnabled(true);
+        } else {
+            this.threadBean = null;
+        }
+    }
+
+    /**
+     * Checks whether the virtual machine can measure the allocations of a thread.
+     * @return true if allocations can be measured, false otherwise
+     */
+    public boolean isSupported() {
+        return threadBean != null;
+    }
+
+    /**
+     * Gets the total number of bytes allocated so far by the current thread.
+     * The difference between two readings is the memory allocated between them.
+     * @return the allocated bytes, or -1 if allocations can't be measured
+     */
+    public long getAllocatedBytes() {
+        if (threadBean == null) {
+            return UNSUPPORTED;
+        }
+        return threadBean.getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+}
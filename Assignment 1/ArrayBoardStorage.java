@@ -0,0 +1,154 @@
+/**
+ * The ArrayBoardStorage class keeps the cells of a board in a two-dimensional array of marks.
+ * This is the default storage of a Board.
+ * @author Neriya Ben David
+ * @see BoardStorage
+ */
+public class ArrayBoardStorage implements BoardStorage {
+
+    // fields
+    private final Mark[][] cells;
+    private final int size;
+
+    /**
+     * Constructs a new ArrayBoardStorage object with all cells BLANK.
+     * @param size the size of the board
+     */
+    public ArrayBoardStorage(int size) {
+        this.size = size;
+        this.cells = new Mark[size][size];
+        initializeCells();
+    }
+
+    /**
+     * Gets the size of the stored board.
+     * @return the size of the stored board
+     */
+    @Override
+    public int getSize() {
+        return size;
+    }
+
+    /**
+     * Gets the mark stored at the specified row and column.
+     * @param row the row of the cell
+     * @param col the column of the cell
+     * @return the mark stored in the cell
+     */
+    @Override
+    public Mark getMark(int row, int col) {
+        return cells[row][col];
+    }
+
+    /**
+     * Checks whether the cell at the specified row and column is empty.
+     * @param row the row of the cell
+     * @param col the column of the cell
+     * @return true if the cell is BLANK, false otherwise
+     */
+    @Override
+    public boolean isEmpty(int row, int col) {
+        return cells[row][col] == Mark.BLANK;
+    }
+
+    /**
+     * Stores a mark at the specified row and column.
+     * @param row the row of the cell
+     * @param col the column of the cell
+     * @param mark the mark to store
+     */
+    @Override
+    public void setMark(int row, int col, Mark mark) {
+        cells[row][col] = mark;
+    }
+
+    /**
+     * Sets all the cells back to BLANK.
+     */
+    @Override
+    public void clear() {
+        initializeCells();
+    }
+
+    /**
+     * Finds the first empty cell of a row, going right over the array of the row.
+     * @param row the row to scan
+     * @param fromCol the first column to check
+     * @return the column of the first empty cell at or after fromCol, or NOT_FOUND if there is none
+     */
+    @Override
+    public int findFirstEmpty(int row, int fromCol) {
+        Mark[] rowCells = cells[row];
+        for (int col = Math.max(fromCol, 0); col < size; col++) {
+            if (rowCells[col] == Mark.BLANK) {
+                return col;
+            }
+        }
+        return NOT_FOUND;
+    }
+
+    /**
+     * Finds the last empty cell of a row, going left over the array of the row.
+     * @param row the row to scan
+     * @param fromCol the first column to check
+     * @return the column of the last empty cell at or before fromCol, or NOT_FOUND if there is none
+     */
+    @Override
+    public int findLastEmpty(int row, int fromCol) {
+        Mark[] rowCells = cells[row];
+        for (int col = Math.min(fromCol, size - 1); col >= 0; col--) {
+            if (rowCells[col] == Mark.BLANK) {
+                return col;
+            }
+        }
+        return NOT_FOUND;
+    }
+
+    /**
+     * Counts the cells of a row that hold a mark, over the array of the row.
+     * @param row the row to count
+     * @param mark the mark to count
+     * @return the number of cells of the row holding the mark
+     */
+    @Override
+    public int countMarks(int row, Mark mark) {
+        int count = 0;
+        for (Mark cell : cells[row]) {
+            if (cell == mark) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Finds the longest run of a mark in a segment of a row, column or diagonal, reading the
+     * arrays of the rows directly.
+     * @param row the row of the first cell of the segment
+     * @param col the column of the first cell of the segment
+     * @param rowStep the row step between the cells of the segment, -1, 0 or 1
+     * @param colStep the column step between the cells of the segment, -1, 0 or 1
+     * @param length the number of cells in the segment
+     * @param mark the mark of the run
+     * @return the number of cells in the longest run of the mark in the segment
+     */
+    @Override
+    public int getLongestRun(int row, int col, int rowStep, int colStep, int length, Mark mark) {
+        int longest = 0;
+        int run = 0;
+        for (int i = 0; i < length; i++) {
+            run = cells[row + i * rowStep][col + i * colStep] == mark ? run + 1 : 0;
+            longest = Math.max(longest, run);
+        }
+        return longest;
+    }
+
+    /* Initializes the cells with BLANK marks. */
+    private void initializeCells() {
+        for (int i = 0; i < size; i++) {
+            for (int j = 0; j < size; j++) {
+                cells[i][j] = Mark.BLANK;
+            }
+        }
+    }
+}
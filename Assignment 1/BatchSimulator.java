@@ -0,0 +1,339 @@
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * The BatchSimulator class plays many games between two random players at once, without Game,
+ * Board or Player objects. A random player draws every move uniformly from the empty cells, so a
+ * whole game between two of them is a uniformly random order of the cells, X taking the cells at
+ * the even turns and O the cells at the odd turns, cut short at the first turn a line is completed.
+ * The simulator keeps a batch of games in flat arrays, one lane per game, holding for every cell
+ * the turn it is taken at in every game, with the lanes of a cell next to each other. A line of
+ * winStreak cells is completed at the latest turn of its cells, and it belongs to a single player
+ * exactly when all those turns have the same parity, so the winner of every game is found by
+ * going over all the lines once, each time over all the lanes, with only max, and, or and min
+ * operations on neighbouring ints, which the just-in-time compiler turns into vector instructions.
+ * Every game is drawn and scanned to the last cell, so the simulator pays off when games run
+ * long compared to the board, as on small boards or with long win streaks; a short win streak on
+ * a big board ends a game of objects within a few turns, which is faster than the full scan.
+ * A win streak longer than the board or shorter than 2 falls back to the default, as in a Game.
+ * @author Neriya Ben David
+ * @see Tournament
+ * @see WhateverPlayer
+ */
+public class BatchSimulator {
+
+    // constants
+    /** The number of games in a batch, unless the boards are too big to hold that many. */
+    public static final int DEFAULT_LANES = 1024;
+    private static final int MAX_BATCH_CELLS = 1 << 18;
+    private static final int NO_WIN = Integer.MAX_VALUE;
+    private static final int PARITY_BIT = 1;
+    private static final int DIRECTIONS = CellStreaks.ROW_STEPS.length;
+
+    // Constants Arguments
+    private static final int ROUNDS_ARG = 0;
+    private static final int SIZE_ARG = 1;
+    private static final int WIN_STREAK_ARG = 2;
+    private static final int ARGS_COUNT = 3;
+
+    // Constants Statistics
+    private static final int OUTCOMES = 3;
+    // the values of the chi-square distribution that are exceeded with probability 5%, by the
+    // degrees of freedom of the test
+    private static final double[] CRITICAL_VALUES = {0, 3.841, 5.991};
+    private static final double NANOS_PER_SECOND = 1e9;
+
+    // Constants Messages
+    private static final String USAGE_MESSAGE =
+            "Usage: java BatchSimulator [round count] [size] [win_streak]";
+    private static final String SCORE_MESSAGE = "%-6s player 1 won %,10d  player 2 won %,10d  ties %,10d  " +
+            "%,12.0f rounds/s\n";
+    private static final String GAME_PATH = "game";
+    private static final String BATCH_PATH = "batch";
+    private static final String TEST_MESSAGE = "chi-square %.3f with %d degrees of freedom, " +
+            "critical value at 5%% %.3f: %s\n";
+    private static final String MATCH_RESULT = "the outcomes match";
+    private static final String MISMATCH_RESULT = "the outcomes differ";
+    private static final String SINGLE_OUTCOME_RESULT = "every round has the same outcome";
+    private static final String SETTINGS_MESSAGE = "Board of size %d, win streak %d:\n";
+
+    // fields
+    private final int cellCount;
+    private final int winStreak;
+    private final int lanes;
+    // the cells of every line, winStreak cells after winStreak cells
+    private final int[] lineCells;
+    private final int lineCount;
+    // the turn every cell is taken at in every game, the lanes of a cell next to each other
+    private final int[] turns;
+    // the turn every game is won at, or NO_WIN if it is a tie
+    private final int[] winTurns;
+    // the latest turn, the or and the and of the turns of the current line in every game
+    private final int[] lineLatest;
+    private final int[] lineOr;
+    private final int[] lineAnd;
+    // the order of the cells of the last game drawn
+    private final int[] order;
+    private final SplittableRandom random;
+
+    /**
+     * Constructs a new BatchSimulator object with a random generator of its own.
+     * @param size the size of the board
+     * @param winStreak the number of marks in a row needed to win a game
+     */
+    public BatchSimulator(int size, int winStreak) {
+        this(size, winStreak, new SplittableRandom());
+    }
+
+    /**
+     * Constructs a new BatchSimulator object.
+     * @param size the size of the board
+     * @param winStreak the number of marks in a row needed to win a game, the default if it is
+     *                  longer than the board or shorter than 2
+     * @param random the random generator to draw the games with
+     */
+    public BatchSimulator(int size, int winStreak, SplittableRandom random) {
+        this.cellCount = size * size;
+        this.winStreak = Game.effectiveWinStreak(size, winStreak);
+        this.lanes = Math.max(Math.min(DEFAULT_LANES, MAX_BATCH_CELLS / Math.max(cellCount, 1)), 1);
+        this.lineCells = buildLines(size, this.winStreak);
+        this.lineCount = lineCells.length / this.winStreak;
+        this.turns = new int[cellCount * lanes];
+        this.winTurns = new int[lanes];
+        this.lineLatest = new int[lanes];
+        this.lineOr = new int[lanes];
+        this.lineAnd = new int[lanes];
+        this.order = new int[cellCount];
+        for (int cell = 0; cell < cellCount; cell++) {
+            order[cell] = cell;
+        }
+        this.random = random;
+    }
+
+    /**
+     * Gets the number of games played at once.
+     * @return the number of lanes of a batch
+     */
+    public int getLanes() {
+        return lanes;
+    }
+
+    /**
+     * Plays a range of rounds of a tournament between two random players, player 1 moving first
+     * in the same rounds as in a tournament of Game objects.
+     * @param firstRound the index of the first round in the tournament
+     * @param rounds the number of rounds to play
+     * @return the scores of the rounds
+     */
+    public TournamentScore playRounds(int firstRound, int rounds) {
+        TournamentScore score = new TournamentScore();
+        for (int batchStart = 0; batchStart < rounds; batchStart += lanes) {
+            int games = Math.min(lanes, rounds - batchStart);
+            drawGames(games);
+            findWinTurns(games);
+            for (int lane = 0; lane < games; lane++) {
+                score.recordRound(firstRound + batchStart + lane, winnerOf(winTurns[lane]));
+            }
+        }
+        return score;
+    }
+
+    /*
+     * Draw a uniformly random order of the cells for every game and store the turn of every cell.
+     * Shuffling the order of the previous game gives a uniformly random order as well.
+     */
+    private void drawGames(int games) {
+        for (int lane = 0; lane < games; lane++) {
+            for (int turn = cellCount - 1; turn > 0; turn--) {
+                int other = random.nextInt(turn + 1);
+                int cell = order[other];
+                order[other] = order[turn];
+                order[turn] = cell;
+            }
+            for (int turn = 0; turn < cellCount; turn++) {
+                turns[order[turn] * lanes + lane] = turn;
+            }
+        }
+    }
+
+    /*
+     * Find the first turn a line is completed by a single player in every game, going over every
+     * line once for all the games. The loops over the lanes are free of branches so they can be
+     * vectorized.
+     */
+    private void findWinTurns(int games) {
+        for (int lane = 0; lane < games; lane++) {
+            winTurns[lane] = NO_WIN;
+        }
+        for (int line = 0; line < lineCount; line++) {
+            int first = lineCells[line * winStreak] * lanes;
+            for (int lane = 0; lane < games; lane++) {
+                int turn = turns[first + lane];
+                lineLatest[lane] = turn;
+                lineOr[lane] = turn;
+                lineAnd[lane] = turn;
+            }
+            for (int i = 1; i < winStreak; i++) {
+                int offset = lineCells[line * winStreak + i] * lanes;
+                for (int lane = 0; lane < games; lane++) {
+                    int turn = turns[offset + lane];
+                    lineLatest[lane] = Math.max(lineLatest[lane], turn);
+                    lineOr[lane] |= turn;
+                    lineAnd[lane] &= turn;
+                }
+            }
+            for (int lane = 0; lane < games; lane++) {
+                // the parity bit is 1 when all the turns are even or all are odd, and then the
+                // mask keeps the latest turn, otherwise it turns it into NO_WIN
+                int singlePlayer = (~lineOr[lane] | lineAnd[lane]) & PARITY_BIT;
+                int completed = lineLatest[lane] | ((singlePlayer - 1) & NO_WIN);
+                winTurns[lane] = Math.min(winTurns[lane], completed);
+            }
+        }
+    }
+
+    /*
+     * Get the winning mark of a game from the turn it was won at
+     */
+    private static Mark winnerOf(int winTurn) {
+        if (winTurn == NO_WIN) {
+            return Mark.BLANK;
+        }
+        return (winTurn & PARITY_BIT) == 0 ? Mark.X : Mark.O;
+    }
+
+    /*
+     * Build the cells of every line of winStreak cells on the board, in every direction
+     */
+    private static int[] buildLines(int size, int winStreak) {
+        int lines = 0;
+        int[] cells = new int[0];
+        if (winStreak < 1 || winStreak > size) {
+            return cells;
+        }
+        cells = new int[DIRECTIONS * size * size * winStreak];
+        for (int direction = 0; direction < DIRECTIONS; direction++) {
+            for (int row = 0; row < size; row++) {
+                for (int col = 0; col < size; col++) {
+                    int lastRow = row + CellStreaks.ROW_STEPS[direction] * (winStreak - 1);
+                    int lastCol = col + CellStreaks.COL_STEPS[direction] * (winStreak - 1);
+                    if (lastRow >= size || lastCol < 0 || lastCol >= size) {
+                        continue;
+                    }
+                    for (int i = 0; i < winStreak; i++) {
+                        cells[lines * winStreak + i] = (row + CellStreaks.ROW_STEPS[direction] * i) * size +
+                                col + CellStreaks.COL_STEPS[direction] * i;
+                    }
+                    lines++;
+                }
+            }
+        }
+        return Arrays.copyOf(cells, lines * winStreak);
+    }
+
+    /*
+     * Play the rounds between two random players with Game objects, as a tournament does
+     */
+    private static TournamentScore playGameRounds(int rounds, int size, int winStreak) {
+        TournamentScore score = new TournamentScore();
+        Player player1 = new WhateverPlayer();
+        Player player2 = new WhateverPlayer();
+        try (Board board = new Board(size)) {
+            Game game = new Game(player1, player2, board, winStreak, new VoidRenderer());
+            for (int i = 0; i < rounds; i++) {
+                boolean isPlayer1First = TournamentScore.isPlayer1First(i);
+                game.reset(isPlayer1First ? player1 : player2, isPlayer1First ? player2 : player1);
+                score.recordRound(i, game.run());
+            }
+        }
+        return score;
+    }
+
+    /*
+     * Print the scores of rounds and how fast they were played
+     */
+    private static void printScore(String path, TournamentScore score, long elapsedNanos) {
+        int rounds = score.getPlayer1Wins() + score.getPlayer2Wins() + score.getTies();
+        System.out.printf(SCORE_MESSAGE, path, score.getPlayer1Wins(), score.getPlayer2Wins(),
+                score.getTies(), rounds * NANOS_PER_SECOND / Math.max(elapsedNanos, 1));
+    }
+
+    /*
+     * Print the chi-square test of whether the two scores are drawn from the same outcomes,
+     * leaving out the outcomes that neither of them has
+     */
+    private static void printTest(TournamentScore first, TournamentScore second) {
+        int[][] counts = {
+                {first.getPlayer1Wins(), first.getPlayer2Wins(), first.getTies()},
+                {second.getPlayer1Wins(), second.getPlayer2Wins(), second.getTies()}};
+        double firstTotal = counts[0][0] + counts[0][1] + counts[0][2];
+        double secondTotal = counts[1][0] + counts[1][1] + counts[1][2];
+        double chiSquare = 0;
+        int outcomes = 0;
+        for (int outcome = 0; outcome < OUTCOMES; outcome++) {
+            double outcomeTotal = counts[0][outcome] + counts[1][outcome];
+            if (outcomeTotal == 0) {
+                continue;
+            }
+            outcomes++;
+            double firstExpected = outcomeTotal * firstTotal / (firstTotal + secondTotal);
+            double secondExpected = outcomeTotal * secondTotal / (firstTotal + secondTotal);
+            chiSquare += Math.pow(counts[0][outcome] - firstExpected, 2) / firstExpected +
+                    Math.pow(counts[1][outcome] - secondExpected, 2) / secondExpected;
+        }
+        int degreesOfFreedom = outcomes - 1;
+        if (degreesOfFreedom == 0) {
+            System.out.println(SINGLE_OUTCOME_RESULT);
+            return;
+        }
+        double criticalValue = CRITICAL_VALUES[degreesOfFreedom];
+        System.out.printf(TEST_MESSAGE, chiSquare, degreesOfFreedom, criticalValue,
+                chiSquare <= criticalValue ? MATCH_RESULT : MISMATCH_RESULT);
+    }
+
+    /*
+     * Play the rounds with Game objects and with the simulator and test their outcomes
+     */
+    private static void compare(int rounds, int size, int winStreak) {
+        System.out.printf(SETTINGS_MESSAGE, size, winStreak);
+        long startTime = System.nanoTime();
+        TournamentScore gameScore = playGameRounds(rounds, size, winStreak);
+        printScore(GAME_PATH, gameScore, System.nanoTime() - startTime);
+
+        startTime = System.nanoTime();
+        TournamentScore batchScore = new BatchSimulator(size, winStreak).playRounds(0, rounds);
+        printScore(BATCH_PATH, batchScore, System.nanoTime() - startTime);
+
+        printTest(gameScore, batchScore);
+    }
+
+    /**
+     * Main method to play the same number of rounds between two random players with Game objects
+     * and with the simulator, and test whether their outcomes are drawn from the same distribution.
+     * A win streak the board can hold is also tested as a win streak longer than the board, which
+     * both fall back from to the default.
+     * @param args command line arguments
+     */
+    public static void main(String[] args) {
+        int rounds;
+        int size;
+        int winStreak;
+        try {
+            rounds = Integer.parseInt(args[ROUNDS_ARG]);
+            size = Integer.parseInt(args[SIZE_ARG]);
+            winStreak = Integer.parseInt(args[WIN_STREAK_ARG]);
+        } catch (RuntimeException e) {
+            System.out.println(USAGE_MESSAGE);
+            return;
+        }
+        if (args.length != ARGS_COUNT || rounds < 1 || size < 1 || winStreak < 1) {
+            System.out.println(USAGE_MESSAGE);
+            return;
+        }
+
+        compare(rounds, size, winStreak);
+        if (Game.effectiveWinStreak(size, winStreak) == winStreak) {
+            compare(rounds, size, size + 1);
+        }
+    }
+}
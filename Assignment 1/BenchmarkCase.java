@@ -0,0 +1,19 @@
+/**
+ * BenchmarkCase interface to represent a single piece of code measured by the BenchmarkRunner.
+ * @author Neriya Ben David
+ * @see BenchmarkRunner
+ */
+public interface BenchmarkCase {
+
+    /**
+     * Prepares the next run of the case. The time spent here is not measured.
+     */
+    default void setUp() {
+    }
+
+    /**
+     * Runs the measured code once.
+     * @return the number of operations the run performed
+     */
+    long run();
+}
@@ -0,0 +1,143 @@
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * The BenchmarkRunner class measures the throughput of benchmark cases in operations per second.
+ * Every case runs for a few warmup iterations that are thrown away, then for a few measured
+ * iterations of a fixed duration, and its score is the average throughput of the measured
+ * iterations with a 99.9% confidence error. The results can be saved as JSON in the same layout
+ * the JMH harness uses, so results of different versions can be compared by the same tools.
+ * @author Neriya Ben David
+ * @see BenchmarkCase
+ */
+public class BenchmarkRunner {
+
+    // Constants Numbers
+    private static final long NANOS_PER_MILLI = 1_000_000L;
+    private static final double NANOS_PER_SECOND = 1e9;
+    private static final double CONFIDENCE_Z_SCORE = 3.29;
+
+    // Constants Messages
+    private static final String RESULT_MESSAGE = "%-45s %-24s %16.1f +- %12.1f ops/s\n";
+    private static final String PARAMS_FORMAT = "size=%d winStreak=%d";
+    private static final String JSON_RESULT_FORMAT = "  {\"benchmark\": \"%s\", \"mode\": \"thrpt\", " +
+            "\"warmupIterations\": %d, \"measurementIterations\": %d, " +
+            "\"params\": {\"size\": \"%d\", \"winStreak\": \"%d\"}, " +
+            "\"primaryMetric\": {\"score\": %.3f, \"scoreError\": %.3f, \"scoreUnit\": \"ops/s\"}}";
+    private static final String JSON_SEPARATOR = ",\n";
+
+    // results of the cases are summed here so the measured code can't be optimized away
+    private static volatile long sink;
+
+    // fields
+    private final int warmupIterations;
+    private final int measurementIterations;
+    private final long iterationNanos;
+    private final List<String> jsonResults;
+
+    /**
+     * Constructs a new BenchmarkRunner object.
+     * @param warmupIterations the number of iterations run before measuring
+     * @param measurementIterations the number of measured iterations
+     * @param iterationMillis the duration of a single iteration in milliseconds
+     */
+    public BenchmarkRunner(int warmupIterations, int measurementIterations, long iterationMillis) {
+        this.warmupIterations = warmupIterations;
+        this.measurementIterations = measurementIterations;
+        this.iterationNanos = iterationMillis * NANOS_PER_MILLI;
+        this.jsonResults = new ArrayList<>();
+    }
+
+    /**
+     * Keeps a value computed by a benchmark case, so computing it is not optimized away.
+     * @param value the computed value
+     */
+    public static void consume(long value) {
+        sink += value;
+    }
+
+    /**
+     * Measures a case, prints its score and keeps it for the JSON results.
+     * @param name the name of the case
+     * @param size the board size the case runs with
+     * @param winStreak the win streak the case runs with
+     * @param benchmarkCase the case to measure
+     * @return the average throughput of the case in operations per second
+     */
+    public double measure(String name, int size, int winStreak, BenchmarkCase benchmarkCase) {
+        for (int i = 0; i < warmupIterations; i++) {
+            runIteration(benchmarkCase);
+        }
+        double[] scores = new double[measurementIterations];
+        for (int i = 0; i < measurementIterations; i++) {
+            scores[i] = runIteration(benchmarkCase);
+        }
+
+        double mean = mean(scores);
+        double error = confidenceError(scores, mean);
+        System.out.printf(RESULT_MESSAGE, name, String.format(PARAMS_FORMAT, size, winStreak), mean, error);
+        jsonResults.add(String.format(Locale.ROOT, JSON_RESULT_FORMAT, name, warmupIterations, measurementIterations,
+                size, winStreak, mean, error));
+        return mean;
+    }
+
+    /**
+     * Saves the results of all the measured cases to a file as a JSON array.
+     * @param path the path of the file to write
+     * @throws IOException if the file can't be written
+     */
+    public void saveResults(String path) throws IOException {
+        try (PrintWriter writer = new PrintWriter(new FileWriter(path))) {
+            writer.println("[");
+            writer.println(String.join(JSON_SEPARATOR, jsonResults));
+            writer.println("]");
+        }
+    }
+
+    /*
+     * Run the case again and again for the duration of an iteration and return its throughput,
+     * counting only the time spent in the measured runs
+     */
+    private double runIteration(BenchmarkCase benchmarkCase) {
+        long operations = 0;
+        long measuredNanos = 0;
+        long iterationEnd = System.nanoTime() + iterationNanos;
+        do {
+            benchmarkCase.setUp();
+            long start = System.nanoTime();
+            operations += benchmarkCase.run();
+            measuredNanos += System.nanoTime() - start;
+        } while (System.nanoTime() < iterationEnd);
+        return operations * NANOS_PER_SECOND / Math.max(measuredNanos, 1);
+    }
+
+    /*
+     * The average of the scores
+     */
+    private static double mean(double[] scores) {
+        double sum = 0;
+        for (double score : scores) {
+            sum += score;
+        }
+        return sum / scores.length;
+    }
+
+    /*
+     * The half width of the confidence interval of the mean
+     */
+    private static double confidenceError(double[] scores, double mean) {
+        if (scores.length < 2) {
+            return 0;
+        }
+        double squares = 0;
+        for (double score : scores) {
+            squares += (score - mean) * (score - mean);
+        }
+        double deviation = Math.sqrt(squares / (scores.length - 1));
+        return CONFIDENCE_Z_SCORE * deviation / Math.sqrt(scores.length);
+    }
+}
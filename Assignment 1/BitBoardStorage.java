@@ -0,0 +1,201 @@
+import java.util.Arrays;
+
+/**
+ * The BitBoardStorage class keeps the cells of a board as bitsets, one bit per cell per mark.
+ * Cells are numbered in row-major order, and the X and O bits of every 64 cells are kept next to
+ * each other in a single long array, so reading a cell touches one cache line and checking
+ * whether a cell is empty is a single bit operation. A 64x64 board takes 1 KB for both marks.
+ * The scans over a row go over the bits of 64 cells at once, finding empty cells in the words
+ * that have neither bit set and counting marks by counting bits.
+ * @author Neriya Ben David
+ * @see BoardStorage
+ */
+public class BitBoardStorage implements BoardStorage {
+
+    // constants
+    private static final int BITS_PER_WORD_SHIFT = 6;
+    private static final int BITS_PER_WORD = 1 << BITS_PER_WORD_SHIFT;
+    private static final int WORDS_PER_BLOCK = 2;
+    private static final int O_WORD_OFFSET = 1;
+    private static final int BIT_MASK = BITS_PER_WORD - 1;
+
+    // fields
+    // X bits of block i are at index 2i and O bits of block i are at index 2i + 1
+    private final long[] words;
+    private final int size;
+
+    /**
+     * Constructs a new BitBoardStorage object with all cells BLANK.
+     * @param size the size of the board
+     */
+    public BitBoardStorage(int size) {
+        this.size = size;
+        long cells = (long) size * size;
+        int blocks = (int) ((cells + BITS_PER_WORD - 1) >>> BITS_PER_WORD_SHIFT);
+        this.words = new long[blocks * WORDS_PER_BLOCK];
+    }
+
+    /**
+     * Gets the size of the stored board.
+     * @return the size of the stored board
+     */
+    @Override
+    public int getSize() {
+        return size;
+    }
+
+    /**
+     * Gets the mark stored at the specified row and column.
+     * @param row the row of the cell
+     * @param col the column of the cell
+     * @return the mark stored in the cell
+     */
+    @Override
+    public Mark getMark(int row, int col) {
+        long cell = cellIndex(row, col);
+        int xWord = xWordIndex(cell);
+        long bit = 1L << cell;
+        if ((words[xWord] & bit) != 0) {
+            return Mark.X;
+        }
+        if ((words[xWord + O_WORD_OFFSET] & bit) != 0) {
+            return Mark.O;
+        }
+        return Mark.BLANK;
+    }
+
+    /**
+     * Checks whether the cell at the specified row and column is empty.
+     * @param row the row of the cell
+     * @param col the column of the cell
+     * @return true if neither an X nor an O bit is set for the cell, false otherwise
+     */
+    @Override
+    public boolean isEmpty(int row, int col) {
+        long cell = cellIndex(row, col);
+        int xWord = xWordIndex(cell);
+        return ((words[xWord] | words[xWord + O_WORD_OFFSET]) & (1L << cell)) == 0;
+    }
+
+    /**
+     * Stores a mark at the specified row and column.
+     * @param row the row of the cell
+     * @param col the column of the cell
+     * @param mark the mark to store
+     */
+    @Override
+    public void setMark(int row, int col, Mark mark) {
+        long cell = cellIndex(row, col);
+        int xWord = xWordIndex(cell);
+        long bit = 1L << cell;
+
+        // clear both bits of the cell and set the one of the new mark
+        words[xWord] &= ~bit;
+        words[xWord + O_WORD_OFFSET] &= ~bit;
+        if (mark == Mark.X) {
+            words[xWord] |= bit;
+        } else if (mark == Mark.O) {
+            words[xWord + O_WORD_OFFSET] |= bit;
+        }
+    }
+
+    /**
+     * Sets all the cells back to BLANK by clearing all the bits.
+     */
+    @Override
+    public void clear() {
+        Arrays.fill(words, 0);
+    }
+
+    /**
+     * Finds the first empty cell of a row, starting at a column and going right a word at a time.
+     * @param row the row to scan
+     * @param fromCol the first column to check
+     * @return the column of the first empty cell at or after fromCol, or NOT_FOUND if there is none
+     */
+    @Override
+    public int findFirstEmpty(int row, int fromCol) {
+        long rowStart = cellIndex(row, 0);
+        long rowEnd = rowStart + size;
+        for (long cell = rowStart + Math.max(fromCol, 0); cell < rowEnd; cell = (cell | BIT_MASK) + 1) {
+            long empty = markBits(xWordIndex(cell), Mark.BLANK) & (-1L << cell);
+            if (empty != 0) {
+                long found = (cell & ~BIT_MASK) + Long.numberOfTrailingZeros(empty);
+                return found < rowEnd ? (int) (found - rowStart) : NOT_FOUND;
+            }
+        }
+        return NOT_FOUND;
+    }
+
+    /**
+     * Finds the last empty cell of a row, starting at a column and going left a word at a time.
+     * @param row the row to scan
+     * @param fromCol the first column to check
+     * @return the column of the last empty cell at or before fromCol, or NOT_FOUND if there is none
+     */
+    @Override
+    public int findLastEmpty(int row, int fromCol) {
+        long rowStart = cellIndex(row, 0);
+        long firstCell = rowStart + Math.min(fromCol, size - 1);
+        for (long cell = firstCell; cell >= rowStart; cell = (cell & ~BIT_MASK) - 1) {
+            long empty = markBits(xWordIndex(cell), Mark.BLANK) & (-1L >>> (BIT_MASK - (cell & BIT_MASK)));
+            if (empty != 0) {
+                long found = (cell & ~BIT_MASK) + BIT_MASK - Long.numberOfLeadingZeros(empty);
+                return found >= rowStart ? (int) (found - rowStart) : NOT_FOUND;
+            }
+        }
+        return NOT_FOUND;
+    }
+
+    /**
+     * Counts the cells of a row that hold a mark by counting the bits of the mark a word at a time.
+     * @param row the row to count
+     * @param mark the mark to count
+     * @return the number of cells of the row holding the mark
+     */
+    @Override
+    public int countMarks(int row, Mark mark) {
+        long rowStart = cellIndex(row, 0);
+        long rowEnd = rowStart + size;
+        int count = 0;
+        for (long cell = rowStart; cell < rowEnd; cell = (cell | BIT_MASK) + 1) {
+            long mask = -1L << cell;
+            long wordEnd = (cell & ~BIT_MASK) + BITS_PER_WORD;
+            if (rowEnd < wordEnd) {
+                mask &= (1L << rowEnd) - 1;
+            }
+            count += Long.bitCount(markBits(xWordIndex(cell), mark) & mask);
+        }
+        return count;
+    }
+
+    /*
+     * Gets the bits of the cells of a block that hold a mark, BLANK cells having neither bit set
+     */
+    private long markBits(int xWord, Mark mark) {
+        if (mark == Mark.X) {
+            return words[xWord];
+        }
+        if (mark == Mark.O) {
+            return words[xWord + O_WORD_OFFSET];
+        }
+        return ~(words[xWord] | words[xWord + O_WORD_OFFSET]);
+    }
+
+    /*
+     * Gets the row-major index of the cell, checking the bounds like an array access would.
+     */
+    private long cellIndex(int row, int col) {
+        if (row < 0 || row >= size || col < 0 || col >= size) {
+            throw new ArrayIndexOutOfBoundsException("Cell (" + row + ", " + col + ") is out of the board");
+        }
+        return (long) row * size + col;
+    }
+
+    /*
+     * Gets the index of the word holding the X bit of the cell.
+     */
+    private static int xWordIndex(long cell) {
+        return (int) (cell >>> BITS_PER_WORD_SHIFT) * WORDS_PER_BLOCK;
+    }
+}
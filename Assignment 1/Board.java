@@ -1,21 +1,51 @@
+import java.util.Random;
+
 /**
  * The Board class represents a game board for a tic-tac-toe like game.
  * This class provides methods to initialize the board, place marks on it, and
  * retrieve the size and marks from the board. The default board size is 4x4,
  * but a custom size can be specified through the constructor.
+ * The cells of the board are kept by a BoardStorage, which is an array of marks
+ * unless a different storage is given to the constructor.
+ * The board counts the marks put on it, and keeps a cursor before which every cell is taken
+ * from each end of the board: marks are never taken off during a game, so the cursors only move
+ * on, and finding the first or last empty cell over a whole game scans every cell once at most.
  * @author Neriya Ben David
+ * @see BoardStorage
  */
- public class Board {
+ public class Board implements AutoCloseable {
+    /**
+     * The row and column reported for the last move of a board nobody has played on yet.
+     */
+    public static final int NO_MOVE = -1;
+
+    /**
+     * The column returned by the scans of a row that find no matching cell.
+     */
+    public static final int NOT_FOUND = BoardStorage.NOT_FOUND;
+
     private static final int DEFAULT_SIZE = 4;
-    private final Mark[][] board;
-    private int size;
+    // boards with more cells than this are too large to keep an index of their empty cells
+    private static final long MAX_INDEXED_CELLS = 1 << 22;
+    private final BoardStorage storage;
+    private final int size;
+    private int lastMoveRow;
+    private int lastMoveCol;
+    private long xCount;
+    private long oCount;
+    // every cell before the front cursor and after the back cursor in row order is taken
+    private int frontRow;
+    private int frontCol;
+    private int backRow;
+    private int backCol;
+    // empty cells of the board, built the first time a random empty cell is requested
+    private FreeCellSet emptyCells;
 
     /**
      * Constructs a new Board object with the default size of 4x4.
      */
     public Board() {
-        this.board = new Mark[DEFAULT_SIZE][DEFAULT_SIZE];
-        initializeBoard(DEFAULT_SIZE);
+        this(DEFAULT_SIZE);
     }
 
     /**
@@ -23,9 +53,19 @@
      * @param size the size of the board
      */
     public Board(int size) {
-        this.size = size;
-        this.board = new Mark[size][size];
-        initializeBoard(size);
+        this(new ArrayBoardStorage(size));
+    }
+
+    /**
+     * Constructs a new Board object whose cells are kept by the given storage.
+     * @param storage the storage of the board cells, all of them expected to be BLANK
+     */
+    public Board(BoardStorage storage) {
+        this.storage = storage;
+        this.size = storage.getSize();
+        this.lastMoveRow = NO_MOVE;
+        this.lastMoveCol = NO_MOVE;
+        resetCounts();
     }
 
     /**
@@ -45,13 +85,101 @@
      * already been taken occupied
      */
     public boolean putMark(Mark mark, int row, int col) {
-        if (getMark(row, col) == Mark.BLANK) {
-            board[row][col] = mark;
+        if (storage.isEmpty(row, col)) {
+            storage.setMark(row, col, mark);
+            lastMoveRow = row;
+            lastMoveCol = col;
+            if (mark == Mark.X) {
+                xCount++;
+            } else if (mark == Mark.O) {
+                oCount++;
+            }
+            if (emptyCells != null) {
+                emptyCells.remove(row * size + col);
+            }
             return true;
         }
         return false;
     }
 
+    /**
+     * Puts a mark in an empty cell of the board, drawn uniformly at random from all the empty
+     * cells. On boards that aren't too large the empty cells are kept in an index, so the cell
+     * is drawn in constant time without retrying occupied cells.
+     * @param mark the mark to place on the board
+     * @param random the random generator to draw the cell with
+     * @return true if the mark was placed, false if there are no empty cells on the board
+     */
+    public boolean putMarkInRandomEmptyCell(Mark mark, Random random) {
+        if ((long) size * size > MAX_INDEXED_CELLS) {
+            return putMarkInRandomCellUntilEmpty(mark, random);
+        }
+        if (emptyCells == null) {
+            initializeEmptyCells();
+        }
+        if (emptyCells.size() == 0) {
+            return false;
+        }
+        int cell = emptyCells.randomCell(random);
+        return putMark(mark, cell / size, cell % size);
+    }
+
+    /**
+     * Puts a mark in the first empty cell of the board, going over the rows from the top and
+     * every row from the left. The search goes on from where the last search stopped.
+     * @param mark the mark to place on the board
+     * @return true if the mark was placed, false if there are no empty cells on the board
+     */
+    public boolean putMarkInFirstEmptyCell(Mark mark) {
+        for (; frontRow < size; frontRow++, frontCol = 0) {
+            int col = storage.findFirstEmpty(frontRow, frontCol);
+            if (col != NOT_FOUND) {
+                frontCol = col;
+                return putMark(mark, frontRow, col);
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Puts a mark in the last empty cell of the board, going over the rows from the bottom and
+     * every row from the right. The search goes on from where the last search stopped.
+     * @param mark the mark to place on the board
+     * @return true if the mark was placed, false if there are no empty cells on the board
+     */
+    public boolean putMarkInLastEmptyCell(Mark mark) {
+        for (; backRow >= 0; backRow--, backCol = size - 1) {
+            int col = storage.findLastEmpty(backRow, backCol);
+            if (col != NOT_FOUND) {
+                backCol = col;
+                return putMark(mark, backRow, col);
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Clears all the marks from the board in place, so it can be used for a new game
+     * without allocating a new board.
+     */
+    public void clear() {
+        storage.clear();
+        lastMoveRow = NO_MOVE;
+        lastMoveCol = NO_MOVE;
+        resetCounts();
+        if (emptyCells != null) {
+            emptyCells.addAll();
+        }
+    }
+
+    /**
+     * Releases the memory of the board storage, the board can't be used afterwards.
+     */
+    @Override
+    public void close() {
+        storage.close();
+    }
+
     /**
      * Gets the mark at the specified row and column.
      * @param row the row of the mark to retrieve
@@ -59,15 +187,132 @@
      * @return the mark at the specified row and column
      */
     public Mark getMark(int row, int col) {
-        return board[row][col];
+        return storage.getMark(row, col);
+    }
+
+    /**
+     * Finds the first empty cell of a row, starting at a column and going right. The row is
+     * scanned by the storage of the board, which may check many cells at once.
+     * @param row the row to scan
+     * @param fromCol the first column to check
+     * @return the column of the first empty cell at or after fromCol, or NOT_FOUND if there is none
+     */
+    public int findFirstEmpty(int row, int fromCol) {
+        return storage.findFirstEmpty(row, fromCol);
+    }
+
+    /**
+     * Finds the last empty cell of a row, starting at a column and going left. The row is
+     * scanned by the storage of the board, which may check many cells at once.
+     * @param row the row to scan
+     * @param fromCol the first column to check
+     * @return the column of the last empty cell at or before fromCol, or NOT_FOUND if there is none
+     */
+    public int findLastEmpty(int row, int fromCol) {
+        return storage.findLastEmpty(row, fromCol);
+    }
+
+    /**
+     * Gets the number of marks put on the board since it was built or cleared.
+     * @return the number of taken cells
+     */
+    public long getMoveCount() {
+        return xCount + oCount;
     }
 
-    /* Initializes the board with BLANK marks. */
-    private void initializeBoard(int size) {
+    /**
+     * Gets the number of cells of the board that hold a mark, without scanning the board.
+     * @param mark the mark to count
+     * @return the number of cells holding the mark, or the number of empty cells for BLANK
+     */
+    public long getMarkCount(Mark mark) {
+        if (mark == Mark.X) {
+            return xCount;
+        }
+        if (mark == Mark.O) {
+            return oCount;
+        }
+        return (long) size * size - xCount - oCount;
+    }
+
+    /**
+     * Counts the cells of the board that hold a mark, letting the storage count every row.
+     * @param mark the mark to count
+     * @return the number of cells holding the mark
+     */
+    public long countMarks(Mark mark) {
+        long count = 0;
+        for (int row = 0; row < size; row++) {
+            count += storage.countMarks(row, mark);
+        }
+        return count;
+    }
+
+    /**
+     * Finds the longest run of a mark in a segment of a row, column or diagonal of the board.
+     * @param mark the mark of the run
+     * @param row the row of the first cell of the segment
+     * @param col the column of the first cell of the segment
+     * @param rowStep the row step between the cells of the segment, -1, 0 or 1
+     * @param colStep the column step between the cells of the segment, -1, 0 or 1
+     * @param length the number of cells in the segment, all of them on the board
+     * @return the number of cells in the longest run of the mark in the segment
+     */
+    public int getLongestRun(Mark mark, int row, int col, int rowStep, int colStep, int length) {
+        return storage.getLongestRun(row, col, rowStep, colStep, length, mark);
+    }
+
+    /**
+     * Gets the row of the last mark that was successfully put on the board.
+     * @return the row of the last placed mark, or NO_MOVE if the board is empty
+     */
+    public int getLastMoveRow() {
+        return lastMoveRow;
+    }
+
+    /**
+     * Gets the column of the last mark that was successfully put on the board.
+     * @return the column of the last placed mark, or NO_MOVE if the board is empty
+     */
+    public int getLastMoveCol() {
+        return lastMoveCol;
+    }
+
+    /* Sets the counts of an empty board and moves the cursors back to the corners. */
+    private void resetCounts() {
+        xCount = 0;
+        oCount = 0;
+        frontRow = 0;
+        frontCol = 0;
+        backRow = size - 1;
+        backCol = size - 1;
+    }
+
+    /* Builds the index of the empty cells from the current state of the board. */
+    private void initializeEmptyCells() {
+        emptyCells = new FreeCellSet(size * size);
         for (int i = 0; i < size; i++) {
             for (int j = 0; j < size; j++) {
-                board[i][j] = Mark.BLANK;
+                if (storage.isEmpty(i, j)) {
+                    emptyCells.add(i * size + j);
+                }
             }
         }
     }
+
+    /*
+     * Draws random cells until an empty one is found, which is fast enough on boards too
+     * large to index since they are mostly empty in any game that ends in reasonable time.
+     * A full board has no empty cell to find, so nothing is drawn on it.
+     */
+    private boolean putMarkInRandomCellUntilEmpty(Mark mark, Random random) {
+        if (getMarkCount(Mark.BLANK) == 0) {
+            return false;
+        }
+        boolean isEmptyCell;
+        do {
+            isEmptyCell = putMark(mark, random.nextInt(size), random.nextInt(size));
+        } while (!isEmptyCell);
+        return true;
+    }
 }
@@ -0,0 +1,65 @@
+/**
+ * The BoardFactory class is responsible for creating boards backed by
+ * various types of storage
+ * @author Neriya Ben David
+ * @see Board
+ * @see ArrayBoardStorage
+ * @see BitBoardStorage
+ * @see OffHeapBoardStorage
+ * @see SparseBoardStorage
+ * @see ByteBoardStorage
+ */
+public class BoardFactory {
+
+    // constants for board types
+    private static final String ARRAY_BOARD = "array";
+    private static final String BIT_BOARD = "bit";
+    private static final String OFF_HEAP_BOARD = "offheap";
+    private static final String SPARSE_BOARD = "sparse";
+    private static final String BYTE_BOARD = "byte";
+    private static final String[] BOARD_TYPES = {ARRAY_BOARD, BIT_BOARD, OFF_HEAP_BOARD, SPARSE_BOARD,
+            BYTE_BOARD};
+
+    /**
+     * Constructs a new BoardFactory object.
+     */
+    public BoardFactory() {
+    }
+
+    /**
+     * Builds a new empty board according to the type given
+     * @param type the type of storage the board should use
+     * @param size the size of the board
+     * @return a new board object based on the type given, or null if the type is unknown
+     */
+    public Board buildBoard(String type, int size) {
+        switch (type) {
+            case ARRAY_BOARD:
+                return new Board(new ArrayBoardStorage(size));
+            case BIT_BOARD:
+                return new Board(new BitBoardStorage(size));
+            case OFF_HEAP_BOARD:
+                return new Board(new OffHeapBoardStorage(size));
+            case SPARSE_BOARD:
+                return new Board(new SparseBoardStorage(size));
+            case BYTE_BOARD:
+                return new Board(new ByteBoardStorage(size));
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * Checks whether boards of the given type can be built by this factory
+     * @param type the type of storage to check
+     * @return true if the type is known, false otherwise
+     */
+    public boolean isBoardType(String type) {
+        for (String boardType : BOARD_TYPES) {
+            if (boardType.equals(type)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
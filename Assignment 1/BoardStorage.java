@@ -0,0 +1,133 @@
+/**
+ * The BoardStorage interface represents the way the cells of a Board are kept in memory.
+ * A Board delegates the reading and writing of its cells to a storage, so different memory
+ * layouts can be used without changing the Board contract that games and players rely on.
+ * The scans that games and players run over whole rows and lines have default implementations
+ * that read the cells one by one, which a storage can replace with faster kernels that suit its
+ * layout.
+ * @author Neriya Ben David
+ * @see Board
+ * @see ArrayBoardStorage
+ * @see BitBoardStorage
+ * @see OffHeapBoardStorage
+ * @see SparseBoardStorage
+ * @see ByteBoardStorage
+ */
+public interface BoardStorage extends AutoCloseable {
+
+    /**
+     * The column returned by the scans of a row that find no matching cell.
+     */
+    int NOT_FOUND = -1;
+
+    /**
+     * Gets the size of the stored board.
+     * @return the number of rows (and columns) of the stored board
+     */
+    int getSize();
+
+    /**
+     * Gets the mark stored at the specified row and column.
+     * @param row the row of the cell
+     * @param col the column of the cell
+     * @return the mark stored in the cell, or BLANK if the cell is empty
+     */
+    Mark getMark(int row, int col);
+
+    /**
+     * Checks whether the cell at the specified row and column is empty.
+     * @param row the row of the cell
+     * @param col the column of the cell
+     * @return true if no mark is stored in the cell, false otherwise
+     */
+    boolean isEmpty(int row, int col);
+
+    /**
+     * Stores a mark at the specified row and column, overriding the current value of the cell.
+     * @param row the row of the cell
+     * @param col the column of the cell
+     * @param mark the mark to store
+     */
+    void setMark(int row, int col, Mark mark);
+
+    /**
+     * Sets all the cells back to BLANK, keeping the memory of the storage for reuse.
+     */
+    void clear();
+
+    /**
+     * Finds the first empty cell of a row, starting at a column and going right.
+     * @param row the row to scan
+     * @param fromCol the first column to check
+     * @return the column of the first empty cell at or after fromCol, or NOT_FOUND if there is none
+     */
+    default int findFirstEmpty(int row, int fromCol) {
+        for (int col = fromCol; col < getSize(); col++) {
+            if (isEmpty(row, col)) {
+                return col;
+            }
+        }
+        return NOT_FOUND;
+    }
+
+    /**
+     * Finds the last empty cell of a row, starting at a column and going left.
+     * @param row the row to scan
+     * @param fromCol the first column to check
+     * @return the column of the last empty cell at or before fromCol, or NOT_FOUND if there is none
+     */
+    default int findLastEmpty(int row, int fromCol) {
+        for (int col = fromCol; col >= 0; col--) {
+            if (isEmpty(row, col)) {
+                return col;
+            }
+        }
+        return NOT_FOUND;
+    }
+
+    /**
+     * Counts the cells of a row that hold a mark.
+     * @param row the row to count
+     * @param mark the mark to count
+     * @return the number of cells of the row holding the mark
+     */
+    default int countMarks(int row, Mark mark) {
+        int count = 0;
+        for (int col = 0; col < getSize(); col++) {
+            if (getMark(row, col) == mark) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Finds the longest run of a mark in a segment of a row, column or diagonal.
+     * The segment starts at the given cell and takes length steps of the given direction, all
+     * of them expected to be on the board.
+     * @param row the row of the first cell of the segment
+     * @param col the column of the first cell of the segment
+     * @param rowStep the row step between the cells of the segment, -1, 0 or 1
+     * @param colStep the column step between the cells of the segment, -1, 0 or 1
+     * @param length the number of cells in the segment
+     * @param mark the mark of the run
+     * @return the number of cells in the longest run of the mark in the segment
+     */
+    default int getLongestRun(int row, int col, int rowStep, int colStep, int length, Mark mark) {
+        int longest = 0;
+        int run = 0;
+        for (int i = 0; i < length; i++) {
+            run = getMark(row + i * rowStep, col + i * colStep) == mark ? run + 1 : 0;
+            longest = Math.max(longest, run);
+        }
+        return longest;
+    }
+
+    /**
+     * Releases the memory of the storage. Storages kept on the heap have nothing to release,
+     * so by default this does nothing.
+     */
+    @Override
+    default void close() {
+    }
+}
@@ -0,0 +1,101 @@
+/**
+ * The BoardSymmetry class describes the eight symmetries of a square board: the identity, the
+ * three rotations and the four reflections. Every symmetry maps each cell, numbered
+ * row * size + col, to the cell it moves to, so positions that only differ by a symmetry can
+ * share a single canonical form, and a move of the canonical form can be mapped back.
+ * @author Neriya Ben David
+ * @see TablebaseSolver
+ * @see Tablebase
+ */
+public class BoardSymmetry {
+
+    // constants
+    /** The number of symmetries of a square board. */
+    public static final int COUNT = 8;
+    private static final int IDENTITY = 0;
+    private static final int ROTATE_90 = 1;
+    private static final int ROTATE_180 = 2;
+    private static final int ROTATE_270 = 3;
+    private static final int FLIP_ROWS = 4;
+    private static final int FLIP_COLS = 5;
+    private static final int TRANSPOSE = 6;
+
+    // fields
+    private final int size;
+    private final int[][] cellMaps;
+    private final int[][] inverseMaps;
+
+    /**
+     * Constructs a new BoardSymmetry object for a board size.
+     * @param size the size of the board
+     */
+    public BoardSymmetry(int size) {
+        this.size = size;
+        int cells = size * size;
+        this.cellMaps = new int[COUNT][cells];
+        this.inverseMaps = new int[COUNT][cells];
+        for (int symmetry = 0; symmetry < COUNT; symmetry++) {
+            for (int row = 0; row < size; row++) {
+                for (int col = 0; col < size; col++) {
+                    int cell = row * size + col;
+                    int mapped = mapCell(symmetry, row, col);
+                    cellMaps[symmetry][cell] = mapped;
+                    inverseMaps[symmetry][mapped] = cell;
+                }
+            }
+        }
+    }
+
+    /**
+     * Gets the size of the board.
+     * @return the size of the board
+     */
+    public int getSize() {
+        return size;
+    }
+
+    /**
+     * Gets the cell a symmetry moves a cell to.
+     * @param symmetry the index of the symmetry, from 0 to COUNT - 1
+     * @param cell the cell, row * size + col
+     * @return the cell it is moved to
+     */
+    public int map(int symmetry, int cell) {
+        return cellMaps[symmetry][cell];
+    }
+
+    /**
+     * Gets the cell a symmetry moves to the given cell, undoing the symmetry.
+     * @param symmetry the index of the symmetry, from 0 to COUNT - 1
+     * @param cell the cell the symmetry moved to, row * size + col
+     * @return the cell before the symmetry
+     */
+    public int unmap(int symmetry, int cell) {
+        return inverseMaps[symmetry][cell];
+    }
+
+    /*
+     * Get the cell a symmetry moves a row and column to
+     */
+    private int mapCell(int symmetry, int row, int col) {
+        int last = size - 1;
+        switch (symmetry) {
+            case IDENTITY:
+                return row * size + col;
+            case ROTATE_90:
+                return col * size + (last - row);
+            case ROTATE_180:
+                return (last - row) * size + (last - col);
+            case ROTATE_270:
+                return (last - col) * size + row;
+            case FLIP_ROWS:
+                return (last - row) * size + col;
+            case FLIP_COLS:
+                return row * size + (last - col);
+            case TRANSPOSE:
+                return col * size + row;
+            default:
+                return (last - col) * size + (last - row);
+        }
+    }
+}
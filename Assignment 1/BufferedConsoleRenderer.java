@@ -0,0 +1,242 @@
+import java.io.PrintStream;
+import java.util.Arrays;
+
+/**
+ * The BufferedConsoleRenderer class renders the board to the console for long or large games.
+ * Every frame is built into a single buffer that is reused for all the frames and written
+ * with one flush. In diff mode only the first frame of a game draws the whole board, and every
+ * later frame moves the cursor with ANSI escape codes to redraw just the cells that changed.
+ * The renderer can also skip frames, drawing only every Nth frame of a game or only its final
+ * board, which is always drawn. Skipped frames only remember the last move, so they cost
+ * next to nothing.
+ * @author Neriya Ben David
+ * @see Renderer
+ * @see RendererFactory
+ */
+public class BufferedConsoleRenderer implements Renderer {
+
+    // constants
+    /** The frame interval that draws only the final board of every game. */
+    public static final int FINAL_FRAME_ONLY = 0;
+    private static final int INITIAL_BUFFER_SIZE = 1024;
+    private static final int MAX_CELL_UPDATE_LENGTH = 32;
+    private static final int DECIMAL_BASE = 10;
+    private static final int COLUMN_WIDTH = 2;
+
+    // cell codes and symbols
+    private static final byte EMPTY = 0;
+    private static final byte X_CELL = 1;
+    private static final byte O_CELL = 2;
+    private static final byte[] SYMBOLS = {' ', 'X', 'O'};
+    private static final byte CELL_SEPARATOR = '|';
+    private static final byte LINE_SEPARATOR = '\n';
+
+    // ANSI escape codes
+    private static final byte[] CLEAR_SCREEN = {0x1b, '[', 'H', 0x1b, '[', '2', 'J'};
+    private static final byte[] ESCAPE_START = {0x1b, '['};
+    private static final byte POSITION_SEPARATOR = ';';
+    private static final byte POSITION_END = 'H';
+
+    // settings
+    private final int size;
+    private final boolean isDiff;
+    private final int frameInterval;
+    private final PrintStream out;
+
+    // the marks of the game so far and the cells that changed since the last drawn frame
+    private final byte[] recordedCells;
+    private final int[] changedCells;
+    private int changedCount;
+    private int frameCount;
+    private boolean isFrameDrawn;
+    private boolean isScreenStale;
+
+    // the frame being built
+    private byte[] buffer;
+    private int length;
+
+    /**
+     * Constructs a new BufferedConsoleRenderer object that draws every frame to the console.
+     * @param size the size of the board
+     * @param isDiff whether to redraw only the changed cells with ANSI escape codes
+     */
+    public BufferedConsoleRenderer(int size, boolean isDiff) {
+        this(size, isDiff, 1, System.out);
+    }
+
+    /**
+     * Constructs a new BufferedConsoleRenderer object.
+     * @param size the size of the board
+     * @param isDiff whether to redraw only the changed cells with ANSI escape codes
+     * @param frameInterval draw every frameInterval-th frame of a game, or FINAL_FRAME_ONLY
+     * @param out the stream to write the frames to
+     */
+    public BufferedConsoleRenderer(int size, boolean isDiff, int frameInterval, PrintStream out) {
+        this.size = size;
+        this.isDiff = isDiff;
+        this.frameInterval = Math.max(frameInterval, FINAL_FRAME_ONLY);
+        this.out = out;
+        this.recordedCells = new byte[size * size];
+        this.changedCells = new int[size * size];
+        this.buffer = new byte[INITIAL_BUFFER_SIZE];
+        this.isScreenStale = true;
+    }
+
+    /**
+     * Renders the board if the frame is not skipped, remembering the last move either way.
+     * @param board the board to render
+     */
+    @Override
+    public void renderBoard(Board board) {
+        if (board.getLastMoveRow() == Board.NO_MOVE) {
+            startGame();
+        } else {
+            recordMove(board, board.getLastMoveRow(), board.getLastMoveCol());
+        }
+
+        if (frameInterval != FINAL_FRAME_ONLY && frameCount % frameInterval == 0) {
+            drawFrame(board);
+        }
+        frameCount++;
+    }
+
+    /**
+     * Renders the final board of the game, unless its last frame was already drawn.
+     * @param board the board to render
+     */
+    @Override
+    public void renderGameEnd(Board board) {
+        if (!isFrameDrawn) {
+            drawFrame(board);
+        }
+    }
+
+    /*
+     * Forget the marks of the previous game, so its first frame draws the whole board
+     */
+    private void startGame() {
+        Arrays.fill(recordedCells, EMPTY);
+        changedCount = 0;
+        frameCount = 0;
+        isFrameDrawn = false;
+        isScreenStale = true;
+    }
+
+    /*
+     * Remember the mark put in a cell, if the cell changed
+     */
+    private void recordMove(Board board, int row, int col) {
+        int cell = row * size + col;
+        byte code = toCell(board.getMark(row, col));
+        if (recordedCells[cell] != code) {
+            recordedCells[cell] = code;
+            changedCells[changedCount++] = cell;
+            isFrameDrawn = false;
+        }
+    }
+
+    /*
+     * Build the frame into the buffer and write it with a single flush
+     */
+    private void drawFrame(Board board) {
+        length = 0;
+        if (!isDiff) {
+            appendBoard(board);
+            append(LINE_SEPARATOR);
+        } else if (isScreenStale) {
+            append(CLEAR_SCREEN);
+            appendBoard(board);
+            isScreenStale = false;
+        } else {
+            for (int i = 0; i < changedCount; i++) {
+                int cell = changedCells[i];
+                appendCursorMove(cell / size, cell % size * COLUMN_WIDTH);
+                append(SYMBOLS[recordedCells[cell]]);
+            }
+
+            // leave the cursor under the board
+            appendCursorMove(size, 0);
+        }
+        changedCount = 0;
+        isFrameDrawn = true;
+
+        out.write(buffer, 0, length);
+        out.flush();
+    }
+
+    /*
+     * Append all the rows of the board, its cells separated by a separator
+     */
+    private void appendBoard(Board board) {
+        ensureCapacity(size * (size * COLUMN_WIDTH + 1));
+        for (int row = 0; row < size; row++) {
+            for (int col = 0; col < size; col++) {
+                if (col > 0) {
+                    buffer[length++] = CELL_SEPARATOR;
+                }
+                buffer[length++] = SYMBOLS[toCell(board.getMark(row, col))];
+            }
+            buffer[length++] = LINE_SEPARATOR;
+        }
+    }
+
+    /*
+     * Append the ANSI escape code that moves the cursor to a row and column, counted from 0
+     */
+    private void appendCursorMove(int row, int col) {
+        ensureCapacity(MAX_CELL_UPDATE_LENGTH);
+        append(ESCAPE_START);
+        appendNumber(row + 1);
+        buffer[length++] = POSITION_SEPARATOR;
+        appendNumber(col + 1);
+        buffer[length++] = POSITION_END;
+    }
+
+    /*
+     * Append the decimal digits of a positive number without building a string
+     */
+    private void appendNumber(int number) {
+        int digits = 1;
+        for (int rest = number / DECIMAL_BASE; rest > 0; rest /= DECIMAL_BASE) {
+            digits++;
+        }
+        for (int i = digits - 1; i >= 0; i--) {
+            buffer[length + i] = (byte) ('0' + number % DECIMAL_BASE);
+            number /= DECIMAL_BASE;
+        }
+        length += digits;
+    }
+
+    /*
+     * Append a single byte to the buffer
+     */
+    private void append(byte value) {
+        ensureCapacity(1);
+        buffer[length++] = value;
+    }
+
+    /*
+     * Append bytes to the buffer
+     */
+    private void append(byte[] values) {
+        ensureCapacity(values.length);
+        System.arraycopy(values, 0, buffer, length, values.length);
+        length += values.length;
+    }
+
+    /*
+     * Grow the buffer, if needed, so the given number of bytes can be appended
+     */
+    private void ensureCapacity(int extra) {
+        if (length + extra > buffer.length) {
+            buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, length + extra));
+        }
+    }
+
+    /*
+     * Get the cell code of a mark
+     */
+    private static byte toCell(Mark mark) {
+        return mark == Mark.X ? X_CELL : mark == Mark.O ? O_CELL : EMPTY;
+    }
+}
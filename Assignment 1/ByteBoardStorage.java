@@ -0,0 +1,280 @@
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+
+/**
+ * The ByteBoardStorage class keeps every cell of a board in a single byte, row after row, so a
+ * row of the board is a contiguous run of bytes. The scans over a row read the row eight cells
+ * at a time as a single long and test all eight cells at once with a few bit operations, which
+ * finds the first empty cell, counts marks or measures runs of a mark without going over the
+ * cells one by one. Columns and diagonals are not contiguous, so their runs are read a byte at a
+ * time, which still saves turning every cell into a mark.
+ * @author Neriya Ben David
+ * @see BoardStorage
+ */
+public class ByteBoardStorage implements BoardStorage {
+
+    // constants
+    /** The size of the largest board whose cells can all be kept in one array. */
+    public static final int MAX_SIZE = 46_340;
+    private static final byte BLANK_CODE = 0;
+    private static final byte X_CODE = 1;
+    private static final byte O_CODE = 2;
+    private static final Mark[] MARKS = {Mark.BLANK, Mark.X, Mark.O};
+    private static final int BYTE_SHIFT = 3;
+    // every byte of a word set to 1, to 0x7F and to 0x80
+    private static final long ONES = 0x0101010101010101L;
+    private static final long LOW_BITS = 0x7F7F7F7F7F7F7F7FL;
+    private static final long HIGH_BITS = 0x8080808080808080L;
+    private static final VarHandle WORDS = MethodHandles.byteArrayViewVarHandle(long[].class,
+            ByteOrder.LITTLE_ENDIAN);
+    private static final String TOO_LARGE_MESSAGE = "Board size %d is larger than %d";
+
+    // fields
+    private final byte[] cells;
+    private final int size;
+
+    /**
+     * Constructs a new ByteBoardStorage object with all cells BLANK.
+     * @param size the size of the board, up to MAX_SIZE
+     * @throws IllegalArgumentException if the board is too large
+     */
+    public ByteBoardStorage(int size) {
+        if (size > MAX_SIZE) {
+            throw new IllegalArgumentException(String.format(TOO_LARGE_MESSAGE, size, MAX_SIZE));
+        }
+        this.size = size;
+        this.cells = new byte[size * size];
+    }
+
+    /**
+     * Gets the size of the stored board.
+     * @return the size of the stored board
+     */
+    @Override
+    public int getSize() {
+        return size;
+    }
+
+    /**
+     * Gets the mark stored at the specified row and column.
+     * @param row the row of the cell
+     * @param col the column of the cell
+     * @return the mark stored in the cell
+     */
+    @Override
+    public Mark getMark(int row, int col) {
+        return MARKS[cells[cellIndex(row, col)]];
+    }
+
+    /**
+     * Checks whether the cell at the specified row and column is empty.
+     * @param row the row of the cell
+     * @param col the column of the cell
+     * @return true if the byte of the cell is blank, false otherwise
+     */
+    @Override
+    public boolean isEmpty(int row, int col) {
+        return cells[cellIndex(row, col)] == BLANK_CODE;
+    }
+
+    /**
+     * Stores a mark at the specified row and column.
+     * @param row the row of the cell
+     * @param col the column of the cell
+     * @param mark the mark to store
+     */
+    @Override
+    public void setMark(int row, int col, Mark mark) {
+        cells[cellIndex(row, col)] = codeOf(mark);
+    }
+
+    /**
+     * Sets all the cells back to BLANK, keeping the array.
+     */
+    @Override
+    public void clear() {
+        Arrays.fill(cells, BLANK_CODE);
+    }
+
+    /**
+     * Finds the first empty cell of a row, starting at a column and going right, eight cells at
+     * a time.
+     * @param row the row to scan
+     * @param fromCol the first column to check
+     * @return the column of the first empty cell at or after fromCol, or NOT_FOUND if there is none
+     */
+    @Override
+    public int findFirstEmpty(int row, int fromCol) {
+        int rowStart = cellIndex(row, 0);
+        int col = Math.max(fromCol, 0);
+        for (; col + Long.BYTES <= size; col += Long.BYTES) {
+            long empty = matchingBytes(readWord(rowStart + col), BLANK_CODE);
+            if (empty != 0) {
+                return col + (Long.numberOfTrailingZeros(empty) >>> BYTE_SHIFT);
+            }
+        }
+        for (; col < size; col++) {
+            if (cells[rowStart + col] == BLANK_CODE) {
+                return col;
+            }
+        }
+        return NOT_FOUND;
+    }
+
+    /**
+     * Finds the last empty cell of a row, starting at a column and going left, eight cells at a
+     * time.
+     * @param row the row to scan
+     * @param fromCol the first column to check
+     * @return the column of the last empty cell at or before fromCol, or NOT_FOUND if there is none
+     */
+    @Override
+    public int findLastEmpty(int row, int fromCol) {
+        int rowStart = cellIndex(row, 0);
+        int col = Math.min(fromCol, size - 1);
+        for (; col >= Long.BYTES - 1; col -= Long.BYTES) {
+            int wordStart = col - (Long.BYTES - 1);
+            long empty = matchingBytes(readWord(rowStart + wordStart), BLANK_CODE);
+            if (empty != 0) {
+                return wordStart + ((Long.SIZE - 1 - Long.numberOfLeadingZeros(empty)) >>> BYTE_SHIFT);
+            }
+        }
+        for (; col >= 0; col--) {
+            if (cells[rowStart + col] == BLANK_CODE) {
+                return col;
+            }
+        }
+        return NOT_FOUND;
+    }
+
+    /**
+     * Counts the cells of a row that hold a mark, eight cells at a time.
+     * @param row the row to count
+     * @param mark the mark to count
+     * @return the number of cells of the row holding the mark
+     */
+    @Override
+    public int countMarks(int row, Mark mark) {
+        int rowStart = cellIndex(row, 0);
+        byte code = codeOf(mark);
+        int count = 0;
+        int col = 0;
+        for (; col + Long.BYTES <= size; col += Long.BYTES) {
+            count += Long.bitCount(matchingBytes(readWord(rowStart + col), code));
+        }
+        for (; col < size; col++) {
+            if (cells[rowStart + col] == code) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Finds the longest run of a mark in a segment of a row, column or diagonal. A segment of a
+     * row is read eight cells at a time, other segments a cell at a time.
+     * @param row the row of the first cell of the segment
+     * @param col the column of the first cell of the segment
+     * @param rowStep the row step between the cells of the segment, -1, 0 or 1
+     * @param colStep the column step between the cells of the segment, -1, 0 or 1
+     * @param length the number of cells in the segment
+     * @param mark the mark of the run
+     * @return the number of cells in the longest run of the mark in the segment
+     */
+    @Override
+    public int getLongestRun(int row, int col, int rowStep, int colStep, int length, Mark mark) {
+        if (length <= 0) {
+            return 0;
+        }
+        if (rowStep == 0 && colStep != 0) {
+            // a run read from right to left is as long as read from left to right
+            int firstCol = colStep < 0 ? col - (length - 1) : col;
+            return getLongestRowRun(cellIndex(row, firstCol), cellIndex(row, firstCol + length - 1),
+                    codeOf(mark));
+        }
+        int index = cellIndex(row, col);
+        // the last cell of the segment must be on the board as well
+        cellIndex(row + (length - 1) * rowStep, col + (length - 1) * colStep);
+        int stride = rowStep * size + colStep;
+        byte code = codeOf(mark);
+        int longest = 0;
+        int run = 0;
+        for (int i = 0; i < length; i++, index += stride) {
+            run = cells[index] == code ? run + 1 : 0;
+            longest = Math.max(longest, run);
+        }
+        return longest;
+    }
+
+    /*
+     * Find the longest run of a mark between two cells of a row, both included, reading eight
+     * cells at a time. Each word is turned into the high bits of its matching bytes: the run
+     * going on from the previous word ends at the first byte that doesn't match, the runs
+     * inside the word are found by shifting the matches onto themselves, and the run that goes
+     * on into the next word starts after the last byte that doesn't match.
+     */
+    private int getLongestRowRun(int first, int last, byte code) {
+        int longest = 0;
+        int run = 0;
+        int index = first;
+        for (; index + Long.BYTES <= last + 1; index += Long.BYTES) {
+            long matches = matchingBytes(readWord(index), code);
+            if (matches == HIGH_BITS) {
+                run += Long.BYTES;
+                continue;
+            }
+            int runEnd = Long.numberOfTrailingZeros(~matches & HIGH_BITS) >>> BYTE_SHIFT;
+            longest = Math.max(longest, run + runEnd);
+            int inner = 0;
+            for (long remaining = matches; remaining != 0; remaining &= remaining >>> Byte.SIZE) {
+                inner++;
+            }
+            longest = Math.max(longest, inner);
+            run = Long.numberOfLeadingZeros(~matches & HIGH_BITS) >>> BYTE_SHIFT;
+        }
+        longest = Math.max(longest, run);
+        for (; index <= last; index++) {
+            run = cells[index] == code ? run + 1 : 0;
+            longest = Math.max(longest, run);
+        }
+        return longest;
+    }
+
+    /*
+     * Read eight cells starting at an index as a single long, the first cell in the lowest byte
+     */
+    private long readWord(int index) {
+        return (long) WORDS.get(cells, index);
+    }
+
+    /*
+     * Get a word with the high bit set in exactly the bytes of the given word that hold the
+     * code, and all other bits clear. The low seven bits of every byte are added to 0x7F so
+     * they carry into the high bit unless they are all zero, without carrying into the next
+     * byte, and a byte is zero only if neither that carry nor its own high bit is set.
+     */
+    private static long matchingBytes(long word, byte code) {
+        long difference = word ^ (code * ONES);
+        return ~(((difference & LOW_BITS) + LOW_BITS) | difference | LOW_BITS);
+    }
+
+    /*
+     * Get the code of a mark
+     */
+    private static byte codeOf(Mark mark) {
+        return mark == Mark.X ? X_CODE : mark == Mark.O ? O_CODE : BLANK_CODE;
+    }
+
+    /*
+     * Gets the index of the cell in the array, checking the bounds of the row and the column on
+     * their own so a column past the end of a row is not read as a cell of the next row.
+     */
+    private int cellIndex(int row, int col) {
+        if (row < 0 || row >= size || col < 0 || col >= size) {
+            throw new ArrayIndexOutOfBoundsException("Cell (" + row + ", " + col + ") is out of the board");
+        }
+        return row * size + col;
+    }
+}
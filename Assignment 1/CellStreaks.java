@@ -0,0 +1,107 @@
+/**
+ * The CellStreaks class checks for winning streaks, both on the board of a game and on the
+ * boards the searching players and the tablebase solver keep of their own, an array with a byte
+ * per cell numbered row * size + col holding the player whose mark is in it. Only the four lines
+ * through the last mark can hold a new streak, and each of them is read outwards from the mark up
+ * to a winning streak away. The directions of the lines are shared by every class that walks them.
+ * @author Neriya Ben David
+ * @see Game
+ * @see MinimaxPlayer
+ * @see MctsWorker
+ * @see TablebaseSolver
+ */
+class CellStreaks {
+
+    // directions of the lines through a cell: row, column, diagonal and anti-diagonal
+    static final int[] ROW_STEPS = {0, 1, 1, 1};
+    static final int[] COL_STEPS = {1, 0, 1, -1};
+
+    /*
+     * The streaks are only checked by the static methods, so no object is ever constructed
+     */
+    private CellStreaks() {
+    }
+
+    /**
+     * Checks if the mark just placed in a cell completes a winning streak.
+     * @param cells the player in every cell of the board
+     * @param size the size of the board
+     * @param winStreak the number of marks in a row needed to win the game
+     * @param cell the cell of the mark, row * size + col
+     * @param player the player whose mark is in the cell
+     * @return true if the mark completes a winning streak of the player
+     */
+    static boolean isWinningMove(byte[] cells, int size, int winStreak, int cell, byte player) {
+        int row = cell / size;
+        int col = cell % size;
+        for (int direction = 0; direction < ROW_STEPS.length; direction++) {
+            int streak = 1 +
+                    countInDirection(cells, size, winStreak, row, col, ROW_STEPS[direction],
+                            COL_STEPS[direction], player) +
+                    countInDirection(cells, size, winStreak, row, col, -ROW_STEPS[direction],
+                            -COL_STEPS[direction], player);
+            if (streak >= winStreak) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Checks if the mark just placed on the board of a game completes a winning streak.
+     * @param board the board of the game
+     * @param winStreak the number of marks in a row needed to win the game
+     * @param row the row of the mark
+     * @param col the column of the mark
+     * @param mark the mark that was placed
+     * @return true if the mark completes a winning streak
+     */
+    static boolean isWinningMove(Board board, int winStreak, int row, int col, Mark mark) {
+        for (int direction = 0; direction < ROW_STEPS.length; direction++) {
+            int streak = 1 +
+                    countInDirection(board, winStreak, row, col, ROW_STEPS[direction],
+                            COL_STEPS[direction], mark) +
+                    countInDirection(board, winStreak, row, col, -ROW_STEPS[direction],
+                            -COL_STEPS[direction], mark);
+            if (streak >= winStreak) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /*
+     * Count the consecutive marks of the player next to a cell in a single direction
+     */
+    private static int countInDirection(byte[] cells, int size, int winStreak, int row, int col,
+                                        int rowStep, int colStep, byte player) {
+        int count = 0;
+        int currentRow = row + rowStep;
+        int currentCol = col + colStep;
+        while (count < winStreak - 1 && currentRow >= 0 && currentRow < size && currentCol >= 0 &&
+                currentCol < size && cells[currentRow * size + currentCol] == player) {
+            count++;
+            currentRow += rowStep;
+            currentCol += colStep;
+        }
+        return count;
+    }
+
+    /*
+     * Count the consecutive marks next to a cell of the board of a game in a single direction
+     */
+    private static int countInDirection(Board board, int winStreak, int row, int col, int rowStep,
+                                        int colStep, Mark mark) {
+        int size = board.getSize();
+        int count = 0;
+        int currentRow = row + rowStep;
+        int currentCol = col + colStep;
+        while (count < winStreak - 1 && currentRow >= 0 && currentRow < size && currentCol >= 0 &&
+                currentCol < size && board.getMark(currentRow, currentCol) == mark) {
+            count++;
+            currentRow += rowStep;
+            currentCol += colStep;
+        }
+        return count;
+    }
+}
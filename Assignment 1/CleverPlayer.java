@@ -13,12 +13,15 @@ import java.util.Random;
 public class CleverPlayer implements Player {
 
     private static final int RANDOM_MOVES = 0;
+    private static final int FIRST_MOVES_MARKS = 2;
+    private final Random random;
     private int strategy;
 
     /**
      * Constructs a new CleverPlayer object.
      */
     public CleverPlayer() {
+        this.random = new Random();
     }
 
     /**
@@ -28,9 +31,6 @@ public class CleverPlayer implements Player {
      */
     @Override
     public void playTurn(Board board, Mark mark) {
-        int boardSize = board.getSize();
-        Random random = new Random();
-
         // if it's the first move of the player, choose a strategy
         if (isFirstMove(board)) {
             strategy = random.nextInt(2);
@@ -38,58 +38,35 @@ public class CleverPlayer implements Player {
 
         // if the strategy is to make random moves, make a random move
         if (strategy == RANDOM_MOVES) {
-            randomMove(board, mark, random, boardSize);
+            randomMove(board, mark);
             return;
         }
 
         // if the strategy is to make clever moves, make a clever move
-        seekFirstEmptySpot(board, mark, boardSize);
+        seekFirstEmptySpot(board, mark);
     }
 
 
     /*
-     * a function to find the first empty spot on the board and put the mark on it
+     * a function to find the first empty spot on the board and put the mark on it,
+     * letting the board go on from the first empty spot it found last time
      */
-    private void seekFirstEmptySpot(Board board, Mark mark, int boardSize) {
-        for (int i = 0; i < boardSize; i++) {
-            for (int j = 0; j < boardSize; j++) {
-                if (board.getMark(i, j) == Mark.BLANK) {
-                    board.putMark(mark, i, j);
-                    return;
-                }
-            }
-        }
+    private void seekFirstEmptySpot(Board board, Mark mark) {
+        board.putMarkInFirstEmptyCell(mark);
     }
 
     /*
      * a function to make a random move on the board
      */
-    private void randomMove(Board board, Mark mark, Random random, int boardSize) {
-        boolean isValidMove;
-        int row;
-        int col;
-        do {
-            row = random.nextInt(boardSize);
-            col = random.nextInt(boardSize);
-            isValidMove = board.putMark(mark, row, col);
-        } while (!isValidMove);
+    private void randomMove(Board board, Mark mark) {
+        board.putMarkInRandomEmptyCell(mark, random);
     }
 
     /*
-     * a function to check if the current move is the first move of the player in the game
+     * a function to check if the current move is the first move of the player in the game,
+     * counting the moves as long as at most two marks are on the board
      */
     private boolean isFirstMove(Board board) {
-        int marks = 0;
-        for (int i = 0; i < board.getSize(); i++) {
-            for (int j = 0; j < board.getSize(); j++) {
-                if (board.getMark(i, j) != Mark.BLANK) {
-                    if (marks > 1) {
-                        return false;
-                    }
-                    marks++;
-                }
-            }
-        }
-        return true;
+        return board.getMoveCount() <= FIRST_MOVES_MARKS;
     }
 }
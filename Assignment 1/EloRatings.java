@@ -0,0 +1,78 @@
+import java.util.Arrays;
+
+/**
+ * The EloRatings class fits Elo ratings to the results of a league by maximum likelihood.
+ * Every player gets a strength, the expected score of a game being the strength of the player
+ * over the sum of the strengths of both players, and the strengths are refined by the
+ * minorization-maximization iteration of the Bradley-Terry model until they settle, a tie
+ * counting as half a win for each player. A single virtual tie is added to every pairing,
+ * so a player that never won still gets a finite rating. The ratings are shifted so their
+ * average is the base rating.
+ * @author Neriya Ben David
+ * @see League
+ */
+public class EloRatings {
+
+    // constants
+    /** The average rating of the players. */
+    public static final double BASE_RATING = 1500;
+    private static final double RATING_SCALE = 400;
+    private static final double PRIOR_GAMES = 1;
+    private static final double PRIOR_POINTS = 0.5;
+    private static final int MAX_ITERATIONS = 10_000;
+    private static final double TOLERANCE = 1e-10;
+
+    /*
+     * The ratings are only fitted by the static method, so no object is ever constructed
+     */
+    private EloRatings() {
+    }
+
+    /**
+     * Fits the ratings of the players to the results of their games.
+     * @param points points[i][j] is the points player i scored against player j, a win counting
+     *               as 1 and a tie as 0.5
+     * @param games games[i][j] is the number of games between players i and j
+     * @return the Elo rating of every player
+     */
+    public static double[] fit(double[][] points, int[][] games) {
+        int players = points.length;
+        double[] strengths = new double[players];
+        Arrays.fill(strengths, 1);
+
+        for (int iteration = 0; iteration < MAX_ITERATIONS; iteration++) {
+            double[] next = new double[players];
+            double logSum = 0;
+            for (int i = 0; i < players; i++) {
+                double totalPoints = 0;
+                double denominator = 0;
+                for (int j = 0; j < players; j++) {
+                    if (i != j) {
+                        totalPoints += points[i][j] + PRIOR_POINTS;
+                        denominator += (games[i][j] + PRIOR_GAMES) / (strengths[i] + strengths[j]);
+                    }
+                }
+                next[i] = denominator == 0 ? 1 : totalPoints / denominator;
+                logSum += Math.log(next[i]);
+            }
+
+            // keep the geometric mean of the strengths at 1, so the ratings average at the base
+            double mean = Math.exp(logSum / Math.max(players, 1));
+            double change = 0;
+            for (int i = 0; i < players; i++) {
+                next[i] /= mean;
+                change = Math.max(change, Math.abs(next[i] - strengths[i]) / strengths[i]);
+            }
+            strengths = next;
+            if (change < TOLERANCE) {
+                break;
+            }
+        }
+
+        double[] ratings = new double[players];
+        for (int i = 0; i < players; i++) {
+            ratings[i] = BASE_RATING + RATING_SCALE * Math.log10(strengths[i]);
+        }
+        return ratings;
+    }
+}
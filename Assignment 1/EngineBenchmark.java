@@ -0,0 +1,644 @@
+import java.io.IOException;
+import java.lang.management.BufferPoolMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * The EngineBenchmark class measures the throughput of the tic-tac-toe engine: the board
+ * operations of every board type, the win check of a game, a turn of every automatic player on
+ * a fresh and on a nearly full board, full tournament rounds without rendering, rounds between
+ * random players simulated in batches, and the symmetric hashing of a game updated with every
+ * move against hashing every position from scratch.
+ * The memory a board of every board type takes, on the heap and off it, is printed as well, and
+ * the scans of whole boards every board type runs are measured against scalar loops.
+ * Every case is measured for every combination of the given board sizes and win streaks, and
+ * the results are printed and saved as JSON, so the numbers of two versions can be compared.
+ * @author Neriya Ben David
+ * @see BenchmarkRunner
+ */
+public class EngineBenchmark {
+
+    // Constants Arguments
+    private static final int RESULTS_FILE_ARG = 0;
+    private static final int FIRST_OPTIONAL_ARG = 1;
+    private static final String OPTION_PREFIX = "--";
+    private static final String VALUE_SEPARATOR = "=";
+    private static final String LIST_SEPARATOR = ",";
+    private static final String SIZES_OPTION = "sizes";
+    private static final String STREAKS_OPTION = "streaks";
+    private static final String GROUPS_OPTION = "groups";
+    private static final String TIME_OPTION = "time";
+    private static final String WARMUP_OPTION = "warmup";
+    private static final String ITERATIONS_OPTION = "iterations";
+
+    // Constants Groups
+    private static final String BOARD_GROUP = "board";
+    private static final String WIN_CHECK_GROUP = "win";
+    private static final String PLAYERS_GROUP = "players";
+    private static final String TOURNAMENT_GROUP = "tournament";
+    private static final String HASH_GROUP = "hash";
+    private static final String MEMORY_GROUP = "memory";
+    private static final String SCAN_GROUP = "scan";
+
+    // Constants Defaults
+    private static final int[] DEFAULT_SIZES = {3, 4, 8, 16, 32, 64, 100};
+    private static final int[] DEFAULT_STREAKS = {3, 5};
+    private static final String[] DEFAULT_GROUPS = {BOARD_GROUP, WIN_CHECK_GROUP, PLAYERS_GROUP,
+            TOURNAMENT_GROUP, HASH_GROUP, MEMORY_GROUP, SCAN_GROUP};
+    private static final int DEFAULT_WARMUP_ITERATIONS = 2;
+    private static final int DEFAULT_MEASUREMENT_ITERATIONS = 3;
+    private static final long DEFAULT_ITERATION_MILLIS = 200;
+
+    // Constants Cases
+    private static final String[] BOARD_TYPES = {"array", "bit", "offheap", "sparse", "byte"};
+    private static final String[] PLAYER_TYPES = {"whatever", "clever", "genius", "greedy", "minimax", "mcts",
+            "threat", "perfect"};
+    private static final String MINIMAX_PLAYER = "minimax";
+    private static final String MCTS_PLAYER = "mcts";
+    private static final String THREAT_PLAYER = "threat";
+    // the searching players get a fixed budget for every move instead of their default of 100 ms,
+    // and play only a few moves of every part of a game, since each of their moves takes that long
+    private static final long SEARCH_MOVE_MILLIS = 2;
+    private static final long MCTS_PLAYOUTS = 64;
+    private static final int MCTS_THREADS = 1;
+    private static final int SEARCH_PHASE_MOVES = 8;
+    private static final String[][] TOURNAMENT_PAIRINGS = {{"whatever", "whatever"}, {"whatever", "clever"},
+            {"genius", "genius"}};
+    private static final int WIN_CHECKS_PER_RUN = 1024;
+    private static final int PHASE_FRACTION = 10;
+    private static final long SEED = 42;
+
+    // Constants Messages
+    private static final String USAGE_MESSAGE = "Usage: java EngineBenchmark [results file] " +
+            "[optional: --sizes=3,4,...] [optional: --streaks=3,5,...] " +
+            "[optional: --groups=board,win,players,tournament,hash,memory,scan] " +
+            "[optional: --time=millis per iteration] " +
+            "[optional: --warmup=iterations] [optional: --iterations=iterations]";
+    private static final String SAVED_MESSAGE = "Results saved to %s\n";
+    private static final String MEMORY_MESSAGE = "%-45s %-24s %,16d heap bytes %,16d off-heap bytes\n";
+    private static final String DIRECT_POOL = "direct";
+
+    // fields
+    private final BenchmarkRunner runner;
+    private final BoardFactory boardFactory;
+    private final PlayerFactory playerFactory;
+
+    /**
+     * Constructs a new EngineBenchmark object.
+     * @param runner the runner that measures the cases
+     */
+    public EngineBenchmark(BenchmarkRunner runner) {
+        this.runner = runner;
+        this.boardFactory = new BoardFactory();
+        this.playerFactory = new PlayerFactory();
+    }
+
+    /**
+     * Measures the board operations of every board type.
+     * @param size the size of the board
+     * @param winStreak the win streak of the game
+     */
+    public void benchmarkBoard(int size, int winStreak) {
+        for (String boardType : BOARD_TYPES) {
+            Board board = boardFactory.buildBoard(boardType, size);
+            runner.measure("board.putMark[" + boardType + "]", size, winStreak, new BenchmarkCase() {
+                @Override
+                public void setUp() {
+                    board.clear();
+                }
+
+                @Override
+                public long run() {
+                    return fillBoard(board);
+                }
+            });
+
+            Board filledBoard = buildRandomBoard(boardType, size, size * size);
+            runner.measure("board.getMark[" + boardType + "]", size, winStreak, () -> {
+                long marks = 0;
+                for (int row = 0; row < size; row++) {
+                    for (int col = 0; col < size; col++) {
+                        marks += filledBoard.getMark(row, col).ordinal();
+                    }
+                }
+                BenchmarkRunner.consume(marks);
+                return (long) size * size;
+            });
+            board.close();
+            filledBoard.close();
+        }
+    }
+
+    /**
+     * Prints the memory a new board of every board type takes, on the heap and in direct
+     * buffers outside of it.
+     * @param size the size of the board
+     * @param winStreak the win streak of the game
+     */
+    public void benchmarkMemory(int size, int winStreak) {
+        AllocationMeter allocationMeter = new AllocationMeter();
+        for (String boardType : BOARD_TYPES) {
+            long heapBefore = allocationMeter.getAllocatedBytes();
+            long offHeapBefore = getDirectMemoryUsed();
+            try (Board board = boardFactory.buildBoard(boardType, size)) {
+                long heapBytes = allocationMeter.getAllocatedBytes() - heapBefore;
+                long offHeapBytes = getDirectMemoryUsed() - offHeapBefore;
+                System.out.printf(MEMORY_MESSAGE, "board.memory[" + boardType + "]",
+                        "size=" + size + " winStreak=" + winStreak, heapBytes, offHeapBytes);
+                BenchmarkRunner.consume(board.getSize());
+            }
+        }
+    }
+
+    /**
+     * Measures the win check of a game after the last move on a full board.
+     * @param size the size of the board
+     * @param winStreak the win streak of the game
+     */
+    public void benchmarkWinCheck(int size, int winStreak) {
+        Board board = buildRandomBoard(BOARD_TYPES[0], size, size * size);
+        Game game = new Game(null, null, board, winStreak, new VoidRenderer());
+        Mark lastMark = board.getMark(board.getLastMoveRow(), board.getLastMoveCol());
+        runner.measure("game.isPlayerWon", size, winStreak, () -> {
+            long wins = 0;
+            for (int i = 0; i < WIN_CHECKS_PER_RUN; i++) {
+                wins += game.isPlayerWon(lastMark) ? 1 : 0;
+            }
+            BenchmarkRunner.consume(wins);
+            return WIN_CHECKS_PER_RUN;
+        });
+    }
+
+    /**
+     * Measures the turns of every automatic player, both in the first tenth of the moves of a
+     * game and in its last tenth. The searching players search every move for a fixed budget
+     * and play at most a few moves of each tenth. The perfect player solves the tablebase of a
+     * small board in the working directory the first time the board is measured, and takes the
+     * last empty cell of boards too large to solve.
+     * @param size the size of the board
+     * @param winStreak the win streak of the game
+     */
+    public void benchmarkPlayers(int size, int winStreak) {
+        int cells = size * size;
+        for (String playerType : PLAYER_TYPES) {
+            Player player = buildBenchmarkPlayer(playerType);
+            int phaseMoves = Math.max(cells / PHASE_FRACTION, 1);
+            if (player instanceof SearchingPlayer) {
+                phaseMoves = Math.min(phaseMoves, SEARCH_PHASE_MOVES);
+            }
+            Board board = boardFactory.buildBoard(BOARD_TYPES[0], size);
+            Random random = new Random(SEED);
+            runner.measure("player.playTurn[" + playerType + ",fresh]", size, winStreak,
+                    new PlayerPhaseCase(player, board, random, 0, phaseMoves, winStreak));
+            runner.measure("player.playTurn[" + playerType + ",near-full]", size, winStreak,
+                    new PlayerPhaseCase(player, board, random, cells - phaseMoves, phaseMoves, winStreak));
+        }
+    }
+
+    /*
+     * Build a player of the given type, the searching players with a fixed budget for every move
+     */
+    private Player buildBenchmarkPlayer(String playerType) {
+        switch (playerType) {
+            case MINIMAX_PLAYER:
+                return new MinimaxPlayer(SEARCH_MOVE_MILLIS);
+            case MCTS_PLAYER:
+                return new MctsPlayer(MCTS_PLAYOUTS, SEARCH_MOVE_MILLIS, MCTS_THREADS);
+            case THREAT_PLAYER:
+                return new ThreatPlayer(SEARCH_MOVE_MILLIS);
+            default:
+                return playerFactory.buildPlayer(playerType);
+        }
+    }
+
+    /**
+     * Measures full tournament rounds without rendering, the way a tournament plays them, and
+     * the rounds between random players simulated in batches.
+     * @param size the size of the board
+     * @param winStreak the win streak of the game
+     */
+    public void benchmarkTournament(int size, int winStreak) {
+        for (String[] pairing : TOURNAMENT_PAIRINGS) {
+            Player player1 = playerFactory.buildPlayer(pairing[0]);
+            Player player2 = playerFactory.buildPlayer(pairing[1]);
+            Board board = boardFactory.buildBoard(BOARD_TYPES[0], size);
+            Game game = new Game(player1, player2, board, winStreak, new VoidRenderer());
+            int[] round = {0};
+            runner.measure("tournament.round[" + pairing[0] + "," + pairing[1] + "]", size, winStreak,
+                    () -> {
+                        boolean isPlayer1First = TournamentScore.isPlayer1First(round[0]++);
+                        game.reset(isPlayer1First ? player1 : player2, isPlayer1First ? player2 : player1);
+                        BenchmarkRunner.consume(game.run().ordinal());
+                        return 1;
+                    });
+        }
+
+        BatchSimulator simulator = new BatchSimulator(size, winStreak);
+        runner.measure("tournament.batch[whatever,whatever]", size, winStreak, () -> {
+            BenchmarkRunner.consume(simulator.playRounds(0, simulator.getLanes()).getTies());
+            return simulator.getLanes();
+        });
+    }
+
+    /**
+     * Measures the scans of whole boards of every board type: finding the first empty cell of a
+     * board whose only empty cell is the last one, finding the last empty cell of a board whose
+     * only empty cell is the first one, counting the marks of a full board and finding the
+     * longest run of a mark over all the rows and columns of a full board. The same scans are
+     * measured as loops over the cells of an array board, the way the players used to scan.
+     * Every case counts the cells it scans as its operations.
+     * @param size the size of the board
+     * @param winStreak the win streak of the game
+     */
+    public void benchmarkScans(int size, int winStreak) {
+        int cells = size * size;
+        Board lastEmptyBoard = buildFullBoard(BOARD_TYPES[0], size, cells - 1);
+        Board firstEmptyBoard = buildFullBoard(BOARD_TYPES[0], size, 0);
+        Board fullBoard = buildFullBoard(BOARD_TYPES[0], size, cells);
+        runner.measure("scan.firstEmpty[loop]", size, winStreak, () -> {
+            BenchmarkRunner.consume(findFirstEmptyByLoop(lastEmptyBoard));
+            return cells;
+        });
+        runner.measure("scan.lastEmpty[loop]", size, winStreak, () -> {
+            BenchmarkRunner.consume(findLastEmptyByLoop(firstEmptyBoard));
+            return cells;
+        });
+        runner.measure("scan.countMarks[loop]", size, winStreak, () -> {
+            BenchmarkRunner.consume(countMarksByLoop(fullBoard, Mark.X));
+            return cells;
+        });
+        runner.measure("scan.longestRun[loop]", size, winStreak, () -> {
+            BenchmarkRunner.consume(findLongestRunByLoop(fullBoard, Mark.X));
+            return 2L * cells;
+        });
+        lastEmptyBoard.close();
+        firstEmptyBoard.close();
+        fullBoard.close();
+
+        for (String boardType : BOARD_TYPES) {
+            Board typeLastEmptyBoard = buildFullBoard(boardType, size, cells - 1);
+            Board typeFirstEmptyBoard = buildFullBoard(boardType, size, 0);
+            Board typeFullBoard = buildFullBoard(boardType, size, cells);
+            runner.measure("scan.firstEmpty[" + boardType + "]", size, winStreak, () -> {
+                BenchmarkRunner.consume(findFirstEmptyByRows(typeLastEmptyBoard));
+                return cells;
+            });
+            runner.measure("scan.lastEmpty[" + boardType + "]", size, winStreak, () -> {
+                BenchmarkRunner.consume(findLastEmptyByRows(typeFirstEmptyBoard));
+                return cells;
+            });
+            runner.measure("scan.countMarks[" + boardType + "]", size, winStreak, () -> {
+                BenchmarkRunner.consume(typeFullBoard.countMarks(Mark.X));
+                return cells;
+            });
+            runner.measure("scan.longestRun[" + boardType + "]", size, winStreak, () -> {
+                int longest = 0;
+                for (int i = 0; i < size; i++) {
+                    longest = Math.max(longest, typeFullBoard.getLongestRun(Mark.X, i, 0, 0, 1, size));
+                    longest = Math.max(longest, typeFullBoard.getLongestRun(Mark.X, 0, i, 1, 0, size));
+                }
+                BenchmarkRunner.consume(longest);
+                return 2L * cells;
+            });
+            typeLastEmptyBoard.close();
+            typeFirstEmptyBoard.close();
+            typeFullBoard.close();
+        }
+    }
+
+    /**
+     * Measures the canonical key of every position of a random game, once updated with every
+     * move and once hashed from scratch after every move.
+     * @param size the size of the board
+     * @param winStreak the win streak of the game
+     */
+    public void benchmarkHashing(int size, int winStreak) {
+        Board board = boardFactory.buildBoard(BOARD_TYPES[0], size);
+        int cells = size * size;
+        int[] moves = new int[cells];
+        Random random = new Random(SEED);
+        for (int i = 0; i < cells; i++) {
+            int other = random.nextInt(i + 1);
+            moves[i] = moves[other];
+            moves[other] = i;
+        }
+        SymmetricHasher hasher = new SymmetricHasher(size);
+
+        runner.measure("hash.incremental", size, winStreak, () -> {
+            long keys = 0;
+            hasher.clear();
+            for (int i = 0; i < cells; i++) {
+                hasher.place(moves[i], i % 2 == 0 ? Mark.X : Mark.O);
+                keys ^= hasher.getKey();
+            }
+            BenchmarkRunner.consume(keys);
+            return cells;
+        });
+        runner.measure("hash.naive", size, winStreak, () -> {
+            long keys = 0;
+            board.clear();
+            for (int i = 0; i < cells; i++) {
+                board.putMark(i % 2 == 0 ? Mark.X : Mark.O, moves[i] / size, moves[i] % size);
+                hasher.load(board);
+                keys ^= hasher.getKey();
+            }
+            BenchmarkRunner.consume(keys);
+            return cells;
+        });
+    }
+
+    /*
+     * Put marks in all the cells of an empty board and return the number of cells
+     */
+    private static long fillBoard(Board board) {
+        int size = board.getSize();
+        for (int row = 0; row < size; row++) {
+            for (int col = 0; col < size; col++) {
+                board.putMark((row + col) % 2 == 0 ? Mark.X : Mark.O, row, col);
+            }
+        }
+        return (long) size * size;
+    }
+
+    /*
+     * Build a board with the given number of marks in random cells, X and O taking turns
+     */
+    private Board buildRandomBoard(String boardType, int size, int marks) {
+        Board board = boardFactory.buildBoard(boardType, size);
+        fillRandomCells(board, marks, new Random(SEED));
+        return board;
+    }
+
+    /*
+     * Put the given number of marks in random empty cells, X and O taking turns
+     */
+    private static void fillRandomCells(Board board, int marks, Random random) {
+        for (int i = 0; i < marks; i++) {
+            board.putMarkInRandomEmptyCell(i % 2 == 0 ? Mark.X : Mark.O, random);
+        }
+    }
+
+    /*
+     * Build a board of the given type with a random mark in every cell but one, or in every
+     * cell if the empty cell is not on the board
+     */
+    private Board buildFullBoard(String boardType, int size, int emptyCell) {
+        Board board = boardFactory.buildBoard(boardType, size);
+        Random random = new Random(SEED);
+        for (int cell = 0; cell < size * size; cell++) {
+            if (cell != emptyCell) {
+                board.putMark(random.nextBoolean() ? Mark.X : Mark.O, cell / size, cell % size);
+            }
+        }
+        return board;
+    }
+
+    /*
+     * Find the first empty cell of a board cell by cell
+     */
+    private static int findFirstEmptyByLoop(Board board) {
+        for (int row = 0; row < board.getSize(); row++) {
+            for (int col = 0; col < board.getSize(); col++) {
+                if (board.getMark(row, col) == Mark.BLANK) {
+                    return row * board.getSize() + col;
+                }
+            }
+        }
+        return Board.NOT_FOUND;
+    }
+
+    /*
+     * Find the first empty cell of a board by scanning its rows with the board
+     */
+    private static int findFirstEmptyByRows(Board board) {
+        for (int row = 0; row < board.getSize(); row++) {
+            int col = board.findFirstEmpty(row, 0);
+            if (col != Board.NOT_FOUND) {
+                return row * board.getSize() + col;
+            }
+        }
+        return Board.NOT_FOUND;
+    }
+
+    /*
+     * Find the last empty cell of a board cell by cell
+     */
+    private static int findLastEmptyByLoop(Board board) {
+        for (int row = board.getSize() - 1; row >= 0; row--) {
+            for (int col = board.getSize() - 1; col >= 0; col--) {
+                if (board.getMark(row, col) == Mark.BLANK) {
+                    return row * board.getSize() + col;
+                }
+            }
+        }
+        return Board.NOT_FOUND;
+    }
+
+    /*
+     * Find the last empty cell of a board by scanning its rows back with the board
+     */
+    private static int findLastEmptyByRows(Board board) {
+        for (int row = board.getSize() - 1; row >= 0; row--) {
+            int col = board.findLastEmpty(row, board.getSize() - 1);
+            if (col != Board.NOT_FOUND) {
+                return row * board.getSize() + col;
+            }
+        }
+        return Board.NOT_FOUND;
+    }
+
+    /*
+     * Count the marks of a board cell by cell
+     */
+    private static int countMarksByLoop(Board board, Mark mark) {
+        int count = 0;
+        for (int row = 0; row < board.getSize(); row++) {
+            for (int col = 0; col < board.getSize(); col++) {
+                if (board.getMark(row, col) == mark) {
+                    count++;
+                }
+            }
+        }
+        return count;
+    }
+
+    /*
+     * Find the longest run of a mark over all the rows and columns of a board cell by cell
+     */
+    private static int findLongestRunByLoop(Board board, Mark mark) {
+        int longest = 0;
+        for (int i = 0; i < board.getSize(); i++) {
+            int rowRun = 0;
+            int colRun = 0;
+            for (int j = 0; j < board.getSize(); j++) {
+                rowRun = board.getMark(i, j) == mark ? rowRun + 1 : 0;
+                colRun = board.getMark(j, i) == mark ? colRun + 1 : 0;
+                longest = Math.max(longest, Math.max(rowRun, colRun));
+            }
+        }
+        return longest;
+    }
+
+    /*
+     * A case that measures the turns of a player over a part of a game: the board is cleared and
+     * filled up to the start of the part without measuring, then the player plays the part
+     */
+    private static class PlayerPhaseCase implements BenchmarkCase {
+        private final Player player;
+        private final Board board;
+        private final Random random;
+        private final int firstMove;
+        private final int moves;
+        private final int winStreak;
+
+        PlayerPhaseCase(Player player, Board board, Random random, int firstMove, int moves, int winStreak) {
+            this.player = player;
+            this.board = board;
+            this.random = random;
+            this.firstMove = firstMove;
+            this.moves = moves;
+            this.winStreak = winStreak;
+        }
+
+        @Override
+        public void setUp() {
+            board.clear();
+            player.startGame(board, winStreak);
+            fillRandomCells(board, firstMove, random);
+        }
+
+        @Override
+        public long run() {
+            for (int move = firstMove; move < firstMove + moves; move++) {
+                player.playTurn(board, move % 2 == 0 ? Mark.X : Mark.O);
+            }
+            return moves;
+        }
+    }
+
+    /**
+     * Main method to run the engine benchmarks
+     * @param args command line arguments
+     * @throws IOException if the results file can't be written
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length <= RESULTS_FILE_ARG) {
+            System.out.println(USAGE_MESSAGE);
+            return;
+        }
+
+        int[] sizes = DEFAULT_SIZES;
+        int[] streaks = DEFAULT_STREAKS;
+        String[] groups = DEFAULT_GROUPS;
+        long iterationMillis = DEFAULT_ITERATION_MILLIS;
+        int warmupIterations = DEFAULT_WARMUP_ITERATIONS;
+        int measurementIterations = DEFAULT_MEASUREMENT_ITERATIONS;
+        try {
+            for (int i = FIRST_OPTIONAL_ARG; i < args.length; i++) {
+                int separator = args[i].indexOf(VALUE_SEPARATOR);
+                if (!args[i].startsWith(OPTION_PREFIX) || separator < 0) {
+                    System.out.println(USAGE_MESSAGE);
+                    return;
+                }
+                String name = args[i].substring(OPTION_PREFIX.length(), separator);
+                String value = args[i].substring(separator + VALUE_SEPARATOR.length());
+                switch (name) {
+                    case SIZES_OPTION:
+                        sizes = parseList(value);
+                        break;
+                    case STREAKS_OPTION:
+                        streaks = parseList(value);
+                        break;
+                    case GROUPS_OPTION:
+                        groups = value.split(LIST_SEPARATOR);
+                        break;
+                    case TIME_OPTION:
+                        iterationMillis = Long.parseLong(value);
+                        break;
+                    case WARMUP_OPTION:
+                        warmupIterations = Integer.parseInt(value);
+                        break;
+                    case ITERATIONS_OPTION:
+                        measurementIterations = Integer.parseInt(value);
+                        break;
+                    default:
+                        System.out.println(USAGE_MESSAGE);
+                        return;
+                }
+            }
+        } catch (RuntimeException e) {
+            System.out.println(USAGE_MESSAGE);
+            return;
+        }
+        if (!Arrays.asList(DEFAULT_GROUPS).containsAll(Arrays.asList(groups))) {
+            System.out.println(USAGE_MESSAGE);
+            return;
+        }
+
+        BenchmarkRunner runner = new BenchmarkRunner(warmupIterations, measurementIterations, iterationMillis);
+        EngineBenchmark benchmark = new EngineBenchmark(runner);
+        for (int size : sizes) {
+            for (int winStreak : streaks) {
+                if (winStreak <= size) {
+                    benchmark.runGroups(groups, size, winStreak);
+                }
+            }
+        }
+        runner.saveResults(args[RESULTS_FILE_ARG]);
+        System.out.printf(SAVED_MESSAGE, args[RESULTS_FILE_ARG]);
+    }
+
+    /*
+     * Run the cases of the chosen groups for a single board size and win streak
+     */
+    private void runGroups(String[] groups, int size, int winStreak) {
+        for (String group : groups) {
+            switch (group) {
+                case BOARD_GROUP:
+                    benchmarkBoard(size, winStreak);
+                    break;
+                case WIN_CHECK_GROUP:
+                    benchmarkWinCheck(size, winStreak);
+                    break;
+                case PLAYERS_GROUP:
+                    benchmarkPlayers(size, winStreak);
+                    break;
+                case TOURNAMENT_GROUP:
+                    benchmarkTournament(size, winStreak);
+                    break;
+                case HASH_GROUP:
+                    benchmarkHashing(size, winStreak);
+                    break;
+                case MEMORY_GROUP:
+                    benchmarkMemory(size, winStreak);
+                    break;
+                case SCAN_GROUP:
+                    benchmarkScans(size, winStreak);
+                    break;
+                default:
+                    // the groups were checked against the known groups before running
+                    break;
+            }
+        }
+    }
+
+    /*
+     * Get the bytes taken by the direct buffers of the virtual machine, or 0 if it doesn't say
+     */
+    private static long getDirectMemoryUsed() {
+        for (BufferPoolMXBean pool : ManagementFactory.getPlatformMXBeans(BufferPoolMXBean.class)) {
+            if (DIRECT_POOL.equals(pool.getName())) {
+                return pool.getMemoryUsed();
+            }
+        }
+        return 0;
+    }
+
+    /*
+     * Parse a comma separated list of numbers
+     */
+    private static int[] parseList(String value) {
+        return Arrays.stream(value.split(LIST_SEPARATOR)).mapToInt(Integer::parseInt).toArray();
+    }
+}
@@ -0,0 +1,110 @@
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * The FreeCellSet class keeps a set of cell indexes that supports adding, removing and drawing
+ * a uniformly random member in constant time.
+ * The members are kept packed at the start of an array, and a position index remembers where
+ * every cell is in that array, so a cell is removed by moving the last member into its place.
+ * @author Neriya Ben David
+ * @see Board
+ */
+public class FreeCellSet {
+
+    // constants
+    private static final int NOT_IN_SET = -1;
+
+    // fields
+    private final int[] cells;
+    private final int[] positions;
+    private int count;
+
+    /**
+     * Constructs a new empty FreeCellSet object.
+     * @param capacity the number of cells, which are indexed from 0 to capacity - 1
+     */
+    public FreeCellSet(int capacity) {
+        this.cells = new int[capacity];
+        this.positions = new int[capacity];
+        this.count = 0;
+        Arrays.fill(positions, NOT_IN_SET);
+    }
+
+    /**
+     * Gets the number of cells in the set.
+     * @return the number of cells in the set
+     */
+    public int size() {
+        return count;
+    }
+
+    /**
+     * Checks whether a cell is in the set.
+     * @param cell the index of the cell
+     * @return true if the cell is in the set, false otherwise
+     */
+    public boolean contains(int cell) {
+        return positions[cell] != NOT_IN_SET;
+    }
+
+    /**
+     * Adds a cell to the set, if it isn't in it already.
+     * @param cell the index of the cell
+     */
+    public void add(int cell) {
+        if (contains(cell)) {
+            return;
+        }
+        cells[count] = cell;
+        positions[cell] = count;
+        count++;
+    }
+
+    /**
+     * Adds all the cells to the set, in the order of their indexes.
+     */
+    public void addAll() {
+        for (int cell = 0; cell < cells.length; cell++) {
+            cells[cell] = cell;
+            positions[cell] = cell;
+        }
+        count = cells.length;
+    }
+
+    /**
+     * Removes a cell from the set, if it is in it.
+     * @param cell the index of the cell
+     */
+    public void remove(int cell) {
+        int position = positions[cell];
+        if (position == NOT_IN_SET) {
+            return;
+        }
+
+        // move the last member into the place of the removed cell
+        count--;
+        int lastCell = cells[count];
+        cells[position] = lastCell;
+        positions[lastCell] = position;
+        positions[cell] = NOT_IN_SET;
+    }
+
+    /**
+     * Gets a member of the set by its current position in the set.
+     * Positions change when cells are removed.
+     * @param position a position between 0 and size() - 1
+     * @return the index of the cell at the position
+     */
+    public int get(int position) {
+        return cells[position];
+    }
+
+    /**
+     * Draws a uniformly random cell from the set, without removing it.
+     * @param random the random generator to draw with
+     * @return the index of the drawn cell
+     */
+    public int randomCell(Random random) {
+        return cells[random.nextInt(count)];
+    }
+}
@@ -1,3 +1,5 @@
+import java.util.Arrays;
+
 /**
  * The Game class represents a single game of Tic-Tac-Toe between two players.
  * @author Neriya Ben David
@@ -7,13 +9,33 @@ public class Game {
     // constants
     private final static int DEFAULT_WIN_STREAK = 3;
     private static final int TWO_BASE_NUMBER = 2;
+    // boards with more cells than this are too large to track the live windows of
+    private static final long MAX_TRACKED_CELLS = 1 << 24;
+    // random games are rarely a certain tie before the board is half full, so the live windows
+    // are only tracked from there on, when the marks around every cell are close
+    private static final int TRACKING_START_DIVISOR = 2;
+    // the move log starts this long and doubles when it fills, up to a move for every cell
+    private static final int INITIAL_MOVE_LOG_LENGTH = 1 << 10;
+    private static final String MOVE_LOG_TOO_LARGE_MESSAGE =
+            "The moves of a game on a board of size %d can't be logged";
 
     // fields
-    private final Player playerX;
-    private final Player playerO;
+    private Player playerX;
+    private Player playerO;
     private final Board board;
     private final int winStreak;
     private final Renderer renderer;
+    // winning windows that can still be completed, or null if the board is too large to track
+    private final LiveLineTracker liveLines;
+    // cells of the moves of the last run, or null if the moves are not logged
+    private int[] moves;
+    private int moveCount;
+    // times of the turns and lengths of the games, or null if they are not measured, and the
+    // number of turns left until the next turn to time
+    private GameStatistics statistics;
+    private int turnsUntilTimed;
+    // deadline of every move, or null if the players take as long as they like
+    private TimeControl timeControl;
 
     /**
      * Constructs a new Game object with the default win streak of 3.
@@ -27,6 +49,7 @@ public class Game {
         this.renderer = renderer;
         this.board = new Board();
         this.winStreak = DEFAULT_WIN_STREAK;
+        this.liveLines = buildLiveLineTracker(board.getSize(), winStreak);
     }
 
     /**
@@ -37,14 +60,40 @@ public class Game {
      * @param renderer the renderer to render the board
      */
     public Game(Player playerX, Player playerO, int size, int winStreak, Renderer renderer) {
+        this(playerX, playerO, new Board(size), winStreak, renderer);
+    }
+
+    /**
+     * Constructs a new Game object played on the given empty board.
+     * @param playerX the first player
+     * @param playerO the second player
+     * @param board the empty board to play on
+     * @param winStreak the win streak to win the game
+     * @param renderer the renderer to render the board
+     */
+    public Game(Player playerX, Player playerO, Board board, int winStreak, Renderer renderer) {
         this.playerX = playerX;
         this.playerO = playerO;
-        this.board = new Board(size);
+        this.board = board;
+        int size = board.getSize();
+        this.winStreak = effectiveWinStreak(size, winStreak);
+        this.renderer = renderer;
+        this.liveLines = buildLiveLineTracker(size, this.winStreak);
+    }
+
+    /**
+     * Gets the win streak a game is played with, which is the default win streak of 3 when the
+     * given one is longer than the board or shorter than 2. Package-private so the batch
+     * simulator plays the same games.
+     * @param size the size of the board
+     * @param winStreak the win streak asked for
+     * @return the win streak the game is played with
+     */
+    static int effectiveWinStreak(int size, int winStreak) {
         if (winStreak > size || winStreak < 2) {
-            winStreak = DEFAULT_WIN_STREAK;
+            return DEFAULT_WIN_STREAK;
         }
-        this.winStreak = winStreak;
-        this.renderer = renderer;
+        return winStreak;
     }
 
     /**
@@ -64,69 +113,232 @@ public class Game {
     }
 
     /**
-     * Runs a single game.
+     * Makes every run of the game log the cell of every move, so the game can be recorded.
+     * The log grows with the moves played, and the cells of the moves are ints, so the moves
+     * of boards with more cells than an int can count can't be logged.
+     * @throws IllegalStateException if the board has too many cells to log its moves
+     */
+    public void enableMoveLog() {
+        long cellCount = (long) board.getSize() * board.getSize();
+        if (cellCount > Integer.MAX_VALUE) {
+            throw new IllegalStateException(String.format(MOVE_LOG_TOO_LARGE_MESSAGE, board.getSize()));
+        }
+        if (moves == null) {
+            moves = new int[(int) Math.min(cellCount, INITIAL_MOVE_LOG_LENGTH)];
+        }
+    }
+
+    /**
+     * Gets the number of moves logged in the last run.
+     * @return the number of moves, or 0 if the moves are not logged
+     */
+    public int getMoveCount() {
+        return moveCount;
+    }
+
+    /**
+     * Gets a move logged in the last run, X playing the even moves and O the odd ones.
+     * @param index the index of the move, from 0
+     * @return the cell of the move, row * size + col
+     */
+    public int getMove(int index) {
+        return moves[index];
+    }
+
+    /**
+     * Makes every run of the game record its length and the times of its turns, some of which
+     * are timed as the statistics choose, or stops recording them.
+     * @param statistics the statistics to record into, or null to stop recording
+     */
+    public void setStatistics(GameStatistics statistics) {
+        this.statistics = statistics;
+        this.turnsUntilTimed = 1;
+    }
+
+    /**
+     * Makes every move of the game keep to a time control, or lets the players take as long as
+     * they like again.
+     * @param timeControl the time control of the moves, or null for no time control
+     */
+    public void setTimeControl(TimeControl timeControl) {
+        this.timeControl = timeControl;
+    }
+
+    /**
+     * Resets the game so it can be run again on the same board, which is cleared in place.
+     * Games of a tournament are played one after another by resetting a single game with the
+     * players swapped, so a long tournament doesn't allocate a game and a board every round.
+     * @param playerX the player who plays with X in the next run
+     * @param playerO the player who plays with O in the next run
+     */
+    public void reset(Player playerX, Player playerO) {
+        this.playerX = playerX;
+        this.playerO = playerO;
+        board.clear();
+        if (liveLines != null) {
+            liveLines.clear();
+        }
+    }
+
+    /**
+     * Runs a single game. The game stops as soon as no row, column or diagonal can be completed
+     * by either player anymore, since it can only end with a tie from that point on, or when a
+     * player under a time control forfeits the game by running out of time.
      * @return the mark of the winning player, or BLANK if there is a tie between the players
      */
     public Mark run() {
-        int maxTurns = board.getSize() * board.getSize();
+        // a board of millions of rows and columns has more cells than an int can count
+        long maxTurns = (long) board.getSize() * board.getSize();
+        long trackingStartTurn = maxTurns / TRACKING_START_DIVISOR;
+        if (timeControl == null) {
+            playerX.startGame(board, winStreak);
+            playerO.startGame(board, winStreak);
+        } else {
+            // a player the time control gave up on may still be busy with its last move
+            timeControl.startPlayer(playerX, board, Mark.X, winStreak);
+            timeControl.startPlayer(playerO, board, Mark.O, winStreak);
+            timeControl.followBoard(board);
+        }
         renderer.renderBoard(board);
+        moveCount = 0;
 
         // play the game for the maximum number of turns or until a player wins
-        for (int turn = 0; turn < maxTurns; turn++) {
+        Mark winner = Mark.BLANK;
+        long playedTurns = 0;
+        for (long turn = 0; turn < maxTurns; turn++) {
             Player currentPlayer = (turn % TWO_BASE_NUMBER == 0) ? playerX : playerO;
             Mark currentMark = (turn % TWO_BASE_NUMBER == 0) ? Mark.X : Mark.O;
 
-            // play the turn and render the board and check if the player has won
-            currentPlayer.playTurn(board, currentMark);
-            renderer.renderBoard(board);
-            if (isPlayerWon(currentMark)) {
-                return currentMark;
+            // play the turn and render the board and check if the player has won, timing the
+            // turns the statistics pick
+            boolean isWon = statistics != null && --turnsUntilTimed == 0 ?
+                    playTimedTurn(currentPlayer, currentMark) : playTurn(currentPlayer, currentMark);
+            playedTurns++;
+            if (isWon) {
+                winner = currentMark;
+                break;
             }
+            if (timeControl != null && timeControl.isForfeited()) {
+                winner = currentMark == Mark.X ? Mark.O : Mark.X;
+                break;
+            }
+            if (turn >= trackingStartTurn && isTieCertain(turn == trackingStartTurn)) {
+                break;
+            }
+        }
+        renderer.renderGameEnd(board);
+        if (statistics != null) {
+            statistics.recordGame(playedTurns);
         }
-        return Mark.BLANK;
+        return winner;
     }
 
     /*
-     * Check if the player has won the game by using a dynamic programming approach.
+     * Play a turn, log it, render the board and check if the player has won
      */
-    private boolean isPlayerWon(Mark mark) {
-        // dynamically check if the player has won the game by checking the
-        // rows, columns, diagonals, and anti-diagonals in one pass
-        int size = board.getSize();
-        int[][] rows = new int[size][size];
-        int[][] columns = new int[size][size];
-        int[][] diagonals = new int[size][size];
-        int[][] antiDiagonals = new int[size][size];
-
-        for (int i = 0; i < size; i++) {
-            for (int j = 0; j < size; j++) {
-                if (board.getMark(i, j) == mark) {
-
-                    // if first cell in row, column, diagonal, or anti-diagonal then set to 1
-                    // else increment by 1 from the previous cell
-
-                    // row check from left to right
-                    rows[i][j] = (j == 0) ? 1 : rows[i][j - 1] + 1;
-
-                    // column check from top to bottom
-                    columns[i][j] = (i == 0) ? 1 : columns[i - 1][j] + 1;
-
-                    // diagonal check from top-left to bottom-right
-                    diagonals[i][j] = (i == 0 || j == 0) ? 1 : diagonals[i - 1][j - 1] + 1;
-
-                    // anti-diagonal check from top-right to bottom-left
-                    antiDiagonals[i][j] = (i == 0 || j == size - 1) ? 1 :
-                            antiDiagonals[i - 1][j + 1] + 1;
-
-                    if (rows[i][j] == winStreak ||
-                            columns[i][j] == winStreak ||
-                            diagonals[i][j] == winStreak ||
-                            antiDiagonals[i][j] == winStreak) {
-                        return true;
-                    }
-                }
-            }
+    private boolean playTurn(Player player, Mark mark) {
+        movePlayer(player, mark);
+        if (moves != null) {
+            logMove();
+        }
+        renderer.renderBoard(board);
+        return isPlayerWon(mark);
+    }
+
+    /*
+     * Play a turn like playTurn, timing the turn, the rendering and the win check with a single
+     * reading of the clock between each two of them, and log it after the clock stops
+     */
+    private boolean playTimedTurn(Player player, Mark mark) {
+        long start = System.nanoTime();
+        movePlayer(player, mark);
+        long played = System.nanoTime();
+        renderer.renderBoard(board);
+        long rendered = System.nanoTime();
+        boolean isWon = isPlayerWon(mark);
+        long checked = System.nanoTime();
+        turnsUntilTimed = statistics.recordTurn(mark, played - start, rendered - played, checked - rendered);
+        if (moves != null) {
+            logMove();
+        }
+        return isWon;
+    }
+
+    /*
+     * Let the player play its turn, within the time control if there is one
+     */
+    private void movePlayer(Player player, Mark mark) {
+        if (timeControl == null) {
+            player.playTurn(board, mark);
+        } else {
+            timeControl.playTurn(player, board, mark);
+        }
+    }
+
+    /*
+     * Log the cell of the last move, growing the log when it is full, unless the player didn't
+     * put a mark and the last move is still the move already logged
+     */
+    private void logMove() {
+        int cell = board.getLastMoveRow() * board.getSize() + board.getLastMoveCol();
+        if (board.getLastMoveRow() == Board.NO_MOVE || (moveCount > 0 && moves[moveCount - 1] == cell)) {
+            return;
+        }
+        if (moveCount == moves.length) {
+            moves = Arrays.copyOf(moves, (int) Math.min((long) moves.length * TWO_BASE_NUMBER,
+                    Integer.MAX_VALUE));
+        }
+        moves[moveCount++] = cell;
+    }
+
+    /*
+     * Update the live windows with the last move, or with the whole board when tracking starts,
+     * and check if nobody can win anymore
+     */
+    private boolean isTieCertain(boolean isTrackingStart) {
+        if (liveLines == null || board.getLastMoveRow() == Board.NO_MOVE) {
+            return false;
+        }
+        if (isTrackingStart) {
+            liveLines.load(board);
+        } else {
+            int row = board.getLastMoveRow();
+            int col = board.getLastMoveCol();
+            liveLines.place(row, col, board.getMark(row, col));
+        }
+        return liveLines.isDrawn();
+    }
+
+    /*
+     * Build the tracker of the live windows, unless the board is too large to track
+     */
+    private static LiveLineTracker buildLiveLineTracker(int size, int winStreak) {
+        if ((long) size * size > MAX_TRACKED_CELLS) {
+            return null;
         }
-        return false;
+        return new LiveLineTracker(size, winStreak);
+    }
+
+    /**
+     * Checks if the player has won the game with the mark that was just placed.
+     * No line could hold a winning streak before the last move, so only the four lines
+     * going through the last placed mark can hold one now. Each line is read outwards from the
+     * last move up to the first cell without the mark, so the cells read are the neighbouring
+     * marks of the streak and a single cell past each of its ends.
+     * Package-private so benchmarks can measure it on its own.
+     * @param mark the mark of the player who just played
+     * @return true if the last placed mark completed a winning streak of the player
+     */
+    boolean isPlayerWon(Mark mark) {
+        int row = board.getLastMoveRow();
+        int col = board.getLastMoveCol();
+
+        // the player did not place a mark in this turn, so none of its streaks has changed
+        if (row == Board.NO_MOVE || board.getMark(row, col) != mark) {
+            return false;
+        }
+
+        // check the row, column, diagonal and anti-diagonal through the last move
+        return CellStreaks.isWinningMove(board, winStreak, row, col, mark);
     }
 }
@@ -0,0 +1,242 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * The GameRecordReader class streams back the games written by a GameRecorder, one game at a
+ * time, through a single buffer, so files of millions of games can be read in constant memory.
+ * A game that was read can be replayed move by move through any renderer.
+ * @author Neriya Ben David
+ * @see GameRecorder
+ */
+public class GameRecordReader implements Closeable {
+
+    // Constants Arguments
+    private static final int RECORD_FILE_ARG = 0;
+    private static final int RENDER_TARGET_ARG = 1;
+    private static final int ARGS_COUNT = 2;
+
+    // Constants Messages
+    private static final String USAGE_MESSAGE = "Usage: java GameRecordReader [record file] " +
+            "[render target: console/buffered/diff/none]";
+    private static final String INVALID_RECORD_FILE_MESSAGE = "Could not read the game records: %s\n";
+    private static final String TRUNCATED_MESSAGE = "The record file ends in the middle of a game";
+    private static final String GAME_MESSAGE = "Round %d: size %d, win streak %d, X played by player %d, " +
+            "winner %s after %d moves\n";
+    private static final String GAMES_COUNT_MESSAGE = "Games: %d\n";
+    private static final String TIE_NAME = "none";
+
+    // Constants Numbers
+    private static final int PLAYER_1 = 1;
+    private static final int PLAYER_2 = 2;
+    private static final int TWO_BASE_NUMBER = 2;
+    private static final int INITIAL_MOVES_SIZE = 64;
+
+    // fields
+    private final FileChannel channel;
+    private final ByteBuffer buffer;
+
+    // the game read last
+    private int round;
+    private int size;
+    private int winStreak;
+    private boolean isPlayer1First;
+    private Mark winner;
+    private int moveCount;
+    private int[] moves;
+
+    /**
+     * Constructs a new GameRecordReader object that reads the given file from its start.
+     * @param path the path of the record file
+     * @throws IOException if the file can't be opened
+     */
+    public GameRecordReader(Path path) throws IOException {
+        this.channel = FileChannel.open(path, StandardOpenOption.READ);
+        this.buffer = ByteBuffer.allocateDirect(GameRecorder.BUFFER_SIZE);
+        this.buffer.flip();
+        this.moves = new int[INITIAL_MOVES_SIZE];
+    }
+
+    /**
+     * Reads the next game of the file.
+     * @return true if a game was read, false if the file has no more games
+     * @throws IOException if the file can't be read or ends in the middle of a game
+     */
+    public boolean next() throws IOException {
+        if (!fill(GameRecorder.HEADER_SIZE)) {
+            if (buffer.hasRemaining()) {
+                throw new IOException(TRUNCATED_MESSAGE);
+            }
+            return false;
+        }
+        round = buffer.getInt();
+        size = buffer.getInt();
+        winStreak = buffer.getInt();
+        isPlayer1First = buffer.get() != 0;
+        winner = Mark.values()[buffer.get()];
+        moveCount = buffer.getInt();
+
+        if (moves.length < moveCount) {
+            moves = Arrays.copyOf(moves, Math.max(moveCount, moves.length * TWO_BASE_NUMBER));
+        }
+        for (int i = 0; i < moveCount; i++) {
+            moves[i] = readVarint();
+        }
+        return true;
+    }
+
+    /**
+     * Gets the round of the game in its tournament.
+     * @return the round of the game
+     */
+    public int getRound() {
+        return round;
+    }
+
+    /**
+     * Gets the size of the board of the game.
+     * @return the size of the board
+     */
+    public int getSize() {
+        return size;
+    }
+
+    /**
+     * Gets the win streak of the game.
+     * @return the number of marks in a row needed to win the game
+     */
+    public int getWinStreak() {
+        return winStreak;
+    }
+
+    /**
+     * Checks whether the first player of the tournament played X in the game.
+     * @return true if the first player moved first, false otherwise
+     */
+    public boolean isPlayer1First() {
+        return isPlayer1First;
+    }
+
+    /**
+     * Gets the winner of the game.
+     * @return the mark of the winning player, or BLANK for a tie
+     */
+    public Mark getWinner() {
+        return winner;
+    }
+
+    /**
+     * Gets the number of moves of the game.
+     * @return the number of moves
+     */
+    public int getMoveCount() {
+        return moveCount;
+    }
+
+    /**
+     * Gets a move of the game, X playing the even moves and O the odd ones.
+     * @param index the index of the move, from 0
+     * @return the cell of the move, row * size + col
+     */
+    public int getMove(int index) {
+        return moves[index];
+    }
+
+    /**
+     * Replays the game on a new board, rendering the empty board and the board after every move.
+     * @param renderer the renderer to render the board with
+     * @return the board at the end of the game
+     */
+    public Board replay(Renderer renderer) {
+        Board board = new Board(size);
+        renderer.renderBoard(board);
+        for (int i = 0; i < moveCount; i++) {
+            Mark mark = i % TWO_BASE_NUMBER == 0 ? Mark.X : Mark.O;
+            board.putMark(mark, moves[i] / size, moves[i] % size);
+            renderer.renderBoard(board);
+        }
+        renderer.renderGameEnd(board);
+        return board;
+    }
+
+    /**
+     * Closes the file.
+     * @throws IOException if the file can't be closed
+     */
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    /*
+     * Read an unsigned varint of 7 bits per byte
+     */
+    private int readVarint() throws IOException {
+        int value = 0;
+        int shift = 0;
+        int current;
+        do {
+            if (!fill(1)) {
+                throw new IOException(TRUNCATED_MESSAGE);
+            }
+            current = buffer.get();
+            value |= (current & GameRecorder.VARINT_MASK) << shift;
+            shift += GameRecorder.VARINT_BITS;
+        } while ((current & GameRecorder.VARINT_MORE) != 0);
+        return value;
+    }
+
+    /*
+     * Read from the file until the buffer holds the given number of bytes, returns false if
+     * the file ends first
+     */
+    private boolean fill(int bytes) throws IOException {
+        if (buffer.remaining() >= bytes) {
+            return true;
+        }
+        buffer.compact();
+        while (buffer.position() < bytes && channel.read(buffer) >= 0) {
+            // keep reading until there are enough bytes or the file ends
+        }
+        buffer.flip();
+        return buffer.remaining() >= bytes;
+    }
+
+    /**
+     * Main method to print the games of a record file, replaying every game through a renderer
+     * @param args command line arguments
+     */
+    public static void main(String[] args) {
+        if (args.length < ARGS_COUNT) {
+            System.out.println(USAGE_MESSAGE);
+            return;
+        }
+
+        RendererFactory rendererFactory = new RendererFactory();
+        int games = 0;
+        try (GameRecordReader reader = new GameRecordReader(Paths.get(args[RECORD_FILE_ARG]))) {
+            while (reader.next()) {
+                Renderer renderer = rendererFactory.buildRenderer(args[RENDER_TARGET_ARG], reader.getSize());
+                if (renderer == null) {
+                    System.out.println(USAGE_MESSAGE);
+                    return;
+                }
+                System.out.printf(GAME_MESSAGE, reader.getRound(), reader.getSize(), reader.getWinStreak(),
+                        reader.isPlayer1First() ? PLAYER_1 : PLAYER_2,
+                        reader.getWinner() == Mark.BLANK ? TIE_NAME : reader.getWinner(),
+                        reader.getMoveCount());
+                reader.replay(renderer);
+                games++;
+            }
+        } catch (IOException e) {
+            System.out.printf(INVALID_RECORD_FILE_MESSAGE, e.getMessage());
+            return;
+        }
+        System.out.printf(GAMES_COUNT_MESSAGE, games);
+    }
+}
@@ -0,0 +1,114 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * The GameRecorder class appends the games of a tournament to a compact binary file.
+ * Every game is written as a fixed-size header followed by its moves:
+ * the round (int), the board size (int), the win streak (int), whether the first player of
+ * the tournament played X (byte), the winner as a Mark ordinal (byte) and the number of moves
+ * (int), then the cell index row * size + col of every move, X first, as an unsigned varint of
+ * 7 bits per byte. Records are built in one large buffer that is written to a FileChannel only
+ * when it fills up, so recording a game costs little more than copying its moves.
+ * The recorder can be shared by the tasks of a parallel tournament, whose games are appended
+ * in the order they end.
+ * @author Neriya Ben David
+ * @see GameRecordReader
+ * @see Tournament
+ */
+public class GameRecorder implements Closeable {
+
+    // constants, shared with the reader
+    static final int HEADER_SIZE = 3 * Integer.BYTES + 2 * Byte.BYTES + Integer.BYTES;
+    static final int VARINT_BITS = 7;
+    static final int VARINT_MORE = 0x80;
+    static final int VARINT_MASK = 0x7f;
+    static final int MAX_VARINT_SIZE = 5;
+    static final int BUFFER_SIZE = 1 << 20;
+
+    // fields
+    private final FileChannel channel;
+    private final ByteBuffer buffer;
+
+    /**
+     * Constructs a new GameRecorder object that appends to the given file, creating it if needed.
+     * @param path the path of the record file
+     * @throws IOException if the file can't be opened
+     */
+    public GameRecorder(Path path) throws IOException {
+        this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.APPEND);
+        this.buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+    }
+
+    /**
+     * Appends a game that was just run, with the moves the game logged.
+     * @param round the round of the game in the tournament
+     * @param game the game that was run with its move log enabled
+     * @param isPlayer1First whether the first player of the tournament played X
+     * @param winner the mark of the winning player, or BLANK for a tie
+     * @throws UncheckedIOException if the record can't be written
+     */
+    public synchronized void recordGame(int round, Game game, boolean isPlayer1First, Mark winner) {
+        int moveCount = game.getMoveCount();
+        ensureRemaining(HEADER_SIZE);
+        buffer.putInt(round);
+        buffer.putInt(game.getBoardSize());
+        buffer.putInt(game.getWinStreak());
+        buffer.put((byte) (isPlayer1First ? 1 : 0));
+        buffer.put((byte) winner.ordinal());
+        buffer.putInt(moveCount);
+
+        for (int i = 0; i < moveCount; i++) {
+            ensureRemaining(MAX_VARINT_SIZE);
+            int cell = game.getMove(i);
+            while ((cell & ~VARINT_MASK) != 0) {
+                buffer.put((byte) ((cell & VARINT_MASK) | VARINT_MORE));
+                cell >>>= VARINT_BITS;
+            }
+            buffer.put((byte) cell);
+        }
+    }
+
+    /**
+     * Writes all the buffered records to the file.
+     * @throws IOException if the records can't be written
+     */
+    public synchronized void flush() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    /**
+     * Writes all the buffered records and closes the file.
+     * @throws IOException if the records can't be written
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        try {
+            flush();
+        } finally {
+            channel.close();
+        }
+    }
+
+    /*
+     * Write the buffered records if the buffer has less room than needed
+     */
+    private void ensureRemaining(int bytes) {
+        if (buffer.remaining() < bytes) {
+            try {
+                flush();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+}
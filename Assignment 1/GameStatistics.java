@@ -0,0 +1,229 @@
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.SplittableRandom;
+
+/**
+ * The GameStatistics class collects where the time of the games of a tournament goes: how long
+ * the turns of each player take, how long rendering the board and checking for a win take after
+ * a turn, and how many moves the games last. Times are counted in nanoseconds in histograms.
+ * Reading the clock costs about a quarter of a turn of a random player, so only one turn in about
+ * SAMPLE_INTERVAL is timed, at random, while the turns are fast, and every turn is timed while
+ * the last timed turn of either player took long enough for the clock not to matter. A timed turn
+ * is counted for all the turns since the last timed turn, so fast and slow turns keep their share
+ * of the histograms, but the maximum of a sampled histogram is only the largest timed turn.
+ * @author Neriya Ben David
+ * @see Game
+ * @see Histogram
+ */
+public class GameStatistics {
+
+    // constants
+    /** The average number of fast turns from one timed turn to the next. */
+    public static final int SAMPLE_INTERVAL = 64;
+    // while turns are at least this long every turn is timed, the clock costing under a percent
+    private static final long SLOW_TURN_NANOS = 20_000;
+    private static final int PLAYER_1 = 0;
+    private static final int PLAYER_2 = 1;
+    private static final int PLAYERS = 2;
+    private static final int NEXT_TURN = 1;
+    private static final double MEDIAN = 50;
+    private static final double TAIL = 99;
+
+    // Constants Messages
+    private static final String DECORATED_STATISTICS_MESSAGE = "######### Statistics #########";
+    private static final String TURN_OF_PLAYER_1_NAME = "Player 1, %s turn, sampled";
+    private static final String TURN_OF_PLAYER_2_NAME = "Player 2, %s turn, sampled";
+    private static final String RENDER_NAME = "Render, sampled";
+    private static final String WIN_CHECK_NAME = "Win check, sampled";
+    private static final String GAME_LENGTH_NAME = "Game length";
+    private static final String NANOS_UNIT = "ns";
+    private static final String MOVES_UNIT = "moves";
+    private static final String HISTOGRAM_MESSAGE = "%-32s %,12d counted  mean %,14.1f  p50 %,12d  " +
+            "p99 %,12d  max %,12d %s\n";
+    private static final String JSON_HISTOGRAM_FORMAT = "  {\"name\": \"%s\", \"unit\": \"%s\", " +
+            "\"sampled\": %b, \"count\": %d, \"mean\": %.3f, \"p50\": %d, \"p99\": %d, \"max\": %d, " +
+            "\"buckets\": [%s]}";
+    private static final String JSON_BUCKET_FORMAT = "[%d, %d]";
+    private static final String JSON_BUCKET_SEPARATOR = ", ";
+    private static final String JSON_SEPARATOR = ",\n";
+
+    // fields
+    private final Histogram[] turnNanos;
+    private final Histogram renderNanos;
+    private final Histogram winCheckNanos;
+    private final Histogram gameMoves;
+    private final boolean[] isSlow;
+    private final SplittableRandom random;
+    // the number of turns from the last timed turn to the next one, which it is counted for, and
+    // the turns of each player since its last timed turn, which its next timed turn is counted for
+    private int turnsPerSample;
+    private final long[] untimedTurns;
+    private boolean isPlayer1X;
+
+    /**
+     * Constructs a new GameStatistics object with no games recorded.
+     */
+    public GameStatistics() {
+        this.turnNanos = new Histogram[] {new Histogram(), new Histogram()};
+        this.renderNanos = new Histogram();
+        this.winCheckNanos = new Histogram();
+        this.gameMoves = new Histogram();
+        this.isSlow = new boolean[PLAYERS];
+        this.random = new SplittableRandom();
+        this.turnsPerSample = NEXT_TURN;
+        this.untimedTurns = new long[PLAYERS];
+        this.isPlayer1X = true;
+    }
+
+    /**
+     * Tells which player plays with X in the next game, so the turns are counted for the players
+     * of the tournament rather than for the marks.
+     * @param isPlayer1First true if player 1 plays with X in the next game, false otherwise
+     */
+    public void startGame(boolean isPlayer1First) {
+        isPlayer1X = isPlayer1First;
+    }
+
+    /**
+     * Records the times of a timed turn and picks the next turn to time. The first turn of the
+     * statistics is always timed. The render and win check times are counted for every turn since
+     * the last timed turn, and the turn time for every turn of the same player since its own last
+     * timed turn, the players playing every other turn.
+     * @param mark the mark of the player who played the turn
+     * @param turnNanos the time the player took to play the turn
+     * @param renderNanos the time it took to render the board after the turn
+     * @param winCheckNanos the time it took to check whether the turn won the game
+     * @return the number of turns from this one to the next turn to time, at least 1
+     */
+    public int recordTurn(Mark mark, long turnNanos, long renderNanos, long winCheckNanos) {
+        int player = playerOf(mark);
+        int otherPlayer = player == PLAYER_1 ? PLAYER_2 : PLAYER_1;
+        untimedTurns[player] += (turnsPerSample + PLAYERS - 1) / PLAYERS;
+        untimedTurns[otherPlayer] += turnsPerSample / PLAYERS;
+        this.turnNanos[player].record(turnNanos, untimedTurns[player]);
+        untimedTurns[player] = 0;
+        isSlow[player] = turnNanos >= SLOW_TURN_NANOS;
+        this.renderNanos.record(renderNanos, turnsPerSample);
+        this.winCheckNanos.record(winCheckNanos, turnsPerSample);
+        if (isSlow[PLAYER_1] || isSlow[PLAYER_2]) {
+            turnsPerSample = NEXT_TURN;
+        } else {
+            // a random gap between the timed turns, so they don't keep falling on the same move
+            // of games that last the same number of moves
+            turnsPerSample = random.nextInt(1, 2 * SAMPLE_INTERVAL);
+        }
+        return turnsPerSample;
+    }
+
+    /**
+     * Records the length of a game that ended.
+     * @param moves the number of moves played in the game
+     */
+    public void recordGame(long moves) {
+        gameMoves.record(moves);
+    }
+
+    /**
+     * Adds the statistics of other games of the same tournament to these statistics.
+     * @param other the statistics of the other games
+     */
+    public void merge(GameStatistics other) {
+        for (int player = 0; player < PLAYERS; player++) {
+            turnNanos[player].merge(other.turnNanos[player]);
+        }
+        renderNanos.merge(other.renderNanos);
+        winCheckNanos.merge(other.winCheckNanos);
+        gameMoves.merge(other.gameMoves);
+    }
+
+    /**
+     * Gets the times of the timed turns of a player, each counted for the turns it stands for.
+     * @param isPlayer1 true for the turns of player 1, false for the turns of player 2
+     * @return the histogram of the turn times in nanoseconds
+     */
+    public Histogram getTurnNanos(boolean isPlayer1) {
+        return turnNanos[isPlayer1 ? PLAYER_1 : PLAYER_2];
+    }
+
+    /**
+     * Gets the numbers of moves of the games.
+     * @return the histogram of the game lengths
+     */
+    public Histogram getGameMoves() {
+        return gameMoves;
+    }
+
+    /**
+     * Prints the count, mean, median, 99th percentile and maximum of every histogram, the
+     * sampled histograms marked as sampled.
+     * @param playerName1 the name of the first player
+     * @param playerName2 the name of the second player
+     */
+    public void print(String playerName1, String playerName2) {
+        System.out.println(DECORATED_STATISTICS_MESSAGE);
+        printHistogram(String.format(TURN_OF_PLAYER_1_NAME, playerName1), turnNanos[PLAYER_1], NANOS_UNIT);
+        printHistogram(String.format(TURN_OF_PLAYER_2_NAME, playerName2), turnNanos[PLAYER_2], NANOS_UNIT);
+        printHistogram(RENDER_NAME, renderNanos, NANOS_UNIT);
+        printHistogram(WIN_CHECK_NAME, winCheckNanos, NANOS_UNIT);
+        printHistogram(GAME_LENGTH_NAME, gameMoves, MOVES_UNIT);
+    }
+
+    /**
+     * Saves every histogram to a file as a JSON array, with its summary, whether it is sampled
+     * and its non-empty buckets, each bucket given by the largest value it counts and its count.
+     * @param path the path of the file to write
+     * @param playerName1 the name of the first player
+     * @param playerName2 the name of the second player
+     * @throws IOException if the file can't be written
+     */
+    public void save(String path, String playerName1, String playerName2) throws IOException {
+        List<String> jsonHistograms = new ArrayList<>();
+        jsonHistograms.add(toJson(String.format(TURN_OF_PLAYER_1_NAME, playerName1), turnNanos[PLAYER_1],
+                NANOS_UNIT, true));
+        jsonHistograms.add(toJson(String.format(TURN_OF_PLAYER_2_NAME, playerName2), turnNanos[PLAYER_2],
+                NANOS_UNIT, true));
+        jsonHistograms.add(toJson(RENDER_NAME, renderNanos, NANOS_UNIT, true));
+        jsonHistograms.add(toJson(WIN_CHECK_NAME, winCheckNanos, NANOS_UNIT, true));
+        jsonHistograms.add(toJson(GAME_LENGTH_NAME, gameMoves, MOVES_UNIT, false));
+        try (PrintWriter writer = new PrintWriter(new FileWriter(path))) {
+            writer.println("[");
+            writer.println(String.join(JSON_SEPARATOR, jsonHistograms));
+            writer.println("]");
+        }
+    }
+
+    /*
+     * Get the index of the tournament player who plays with a mark in the current game
+     */
+    private int playerOf(Mark mark) {
+        return (mark == Mark.X) == isPlayer1X ? PLAYER_1 : PLAYER_2;
+    }
+
+    /*
+     * Print the summary of a single histogram
+     */
+    private static void printHistogram(String name, Histogram histogram, String unit) {
+        System.out.printf(HISTOGRAM_MESSAGE, name, histogram.getCount(), histogram.getMean(),
+                histogram.getPercentile(MEDIAN), histogram.getPercentile(TAIL), histogram.getMax(), unit);
+    }
+
+    /*
+     * Format a single histogram as a JSON object
+     */
+    private static String toJson(String name, Histogram histogram, String unit, boolean isSampled) {
+        List<String> buckets = new ArrayList<>();
+        for (int bucket = 0; bucket < histogram.getBuckets(); bucket++) {
+            if (histogram.getBucketCount(bucket) != 0) {
+                buckets.add(String.format(Locale.ROOT, JSON_BUCKET_FORMAT, Histogram.upperBoundOf(bucket),
+                        histogram.getBucketCount(bucket)));
+            }
+        }
+        return String.format(Locale.ROOT, JSON_HISTOGRAM_FORMAT, name, unit, isSampled, histogram.getCount(),
+                histogram.getMean(), histogram.getPercentile(MEDIAN), histogram.getPercentile(TAIL),
+                histogram.getMax(), String.join(JSON_BUCKET_SEPARATOR, buckets));
+    }
+}
@@ -20,15 +20,16 @@ public class GeniusPlayer implements Player {
      */
     @Override
     public void playTurn(Board board, Mark mark) {
-        int boardSize = board.getSize();
+        // let the board go on back from the last empty cell it found last time
+        board.putMarkInLastEmptyCell(mark);
+    }
 
-        for (int i = boardSize - 1; i >= 0; i--) {
-            for (int j = boardSize - 1; j >= 0; j--) {
-                if (board.getMark(i, j) == Mark.BLANK) {
-                    board.putMark(mark, i, j);
-                    return;
-                }
-            }
-        }
+    /**
+     * The genius player always takes the last empty cell of the board, so it is deterministic.
+     * @return true
+     */
+    @Override
+    public boolean isDeterministic() {
+        return true;
     }
 }
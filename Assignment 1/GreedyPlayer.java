@@ -0,0 +1,90 @@
+/**
+ * The GreedyPlayer class represents a player that looks a single move ahead: it wins when it
+ * can, blocks the cell the opponent would win in when it must, and otherwise puts its mark in
+ * the empty cell that raises the score of the line evaluator the most for it, building up its
+ * own lines while breaking the lines of the opponent. Ties go to the first such cell by rows.
+ * The evaluator is kept between the turns of a game and only learns the last move of the
+ * opponent, so the whole board is read just once, at the first turn of a game.
+ * @author Neriya Ben David
+ * @see Player
+ * @see LineEvaluator
+ */
+public class GreedyPlayer implements Player {
+
+    // fields
+    private LineEvaluator evaluator;
+
+    /**
+     * Constructs a new GreedyPlayer object.
+     */
+    public GreedyPlayer() {
+        this.evaluator = null;
+    }
+
+    /**
+     * Prepares the evaluator for the board size and win streak of the new game.
+     * @param board the board the game is played on
+     * @param winStreak the number of marks in a row needed to win the game
+     */
+    @Override
+    public void startGame(Board board, int winStreak) {
+        if (evaluator == null || evaluator.getSize() != board.getSize() ||
+                evaluator.getWinStreak() != winStreak) {
+            evaluator = new LineEvaluator(board.getSize(), winStreak);
+        }
+    }
+
+    /**
+     * Play a turn by putting the mark in the cell that raises the score of the player the most.
+     * @param board game board to play on
+     * @param mark mark to put on board
+     */
+    @Override
+    public void playTurn(Board board, Mark mark) {
+        if (evaluator == null || evaluator.getSize() != board.getSize()) {
+            startGame(board, evaluator == null ? LineEvaluator.DEFAULT_WIN_STREAK : evaluator.getWinStreak());
+        }
+        evaluator.follow(board);
+
+        int size = evaluator.getSize();
+        int cell = chooseCell(mark);
+        if (cell == Board.NO_MOVE) {
+            return;
+        }
+        if (!board.putMark(mark, cell / size, cell % size)) {
+            // the board was changed behind the player, read it again
+            evaluator.load(board);
+            cell = chooseCell(mark);
+            if (cell == Board.NO_MOVE) {
+                return;
+            }
+            board.putMark(mark, cell / size, cell % size);
+        }
+        evaluator.place(cell / size, cell % size, mark);
+    }
+
+    /**
+     * The greedy player always takes the same cell in the same position, so it is deterministic.
+     * @return true
+     */
+    @Override
+    public boolean isDeterministic() {
+        return true;
+    }
+
+    /*
+     * Choose the cell of the move: the winning cell if there is one, the winning cell of the
+     * opponent if it has one, and the most valuable cell otherwise
+     */
+    private int chooseCell(Mark mark) {
+        int almostComplete = evaluator.getWinStreak() - 1;
+        Mark opponent = mark == Mark.X ? Mark.O : Mark.X;
+
+        // a winning move is worth more than any other, so it is the most valuable cell
+        if (evaluator.getWindowCount(mark, almostComplete) == 0 &&
+                evaluator.getWindowCount(opponent, almostComplete) > 0) {
+            return evaluator.bestCell(opponent);
+        }
+        return evaluator.bestCell(mark);
+    }
+}
@@ -0,0 +1,153 @@
+/**
+ * The Histogram class counts non-negative values, such as nanoseconds or moves, in buckets
+ * whose width grows with the values: values under 16 have a bucket each, and every power of two
+ * above them is split into 16 buckets, so a value is known to within a sixteenth of itself.
+ * All the buckets of any long value fit in a fixed array of under 8 KB, so recording a value is a
+ * few bit operations without allocating, and histograms of separate threads can be merged.
+ * @author Neriya Ben David
+ * @see GameStatistics
+ */
+public class Histogram {
+
+    // constants
+    private static final int SUB_BUCKET_BITS = 4;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int BUCKETS = (Long.SIZE - SUB_BUCKET_BITS + 1) * SUB_BUCKETS;
+    private static final double PERCENT = 100;
+
+    // fields
+    private final long[] counts;
+    private long count;
+    private long total;
+    private long max;
+
+    /**
+     * Constructs a new empty Histogram object.
+     */
+    public Histogram() {
+        this.counts = new long[BUCKETS];
+        this.count = 0;
+        this.total = 0;
+        this.max = 0;
+    }
+
+    /**
+     * Counts a value, negative values counted as 0.
+     * @param value the value to count
+     */
+    public void record(long value) {
+        record(value, 1);
+    }
+
+    /**
+     * Counts a value a number of times, for a sampled value that stands for values that weren't
+     * measured. Negative values are counted as 0.
+     * @param value the value to count
+     * @param weight the number of times to count the value, at least 1
+     */
+    public void record(long value, long weight) {
+        long recorded = Math.max(value, 0);
+        counts[bucketOf(recorded)] += weight;
+        count += weight;
+        total += recorded * weight;
+        max = Math.max(max, recorded);
+    }
+
+    /**
+     * Adds the values counted by another histogram to this histogram.
+     * @param other the other histogram
+     */
+    public void merge(Histogram other) {
+        for (int bucket = 0; bucket < BUCKETS; bucket++) {
+            counts[bucket] += other.counts[bucket];
+        }
+        count += other.count;
+        total += other.total;
+        max = Math.max(max, other.max);
+    }
+
+    /**
+     * Gets the number of values counted, each value as many times as its weight.
+     * @return the number of values
+     */
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * Gets the largest value counted.
+     * @return the largest value, or 0 if no value was counted
+     */
+    public long getMax() {
+        return max;
+    }
+
+    /**
+     * Gets the average of the values counted.
+     * @return the average value, or 0 if no value was counted
+     */
+    public double getMean() {
+        return count == 0 ? 0 : (double) total / count;
+    }
+
+    /**
+     * Gets the value that the given percent of the counted values are at or below, up to the
+     * width of its bucket.
+     * @param percentile the percent of the values, between 0 and 100
+     * @return the largest value of the bucket holding the percentile, or 0 if no value was counted
+     */
+    public long getPercentile(double percentile) {
+        long rank = Math.max((long) Math.ceil(percentile / PERCENT * count), 1);
+        long seen = 0;
+        for (int bucket = 0; bucket < BUCKETS; bucket++) {
+            seen += counts[bucket];
+            if (seen >= rank) {
+                return Math.min(upperBoundOf(bucket), max);
+            }
+        }
+        return max;
+    }
+
+    /**
+     * Gets the number of buckets the values are counted in.
+     * @return the number of buckets
+     */
+    public int getBuckets() {
+        return BUCKETS;
+    }
+
+    /**
+     * Gets the number of values counted in a bucket.
+     * @param bucket the index of the bucket
+     * @return the number of values in the bucket
+     */
+    public long getBucketCount(int bucket) {
+        return counts[bucket];
+    }
+
+    /**
+     * Gets the largest value that is counted in a bucket.
+     * @param bucket the index of the bucket
+     * @return the largest value of the bucket
+     */
+    public static long upperBoundOf(int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+        int shift = bucket / SUB_BUCKETS - 1;
+        long subBucket = bucket % SUB_BUCKETS + SUB_BUCKETS;
+        return ((subBucket + 1) << shift) - 1;
+    }
+
+    /*
+     * Get the bucket of a value: the values under 16 are their own buckets, and larger values
+     * are put by their highest set bit and the four bits after it
+     */
+    private static int bucketOf(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int shift = Long.SIZE - 1 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+        return (shift + 1) * SUB_BUCKETS + (int) (value >>> shift) - SUB_BUCKETS;
+    }
+}
@@ -0,0 +1,239 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * The League class plays a round-robin league between any number of player types in a single
+ * run. Every pairing of two types plays the same number of rounds, each player moving first in
+ * half of them. The rounds of every pairing are split into chunks that are submitted to a
+ * shared work-stealing pool one chunk of every pairing after another, so all the pairings
+ * progress together and their scores settle early instead of one pairing finishing at a time.
+ * At the end the league prints the Elo rating and the score of every player, and the results
+ * and throughput of every pairing.
+ * @author Neriya Ben David
+ * @see TournamentTask
+ * @see EloRatings
+ */
+public class League {
+
+    // Constants Arguments
+    private static final int ROUNDS_ARG = 0;
+    private static final int SIZE_ARG = 1;
+    private static final int WIN_STREAK_ARG = 2;
+    private static final int PLAYERS_ARG = 3;
+    private static final int FIRST_OPTIONAL_ARG = 4;
+    private static final String LIST_SEPARATOR = ",";
+    private static final String HUMAN_PLAYER = "human";
+
+    // Constants Messages
+    private static final String INVALID_ARGUMENTS_MESSAGE =
+            "Usage: Please run the league again: java League " +
+                    "[rounds per pairing] [size] [win_streak] " +
+                    "[players, comma separated: whatever/clever/genius/minimax/mcts/perfect/greedy/threat] " +
+                    "[optional: --board=array/bit/offheap/sparse/byte] [optional: --threads=count]";
+    private static final String DECORATED_TABLE_MESSAGE = "######### League #########";
+    private static final String TABLE_HEADER_MESSAGE = "%-4s %-10s %8s %8s %8s %8s %8s\n";
+    private static final String TABLE_ROW_MESSAGE = "%-4d %-10s %8.1f %8d %8d %8d %7.1f%%\n";
+    private static final String DECORATED_PAIRINGS_MESSAGE = "######### Pairings #########";
+    private static final String PAIRING_MESSAGE = "%s vs %s: %d-%d-%d, %.1f rounds/s\n";
+    private static final String[] TABLE_HEADERS = {"Rank", "Player", "Elo", "Wins", "Losses", "Ties",
+            "Score"};
+
+    // Constants Numbers
+    private static final int CHUNKS_PER_PAIRING = 16;
+    private static final double WIN_POINTS = 1;
+    private static final double TIE_POINTS = 0.5;
+    private static final double PERCENT = 100;
+    private static final double NANOS_PER_SECOND = 1e9;
+    // league games have no time control, their players keep their own time budgets
+    private static final int NO_MOVE_TIME = 0;
+
+    // settings
+    private final int rounds;
+    private final int size;
+    private final int winStreak;
+    private final String[] playerTypes;
+    private final String boardType;
+    private final int threads;
+
+    // scores of every pairing, scores[i][j] for i < j with player i as player 1
+    private final TournamentScore[][] scores;
+
+    /**
+     * Constructs a new League object.
+     * @param rounds the number of rounds of every pairing
+     * @param size the size of the board
+     * @param winStreak the win streak to win a game
+     * @param playerTypes the types of the players, as understood by the PlayerFactory
+     * @param boardType the type of board to play on, as understood by the BoardFactory
+     * @param threads the number of threads of the pool
+     */
+    public League(int rounds, int size, int winStreak, String[] playerTypes, String boardType, int threads) {
+        this.rounds = rounds;
+        this.size = size;
+        this.winStreak = winStreak;
+        this.playerTypes = playerTypes;
+        this.boardType = boardType;
+        this.threads = threads;
+        this.scores = new TournamentScore[playerTypes.length][playerTypes.length];
+    }
+
+    /**
+     * Plays all the pairings of the league on a work-stealing pool and prints the results.
+     */
+    public void play() {
+        int chunkRounds = Math.max(rounds / CHUNKS_PER_PAIRING, 1);
+        OutcomeCache outcomeCache = new OutcomeCache();
+        List<ForkJoinTask<TournamentScore>> chunks = new ArrayList<>();
+        List<int[]> chunkPairings = new ArrayList<>();
+
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        try {
+            // submit the chunks of all the pairings interleaved, first chunks first
+            for (int firstRound = 0; firstRound < rounds; firstRound += chunkRounds) {
+                int lastRound = Math.min(firstRound + chunkRounds, rounds);
+                for (int i = 0; i < playerTypes.length; i++) {
+                    for (int j = i + 1; j < playerTypes.length; j++) {
+                        TournamentTask task = new TournamentTask(firstRound, lastRound, chunkRounds, size,
+                                winStreak, boardType, playerTypes[i], playerTypes[j], false, false,
+                                NO_MOVE_TIME, false, outcomeCache, null);
+                        chunks.add(pool.submit(() -> playChunk(task)));
+                        chunkPairings.add(new int[]{i, j});
+                    }
+                }
+            }
+
+            for (int chunk = 0; chunk < chunks.size(); chunk++) {
+                int[] pairing = chunkPairings.get(chunk);
+                if (scores[pairing[0]][pairing[1]] == null) {
+                    scores[pairing[0]][pairing[1]] = new TournamentScore();
+                }
+                scores[pairing[0]][pairing[1]].merge(chunks.get(chunk).join());
+            }
+        } finally {
+            pool.shutdown();
+        }
+
+        printTable();
+        printPairings();
+    }
+
+    /*
+     * Play a chunk of rounds on the current worker and measure the time it took
+     */
+    private static TournamentScore playChunk(TournamentTask task) {
+        long startTime = System.nanoTime();
+        TournamentScore score = task.invoke();
+        score.addPlayNanos(System.nanoTime() - startTime);
+        return score;
+    }
+
+    /*
+     * Print the players ordered by their Elo ratings, with their wins, losses and ties
+     */
+    private void printTable() {
+        int players = playerTypes.length;
+        double[][] points = new double[players][players];
+        int[][] games = new int[players][players];
+        int[] wins = new int[players];
+        int[] losses = new int[players];
+        int[] ties = new int[players];
+        for (int i = 0; i < players; i++) {
+            for (int j = i + 1; j < players; j++) {
+                TournamentScore score = scores[i][j];
+                points[i][j] = score.getPlayer1Wins() * WIN_POINTS + score.getTies() * TIE_POINTS;
+                points[j][i] = score.getPlayer2Wins() * WIN_POINTS + score.getTies() * TIE_POINTS;
+                games[i][j] = score.getPlayer1Wins() + score.getPlayer2Wins() + score.getTies();
+                games[j][i] = games[i][j];
+                wins[i] += score.getPlayer1Wins();
+                wins[j] += score.getPlayer2Wins();
+                losses[i] += score.getPlayer2Wins();
+                losses[j] += score.getPlayer1Wins();
+                ties[i] += score.getTies();
+                ties[j] += score.getTies();
+            }
+        }
+        double[] ratings = EloRatings.fit(points, games);
+
+        // order the players by their ratings, best first
+        Integer[] order = new Integer[players];
+        for (int i = 0; i < players; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, (first, second) -> Double.compare(ratings[second], ratings[first]));
+
+        System.out.println(DECORATED_TABLE_MESSAGE);
+        System.out.printf(TABLE_HEADER_MESSAGE, (Object[]) TABLE_HEADERS);
+        for (int rank = 0; rank < players; rank++) {
+            int player = order[rank];
+            int played = wins[player] + losses[player] + ties[player];
+            double score = PERCENT * (wins[player] * WIN_POINTS + ties[player] * TIE_POINTS) /
+                    Math.max(played, 1);
+            System.out.printf(TABLE_ROW_MESSAGE, rank + 1, playerTypes[player], ratings[player],
+                    wins[player], losses[player], ties[player], score);
+        }
+    }
+
+    /*
+     * Print the results of every pairing and the rounds it played per second of a thread
+     */
+    private void printPairings() {
+        System.out.println(DECORATED_PAIRINGS_MESSAGE);
+        for (int i = 0; i < playerTypes.length; i++) {
+            for (int j = i + 1; j < playerTypes.length; j++) {
+                TournamentScore score = scores[i][j];
+                double seconds = Math.max(score.getPlayNanos(), 1) / NANOS_PER_SECOND;
+                System.out.printf(PAIRING_MESSAGE, playerTypes[i], playerTypes[j], score.getPlayer1Wins(),
+                        score.getPlayer2Wins(), score.getTies(), rounds / seconds);
+            }
+        }
+    }
+
+    /**
+     * Main method to run a league between several player types
+     * @param args command line arguments
+     */
+    public static void main(String[] args) {
+        if (args.length < FIRST_OPTIONAL_ARG) {
+            System.out.println(INVALID_ARGUMENTS_MESSAGE);
+            return;
+        }
+
+        // [rounds per pairing] [size] [win_streak] [players, comma separated]
+        // [optional: --board=array/bit/offheap/sparse/byte] [optional: --threads=count]
+        int rounds;
+        int size;
+        int winStreak;
+        try {
+            rounds = Integer.parseInt(args[ROUNDS_ARG]);
+            size = Integer.parseInt(args[SIZE_ARG]);
+            winStreak = Integer.parseInt(args[WIN_STREAK_ARG]);
+        } catch (NumberFormatException e) {
+            System.out.println(INVALID_ARGUMENTS_MESSAGE);
+            return;
+        }
+        String[] playerTypes = args[PLAYERS_ARG].split(LIST_SEPARATOR);
+        TournamentOptions options = TournamentOptions.parse(args, FIRST_OPTIONAL_ARG);
+
+        // Check that every player can be built and plays on its own
+        PlayerFactory playerFactory = new PlayerFactory();
+        boolean isValid = options != null && new BoardFactory().isBoardType(options.getBoardType()) &&
+                playerTypes.length > 1 && rounds > 0;
+        for (String playerType : playerTypes) {
+            isValid = isValid && !HUMAN_PLAYER.equals(playerType) &&
+                    playerFactory.buildPlayer(playerType) != null;
+        }
+        if (!isValid) {
+            System.out.println(INVALID_ARGUMENTS_MESSAGE);
+            return;
+        }
+
+        // The league uses all the processors unless asked for a number of threads
+        int threads = options.hasThreads() ? options.getThreads() :
+                Runtime.getRuntime().availableProcessors();
+        League league = new League(rounds, size, winStreak, playerTypes, options.getBoardType(), threads);
+        league.play();
+    }
+}
@@ -0,0 +1,490 @@
+import java.util.Arrays;
+
+/**
+ * The LineEvaluator class scores a position by its windows, the runs of win-streak cells in a
+ * row, a column, a diagonal or an anti-diagonal, and keeps the score up to date as marks are
+ * placed and taken back, so players don't need to read the whole board after every move.
+ * For every window it keeps how many marks of X and of O it holds. A window only one of the
+ * players has marks in is worth more to that player the more marks it holds, and a window both
+ * players have marks in is worth nothing, so the score of X is the worth of the windows of X
+ * less the worth of the windows of O.
+ * A mark changes the counts of the win-streak windows through its cell in each direction only.
+ * The evaluator also keeps, for every cell, how much a mark of each player would change the
+ * score, which costs a win streak more updates per mark, so a player can compare all its moves
+ * without trying them. A move that completes a window is worth more than any other move, and a
+ * window a single mark short of complete is worth far more than any window with fewer marks.
+ * A player keeps an evaluator between its turns by following the board of the game, which only
+ * places the moves played since the last turn and reads the whole board when it changed otherwise.
+ * @author Neriya Ben David
+ * @see GreedyPlayer
+ * @see ThreatPlayer
+ */
+public class LineEvaluator {
+
+    // constants
+    /** The win streak of the evaluator of a player that wasn't told the win streak of its game. */
+    public static final int DEFAULT_WIN_STREAK = 3;
+    private static final byte EMPTY = 0;
+    private static final byte X_CELL = 1;
+    private static final byte O_CELL = 2;
+    private static final int DIRECTIONS = CellStreaks.ROW_STEPS.length;
+    private static final int MAX_WEIGHT_SHIFT = 12;
+    private static final int WEIGHT_SHIFT_PER_MARK = 2;
+    private static final long THREAT_WEIGHT = 1L << 30;
+    private static final long WIN_WEIGHT = 1L << 40;
+
+    // fields
+    private final int size;
+    private final int winStreak;
+    private final int cellCount;
+    private final long[] weights;
+    private final byte[] cells;
+    // window counts, indexed by direction * cellCount + the first cell of the window
+    private final short[] xCounts;
+    private final short[] oCounts;
+    // the number of windows with the given number of marks of a single player
+    private final long[] xWindowsByCount;
+    private final long[] oWindowsByCount;
+    // the change of the score of a player by a mark of that player in a cell
+    private final long[] xMoveValues;
+    private final long[] oMoveValues;
+    // the number of marks of a player that share a window with a cell
+    private final int[] xMarksInReach;
+    private final int[] oMarksInReach;
+    private long score;
+    private int markCount;
+    // the board whose marks the evaluator holds, or null if the marks were placed one by one
+    private Board followedBoard;
+
+    /**
+     * Constructs a new LineEvaluator object for an empty board.
+     * @param size the size of the board
+     * @param winStreak the number of marks in a row needed to win the game
+     */
+    public LineEvaluator(int size, int winStreak) {
+        this.size = size;
+        this.winStreak = winStreak;
+        this.cellCount = size * size;
+        this.cells = new byte[cellCount];
+        this.xCounts = new short[DIRECTIONS * cellCount];
+        this.oCounts = new short[DIRECTIONS * cellCount];
+        this.xWindowsByCount = new long[winStreak + 1];
+        this.oWindowsByCount = new long[winStreak + 1];
+        this.xMoveValues = new long[cellCount];
+        this.oMoveValues = new long[cellCount];
+        this.xMarksInReach = new int[cellCount];
+        this.oMarksInReach = new int[cellCount];
+
+        this.weights = new long[winStreak + 1];
+        for (int count = 1; count <= winStreak; count++) {
+            weights[count] = 1L << Math.min(count * WEIGHT_SHIFT_PER_MARK, MAX_WEIGHT_SHIFT);
+        }
+        weights[winStreak - 1] = winStreak > 1 ? THREAT_WEIGHT : 0;
+        weights[winStreak] = WIN_WEIGHT;
+        clear();
+    }
+
+    /**
+     * Gets the size of the board.
+     * @return the size of the board
+     */
+    public int getSize() {
+        return size;
+    }
+
+    /**
+     * Gets the win streak the windows are made of.
+     * @return the number of marks in a row needed to win the game
+     */
+    public int getWinStreak() {
+        return winStreak;
+    }
+
+    /**
+     * Forgets all the marks, scoring the empty board.
+     */
+    public void clear() {
+        Arrays.fill(cells, EMPTY);
+        Arrays.fill(xCounts, (short) 0);
+        Arrays.fill(oCounts, (short) 0);
+        Arrays.fill(xWindowsByCount, 0);
+        Arrays.fill(oWindowsByCount, 0);
+        Arrays.fill(xMoveValues, 0);
+        Arrays.fill(oMoveValues, 0);
+        Arrays.fill(xMarksInReach, 0);
+        Arrays.fill(oMarksInReach, 0);
+        score = 0;
+        markCount = 0;
+        followedBoard = null;
+
+        // every window is empty, and the first mark in it is worth the same to both players
+        for (int direction = 0; direction < DIRECTIONS; direction++) {
+            int cellStep = CellStreaks.ROW_STEPS[direction] * size + CellStreaks.COL_STEPS[direction];
+            for (int row = 0; row < size; row++) {
+                for (int col = 0; col < size; col++) {
+                    if (isWindow(row, col, direction)) {
+                        xWindowsByCount[0]++;
+                        oWindowsByCount[0]++;
+                        addToMoveValues(row * size + col, cellStep, weights[1], weights[1]);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Scores all the marks of a board from scratch, forgetting the marks placed before, and
+     * follows the board from then on.
+     * @param board the board to read the marks from, of the size of the evaluator
+     */
+    public void load(Board board) {
+        clear();
+        for (int row = 0; row < size; row++) {
+            for (int col = 0; col < size; col++) {
+                Mark mark = board.getMark(row, col);
+                if (mark != Mark.BLANK) {
+                    place(row, col, mark);
+                }
+            }
+        }
+        followedBoard = board;
+    }
+
+    /**
+     * Brings the score up to date with a board: by its last move when the board is the one
+     * followed so far and that move is the only mark the evaluator is missing, and by reading
+     * the whole board otherwise, such as at the first turn of a game or on a board cleared for
+     * a new game.
+     * @param board the board of the game, of the size of the evaluator
+     */
+    public void follow(Board board) {
+        if (board == followedBoard) {
+            long missingMarks = board.getMoveCount() - markCount;
+            int row = board.getLastMoveRow();
+            int col = board.getLastMoveCol();
+            if (missingMarks == 0) {
+                return;
+            }
+            if (missingMarks == 1 && row != Board.NO_MOVE && isEmpty(row, col)) {
+                place(row, col, board.getMark(row, col));
+                return;
+            }
+        }
+        load(board);
+    }
+
+    /**
+     * Updates the score with a mark placed in an empty cell.
+     * @param row the row of the cell
+     * @param col the column of the cell
+     * @param mark the mark placed, X or O
+     */
+    public void place(int row, int col, Mark mark) {
+        byte player = mark == Mark.X ? X_CELL : O_CELL;
+        cells[row * size + col] = player;
+        markCount++;
+        updateWindows(row, col, player, 1);
+        updateReach(row, col, player, 1);
+    }
+
+    /**
+     * Updates the score with a mark taken back from a cell, undoing its placing.
+     * @param row the row of the cell
+     * @param col the column of the cell
+     * @param mark the mark taken back, X or O
+     */
+    public void remove(int row, int col, Mark mark) {
+        byte player = mark == Mark.X ? X_CELL : O_CELL;
+        updateWindows(row, col, player, -1);
+        updateReach(row, col, player, -1);
+        cells[row * size + col] = EMPTY;
+        markCount--;
+    }
+
+    /**
+     * Checks whether a cell holds no mark.
+     * @param row the row of the cell
+     * @param col the column of the cell
+     * @return true if the cell is empty, false otherwise
+     */
+    public boolean isEmpty(int row, int col) {
+        return cells[row * size + col] == EMPTY;
+    }
+
+    /**
+     * Gets the number of marks on the board.
+     * @return the number of marks
+     */
+    public int getMarkCount() {
+        return markCount;
+    }
+
+    /**
+     * Gets the score of the position for a player, the worth of its windows less the worth of
+     * the windows of its opponent.
+     * @param mark the mark of the player
+     * @return the score of the player
+     */
+    public long getScore(Mark mark) {
+        return mark == Mark.X ? score : -score;
+    }
+
+    /**
+     * Gets how much a mark of a player in an empty cell would change the score of the player.
+     * @param row the row of the cell
+     * @param col the column of the cell
+     * @param mark the mark of the player
+     * @return the change of the score of the player
+     */
+    public long getMoveValue(int row, int col, Mark mark) {
+        return mark == Mark.X ? xMoveValues[row * size + col] : oMoveValues[row * size + col];
+    }
+
+    /**
+     * Finds the empty cell a mark of a player raises its score the most by, the first such cell
+     * by rows if there are several.
+     * @param mark the mark of the player
+     * @return the cell, row * size + col, or Board.NO_MOVE if the board is full
+     */
+    public int bestCell(Mark mark) {
+        long[] moveValues = mark == Mark.X ? xMoveValues : oMoveValues;
+        int bestCell = Board.NO_MOVE;
+        long bestValue = Long.MIN_VALUE;
+        for (int cell = 0; cell < cellCount; cell++) {
+            if (cells[cell] == EMPTY && moveValues[cell] > bestValue) {
+                bestValue = moveValues[cell];
+                bestCell = cell;
+            }
+        }
+        return bestCell;
+    }
+
+    /**
+     * Gets the number of windows that hold the given number of marks of a player and no mark of
+     * its opponent. Windows holding a win streak less one marks are threats to win next move.
+     * @param mark the mark of the player
+     * @param count the number of marks of the player in the windows, from 0 to the win streak
+     * @return the number of windows
+     */
+    public long getWindowCount(Mark mark, int count) {
+        return mark == Mark.X ? xWindowsByCount[count] : oWindowsByCount[count];
+    }
+
+    /**
+     * Gets the number of marks of a player less than a win streak away from a cell along its
+     * row, its column or its diagonals. A cell with fewer such marks than a number is in no
+     * window holding that number of marks of the player, so it can be skipped cheaply.
+     * @param row the row of the cell
+     * @param col the column of the cell
+     * @param mark the mark of the player
+     * @return the number of marks of the player within reach of the cell
+     */
+    public int getMarksInReach(int row, int col, Mark mark) {
+        return mark == Mark.X ? xMarksInReach[row * size + col] : oMarksInReach[row * size + col];
+    }
+
+    /**
+     * Gets the number of windows through a cell that hold the given number of marks of a player
+     * and no mark of its opponent, reading only the counts of the windows.
+     * @param row the row of the cell
+     * @param col the column of the cell
+     * @param mark the mark of the player
+     * @param count the number of marks of the player in the windows
+     * @return the number of windows through the cell
+     */
+    public int countWindowsThrough(int row, int col, Mark mark, int count) {
+        byte player = mark == Mark.X ? X_CELL : O_CELL;
+        int windows = 0;
+        for (int direction = 0; direction < DIRECTIONS; direction++) {
+            for (int back = 0; back < winStreak; back++) {
+                int startRow = row - back * CellStreaks.ROW_STEPS[direction];
+                int startCol = col - back * CellStreaks.COL_STEPS[direction];
+                if (isWindow(startRow, startCol, direction) &&
+                        isOneSided(direction * cellCount + startRow * size + startCol, player, count)) {
+                    windows++;
+                }
+            }
+        }
+        return windows;
+    }
+
+    /**
+     * Collects the empty cells of the windows through a cell that hold the given number of marks
+     * of a player and no mark of its opponent, each cell once. These are the cells the opponent
+     * can block the windows in.
+     * @param row the row of the cell
+     * @param col the column of the cell
+     * @param mark the mark of the player
+     * @param count the number of marks of the player in the windows
+     * @param gaps the array to fill with the cells, row * size + col, of at least 4 * winStreak *
+     *             winStreak cells
+     * @return the number of cells collected
+     */
+    public int collectGaps(int row, int col, Mark mark, int count, int[] gaps) {
+        byte player = mark == Mark.X ? X_CELL : O_CELL;
+        int gapCount = 0;
+        for (int direction = 0; direction < DIRECTIONS; direction++) {
+            int cellStep = CellStreaks.ROW_STEPS[direction] * size + CellStreaks.COL_STEPS[direction];
+            for (int back = 0; back < winStreak; back++) {
+                int startRow = row - back * CellStreaks.ROW_STEPS[direction];
+                int startCol = col - back * CellStreaks.COL_STEPS[direction];
+                int start = startRow * size + startCol;
+                if (!isWindow(startRow, startCol, direction) ||
+                        !isOneSided(direction * cellCount + start, player, count)) {
+                    continue;
+                }
+                for (int i = 0, cell = start; i < winStreak; i++, cell += cellStep) {
+                    if (cells[cell] == EMPTY && !contains(gaps, gapCount, cell)) {
+                        gaps[gapCount++] = cell;
+                    }
+                }
+            }
+        }
+        return gapCount;
+    }
+
+    /*
+     * Check if a window holds the given number of marks of the player and none of its opponent
+     */
+    private boolean isOneSided(int window, byte player, int count) {
+        if (player == X_CELL) {
+            return xCounts[window] == count && oCounts[window] == 0;
+        }
+        return oCounts[window] == count && xCounts[window] == 0;
+    }
+
+    /**
+     * Checks if a cell is among the first cells of an array, for the players that collect cells
+     * alongside the gaps.
+     * @param cells the array of cells
+     * @param length the number of cells of the array to look at
+     * @param cell the cell to look for
+     * @return true if the cell is among the first cells, false otherwise
+     */
+    static boolean contains(int[] cells, int length, int cell) {
+        for (int i = 0; i < length; i++) {
+            if (cells[i] == cell) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /*
+     * Change the count of the player in all the windows through a cell by one mark
+     */
+    private void updateWindows(int row, int col, byte player, int change) {
+        for (int direction = 0; direction < DIRECTIONS; direction++) {
+            int rowStep = CellStreaks.ROW_STEPS[direction];
+            int colStep = CellStreaks.COL_STEPS[direction];
+            int cellStep = rowStep * size + colStep;
+            for (int back = 0; back < winStreak; back++) {
+                int startRow = row - back * rowStep;
+                int startCol = col - back * colStep;
+                if (isWindow(startRow, startCol, direction)) {
+                    updateWindow(startRow * size + startCol, direction, cellStep, player, change);
+                }
+            }
+        }
+    }
+
+    /*
+     * Change the number of marks of the player within reach of the cells around a cell
+     */
+    private void updateReach(int row, int col, byte player, int change) {
+        int[] marksInReach = player == X_CELL ? xMarksInReach : oMarksInReach;
+        for (int direction = 0; direction < DIRECTIONS; direction++) {
+            for (int distance = 1 - winStreak; distance < winStreak; distance++) {
+                int currentRow = row + distance * CellStreaks.ROW_STEPS[direction];
+                int currentCol = col + distance * CellStreaks.COL_STEPS[direction];
+                if (distance != 0 && isInside(currentRow, currentCol)) {
+                    marksInReach[currentRow * size + currentCol] += change;
+                }
+            }
+        }
+    }
+
+    /*
+     * Change the count of the player in a single window and update everything it is worth
+     */
+    private void updateWindow(int start, int direction, int cellStep, byte player, int change) {
+        int window = direction * cellCount + start;
+        int xCount = xCounts[window];
+        int oCount = oCounts[window];
+        int newXCount = player == X_CELL ? xCount + change : xCount;
+        int newOCount = player == O_CELL ? oCount + change : oCount;
+        xCounts[window] = (short) newXCount;
+        oCounts[window] = (short) newOCount;
+
+        countWindow(xCount, oCount, -1);
+        countWindow(newXCount, newOCount, 1);
+        score += worth(newXCount, newOCount) - worth(xCount, oCount);
+        addToMoveValues(start, cellStep, xGain(newXCount, newOCount) - xGain(xCount, oCount),
+                oGain(newXCount, newOCount) - oGain(xCount, oCount));
+    }
+
+    /*
+     * Add or take away a window from the windows of a single player by their number of marks
+     */
+    private void countWindow(int xCount, int oCount, int change) {
+        if (oCount == 0) {
+            xWindowsByCount[xCount] += change;
+        }
+        if (xCount == 0) {
+            oWindowsByCount[oCount] += change;
+        }
+    }
+
+    /*
+     * Add the changes of the move values of both players to all the cells of a window
+     */
+    private void addToMoveValues(int start, int cellStep, long xChange, long oChange) {
+        if (xChange == 0 && oChange == 0) {
+            return;
+        }
+        for (int i = 0, cell = start; i < winStreak; i++, cell += cellStep) {
+            xMoveValues[cell] += xChange;
+            oMoveValues[cell] += oChange;
+        }
+    }
+
+    /*
+     * The worth of a window to X by its counts
+     */
+    private long worth(int xCount, int oCount) {
+        if (oCount == 0) {
+            return weights[xCount];
+        }
+        return xCount == 0 ? -weights[oCount] : 0;
+    }
+
+    /*
+     * The change of the worth of a window to X by another mark of X in it, zero if it is full
+     */
+    private long xGain(int xCount, int oCount) {
+        return xCount + oCount == winStreak ? 0 : worth(xCount + 1, oCount) - worth(xCount, oCount);
+    }
+
+    /*
+     * The change of the worth of a window to O by another mark of O in it, zero if it is full
+     */
+    private long oGain(int xCount, int oCount) {
+        return xCount + oCount == winStreak ? 0 : worth(xCount, oCount) - worth(xCount, oCount + 1);
+    }
+
+    /*
+     * Check if a window of a win streak cells starts at a cell in a direction
+     */
+    private boolean isWindow(int row, int col, int direction) {
+        int endRow = row + (winStreak - 1) * CellStreaks.ROW_STEPS[direction];
+        int endCol = col + (winStreak - 1) * CellStreaks.COL_STEPS[direction];
+        return isInside(row, col) && isInside(endRow, endCol);
+    }
+
+    /*
+     * Check if a row and column are on the board
+     */
+    private boolean isInside(int row, int col) {
+        return row >= 0 && row < size && col >= 0 && col < size;
+    }
+}
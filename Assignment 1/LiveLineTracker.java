@@ -0,0 +1,192 @@
+import java.util.Arrays;
+
+/**
+ * The LiveLineTracker class follows how many winning windows of a game can still be completed.
+ * A window is a run of win-streak cells in a row, a column, a diagonal or an anti-diagonal.
+ * A window stays live for a player as long as the opponent has no mark in it, so once no
+ * window is live for either player nobody can win anymore and the game is a certain tie.
+ * The tracker keeps its own copy of the marks and is updated with every placed mark: the
+ * windows the mark closes are the ones around its cell without another mark of the same player,
+ * so only the cells up to the nearest such mark are read, which are few once the board fills up.
+ * It can also catch up with a board at once, so tracking can start in the middle of a game.
+ * @author Neriya Ben David
+ * @see Game
+ */
+public class LiveLineTracker {
+
+    // constants
+    private static final byte EMPTY = 0;
+    private static final byte X_CELL = 1;
+    private static final byte O_CELL = 2;
+
+    // fields
+    private final int size;
+    private final int winStreak;
+    private final long windowCount;
+    private final byte[] cells;
+    private long liveForX;
+    private long liveForO;
+
+    /**
+     * Constructs a new LiveLineTracker object for an empty board.
+     * @param size the size of the board
+     * @param winStreak the number of marks in a row needed to win the game
+     */
+    public LiveLineTracker(int size, int winStreak) {
+        this.size = size;
+        this.winStreak = winStreak;
+        this.windowCount = countWindows(size, winStreak);
+        this.cells = new byte[size * size];
+        clear();
+    }
+
+    /**
+     * Gets the number of winning windows of a board.
+     * @param size the size of the board
+     * @param winStreak the number of marks in a row needed to win the game
+     * @return the number of windows of the board
+     */
+    public static long countWindows(int size, int winStreak) {
+        long startsAlong = Math.max(size - winStreak + 1, 0);
+
+        // rows and columns have a full line of starts, diagonals are cut on both sides
+        return 2 * startsAlong * size + 2 * startsAlong * startsAlong;
+    }
+
+    /**
+     * Forgets all the placed marks, making all the windows live again.
+     */
+    public void clear() {
+        Arrays.fill(cells, EMPTY);
+        liveForX = windowCount;
+        liveForO = windowCount;
+    }
+
+    /**
+     * Sets the tracker by all the marks on the board, forgetting the marks placed before.
+     * Every line is scanned once by sliding a window along it, no matter the win streak.
+     * @param board the board to read the marks from, of the size of the tracker
+     */
+    public void load(Board board) {
+        clear();
+        for (int row = 0; row < size; row++) {
+            for (int col = 0; col < size; col++) {
+                cells[row * size + col] = toCell(board.getMark(row, col));
+            }
+        }
+
+        for (int direction = 0; direction < CellStreaks.ROW_STEPS.length; direction++) {
+            int rowStep = CellStreaks.ROW_STEPS[direction];
+            int colStep = CellStreaks.COL_STEPS[direction];
+            int cellStep = rowStep * size + colStep;
+            for (int row = 0; row < size; row++) {
+                for (int col = 0; col < size; col++) {
+                    // every line is scanned once, from its first cell
+                    if (!isInside(row - rowStep, col - colStep)) {
+                        loadLine(row, col, rowStep, colStep, cellStep);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Updates the live windows with a mark placed in an empty cell.
+     * @param row the row of the cell
+     * @param col the column of the cell
+     * @param mark the mark placed in the cell
+     */
+    public void place(int row, int col, Mark mark) {
+        byte player = toCell(mark);
+        cells[row * size + col] = player;
+        long closedWindows = 0;
+        for (int direction = 0; direction < CellStreaks.ROW_STEPS.length; direction++) {
+            int rowStep = CellStreaks.ROW_STEPS[direction];
+            int colStep = CellStreaks.COL_STEPS[direction];
+
+            // the windows through the cell that held no mark of the player fit between the
+            // nearest marks of the player on both sides of it
+            int free = countFree(row, col, rowStep, colStep, player) +
+                    countFree(row, col, -rowStep, -colStep, player);
+            closedWindows += Math.max(free - winStreak + 2, 0);
+        }
+
+        // the windows the mark entered first are not live anymore for its opponent
+        if (player == X_CELL) {
+            liveForO -= closedWindows;
+        } else {
+            liveForX -= closedWindows;
+        }
+    }
+
+    /**
+     * Checks whether the game can't be won by either player anymore.
+     * @return true if no window is live for X or for O, false otherwise
+     */
+    public boolean isDrawn() {
+        return liveForX == 0 && liveForO == 0;
+    }
+
+    /**
+     * Gets the number of windows the given player can still complete.
+     * @param mark the mark of the player
+     * @return the number of live windows of the player
+     */
+    public long getLiveWindows(Mark mark) {
+        return mark == Mark.X ? liveForX : liveForO;
+    }
+
+    /*
+     * Slide a window along a line and close every window that holds marks of a player
+     */
+    private void loadLine(int row, int col, int rowStep, int colStep, int cellStep) {
+        int xCount = 0;
+        int oCount = 0;
+        int length = 0;
+        for (int cell = row * size + col; isInside(row, col); row += rowStep, col += colStep, cell += cellStep) {
+            xCount += cells[cell] == X_CELL ? 1 : 0;
+            oCount += cells[cell] == O_CELL ? 1 : 0;
+            length++;
+            if (length > winStreak) {
+                int leaving = cells[cell - winStreak * cellStep];
+                xCount -= leaving == X_CELL ? 1 : 0;
+                oCount -= leaving == O_CELL ? 1 : 0;
+            }
+            if (length >= winStreak) {
+                liveForO -= xCount > 0 ? 1 : 0;
+                liveForX -= oCount > 0 ? 1 : 0;
+            }
+        }
+    }
+
+    /*
+     * Count the cells next to a cell in a single direction, up to a win streak less one, before
+     * the edge of the board or a mark of the player
+     */
+    private int countFree(int row, int col, int rowStep, int colStep, byte player) {
+        int count = 0;
+        int currentRow = row + rowStep;
+        int currentCol = col + colStep;
+        while (count < winStreak - 1 && isInside(currentRow, currentCol) &&
+                cells[currentRow * size + currentCol] != player) {
+            count++;
+            currentRow += rowStep;
+            currentCol += colStep;
+        }
+        return count;
+    }
+
+    /*
+     * Check if a row and column are on the board
+     */
+    private boolean isInside(int row, int col) {
+        return row >= 0 && row < size && col >= 0 && col < size;
+    }
+
+    /*
+     * Get the cell code of a mark
+     */
+    private static byte toCell(Mark mark) {
+        return mark == Mark.X ? X_CELL : mark == Mark.O ? O_CELL : EMPTY;
+    }
+}
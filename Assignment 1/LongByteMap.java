@@ -0,0 +1,182 @@
+import java.util.Arrays;
+
+/**
+ * The LongByteMap class maps long keys to byte values without boxing either of them.
+ * The keys are kept in a single open-addressing table probed linearly, which grows to keep
+ * at most half of its slots used, so a lookup usually reads one or two neighbouring slots.
+ * Long.MIN_VALUE marks the free slots, so it can't be used as a key.
+ * @author Neriya Ben David
+ * @see TablebaseSolver
+ */
+public class LongByteMap {
+
+    // constants
+    /** The key that marks a free slot, which can't be stored in the map. */
+    public static final long FREE_KEY = Long.MIN_VALUE;
+    private static final int MIN_CAPACITY = 16;
+    private static final int MAX_LOAD_DIVISOR = 2;
+    private static final long HASH_MULTIPLIER = 0x9E3779B97F4A7C15L;
+
+    // fields
+    private long[] keys;
+    private byte[] values;
+    private int mask;
+    private int size;
+
+    /**
+     * Constructs a new empty LongByteMap object.
+     */
+    public LongByteMap() {
+        this(MIN_CAPACITY);
+    }
+
+    /**
+     * Constructs a new empty LongByteMap object with room for the given number of keys.
+     * @param expectedSize the number of keys the map holds without growing
+     */
+    public LongByteMap(int expectedSize) {
+        int slots = Math.max(expectedSize * MAX_LOAD_DIVISOR, MIN_CAPACITY);
+        allocate(Integer.highestOneBit(slots - 1) << 1);
+    }
+
+    /**
+     * Gets the number of keys in the map.
+     * @return the number of keys
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Checks whether the map holds a key.
+     * @param key the key to look for
+     * @return true if the key is in the map, false otherwise
+     */
+    public boolean containsKey(long key) {
+        return keys[findSlot(key)] == key;
+    }
+
+    /**
+     * Gets the value of a key.
+     * @param key the key to look for
+     * @param defaultValue the value to return if the key is not in the map
+     * @return the value of the key, or the default value if the key is not in the map
+     */
+    public byte get(long key, byte defaultValue) {
+        int slot = findSlot(key);
+        return keys[slot] == key ? values[slot] : defaultValue;
+    }
+
+    /**
+     * Sets the value of a key, adding the key if it is not in the map.
+     * @param key the key, anything but FREE_KEY
+     * @param value the value of the key
+     */
+    public void put(long key, byte value) {
+        int slot = findSlot(key);
+        if (keys[slot] != key) {
+            if ((size + 1) * MAX_LOAD_DIVISOR > keys.length) {
+                grow();
+                slot = findSlot(key);
+            }
+            keys[slot] = key;
+            size++;
+        }
+        values[slot] = value;
+    }
+
+    /**
+     * Removes a key from the map.
+     * @param key the key to remove
+     * @return true if the key was in the map, false otherwise
+     */
+    public boolean remove(long key) {
+        int slot = findSlot(key);
+        if (keys[slot] != key) {
+            return false;
+        }
+        keys[slot] = FREE_KEY;
+        size--;
+
+        // move back the keys after the slot that can't be found past the free slot anymore
+        int free = slot;
+        for (int next = (slot + 1) & mask; keys[next] != FREE_KEY; next = (next + 1) & mask) {
+            int home = slotOf(keys[next]);
+            if (((next - home) & mask) >= ((next - free) & mask)) {
+                keys[free] = keys[next];
+                values[free] = values[next];
+                keys[next] = FREE_KEY;
+                free = next;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Removes all the keys from the map, keeping its capacity.
+     */
+    public void clear() {
+        Arrays.fill(keys, FREE_KEY);
+        size = 0;
+    }
+
+    /**
+     * Gets all the keys of the map, in no particular order.
+     * @return a new array of the keys
+     */
+    public long[] keys() {
+        long[] result = new long[size];
+        int count = 0;
+        for (long key : keys) {
+            if (key != FREE_KEY) {
+                result[count++] = key;
+            }
+        }
+        return result;
+    }
+
+    /*
+     * Find the slot that holds the key, or the free slot where it would be added
+     */
+    private int findSlot(long key) {
+        int slot = slotOf(key);
+        while (keys[slot] != key && keys[slot] != FREE_KEY) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    /*
+     * Get the first slot a key is looked for in
+     */
+    private int slotOf(long key) {
+        long hash = key * HASH_MULTIPLIER;
+        return (int) (hash ^ (hash >>> Integer.SIZE)) & mask;
+    }
+
+    /*
+     * Double the capacity of the table and add all the keys to it again
+     */
+    private void grow() {
+        long[] oldKeys = keys;
+        byte[] oldValues = values;
+        allocate(keys.length * MAX_LOAD_DIVISOR);
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != FREE_KEY) {
+                int slot = findSlot(oldKeys[i]);
+                keys[slot] = oldKeys[i];
+                values[slot] = oldValues[i];
+            }
+        }
+    }
+
+    /*
+     * Allocate an empty table of the given capacity, a power of two
+     */
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        values = new byte[capacity];
+        mask = capacity - 1;
+        Arrays.fill(keys, FREE_KEY);
+    }
+}
@@ -0,0 +1,228 @@
+import java.util.Arrays;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * The MctsPlayer class represents a player that chooses its moves by Monte Carlo tree search.
+ * The position of every move is searched by one worker per thread, each of them growing its
+ * own tree with random playouts on the common fork-join pool, and the move visited the most
+ * over all the trees is played. Winning moves, and moves that block a winning move of the
+ * opponent, are played without searching.
+ * A move is searched until its playout budget or its time budget is spent, or until the thread
+ * of the player is interrupted, which stops the workers at the end of their current playouts.
+ * @author Neriya Ben David
+ * @see Player
+ * @see SearchingPlayer
+ * @see MctsWorker
+ */
+public class MctsPlayer implements SearchingPlayer {
+
+    // constants
+    private static final long DEFAULT_MOVE_TIME_MILLIS = 100;
+    private static final int DEFAULT_WIN_STREAK = 3;
+    private static final long NANOS_PER_MILLI = 1_000_000L;
+    private static final String SEARCH_UNIT = "playouts";
+    private static final long NO_BUDGET = 0;
+    private static final int NO_MOVE = -1;
+
+    // settings
+    private final long playoutBudget;
+    private final long moveTimeNanos;
+    private final int threads;
+    private final SearchStatistics statistics;
+
+    // position of the move, shared by the workers
+    private int size;
+    private int winStreak;
+    private byte[] cells;
+    private int[] emptyCells;
+    private int[] emptyPositions;
+    private long[] visitsByCell;
+    private MctsWorker[] workers;
+    private ForkJoinTask<?>[] tasks;
+
+    /**
+     * Constructs a new MctsPlayer object that searches every move for the default time budget
+     * on all the available processors.
+     */
+    public MctsPlayer() {
+        this(NO_BUDGET, DEFAULT_MOVE_TIME_MILLIS, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Constructs a new MctsPlayer object.
+     * @param playoutBudget the number of playouts of a move over all threads, or 0 for no limit
+     * @param moveTimeMillis the time budget of a move in milliseconds, or 0 for no limit
+     * @param threads the number of trees searched in parallel
+     */
+    public MctsPlayer(long playoutBudget, long moveTimeMillis, int threads) {
+        if (playoutBudget <= NO_BUDGET && moveTimeMillis <= NO_BUDGET) {
+            moveTimeMillis = DEFAULT_MOVE_TIME_MILLIS;
+        }
+        this.playoutBudget = Math.max(playoutBudget, NO_BUDGET);
+        this.moveTimeNanos = Math.max(moveTimeMillis, NO_BUDGET) * NANOS_PER_MILLI;
+        this.threads = Math.max(threads, 1);
+        this.statistics = new SearchStatistics(SEARCH_UNIT);
+    }
+
+    /**
+     * Prepares the workers for the board size and win streak of the new game.
+     * @param board the board the game is played on
+     * @param winStreak the number of marks in a row needed to win the game
+     */
+    @Override
+    public void startGame(Board board, int winStreak) {
+        if (board.getSize() != size || winStreak != this.winStreak) {
+            initializeSearch(board.getSize(), winStreak);
+        }
+    }
+
+    /**
+     * Play a turn by searching the position with random playouts and playing the move
+     * visited the most.
+     * @param board game board to play on
+     * @param mark mark to put on board
+     */
+    @Override
+    public void playTurn(Board board, Mark mark) {
+        long startTime = System.nanoTime();
+        if (board.getSize() != size || workers == null) {
+            initializeSearch(board.getSize(), winStreak == 0 ? DEFAULT_WIN_STREAK : winStreak);
+        }
+        int emptyCount = loadPosition(board);
+        byte player = mark == Mark.X ? MctsWorker.X_CELL : MctsWorker.O_CELL;
+
+        int move = findWinningMove(emptyCount, player);
+        if (move == NO_MOVE) {
+            move = findWinningMove(emptyCount, player == MctsWorker.X_CELL ? MctsWorker.O_CELL :
+                    MctsWorker.X_CELL);
+        }
+        long playouts = 0;
+        int depth = 0;
+        if (move == NO_MOVE) {
+            search(emptyCount, player, startTime);
+            move = mostVisitedMove(emptyCount);
+            for (MctsWorker worker : workers) {
+                playouts += worker.getPlayouts();
+                depth = Math.max(depth, worker.getMaxDepth());
+            }
+        }
+
+        board.putMark(mark, move / size, move % size);
+        statistics.addSearch(playouts, System.nanoTime() - startTime, depth);
+    }
+
+    /**
+     * Gets the statistics of all the searches the player made so far.
+     * @return the search statistics of the player
+     */
+    @Override
+    public SearchStatistics getSearchStatistics() {
+        return statistics;
+    }
+
+    /*
+     * Run all the workers on the position in parallel, and stop them and wait for them if the
+     * thread of the player is interrupted meanwhile, since the pool threads are not interrupted
+     */
+    private void search(int emptyCount, byte player, long startTime) {
+        long deadline = moveTimeNanos == 0 ? 0 : startTime + moveTimeNanos;
+        long workerBudget = playoutBudget == NO_BUDGET ? NO_BUDGET :
+                Math.max(playoutBudget / workers.length, 1);
+        for (int i = 0; i < workers.length; i++) {
+            workers[i].setSearch(cells, emptyCells, emptyPositions, emptyCount, player, workerBudget,
+                    deadline);
+            tasks[i] = ForkJoinTask.adapt(workers[i]);
+        }
+        if (ForkJoinTask.inForkJoinPool()) {
+            ForkJoinTask.invokeAll(tasks);
+        } else {
+            ForkJoinTask<?> search = ForkJoinPool.commonPool().submit(() -> ForkJoinTask.invokeAll(tasks));
+            try {
+                search.get();
+            } catch (InterruptedException e) {
+                for (MctsWorker worker : workers) {
+                    worker.stop();
+                }
+                Thread.currentThread().interrupt();
+            } catch (ExecutionException e) {
+                // rethrown as it was by the join below
+            }
+            search.join();
+        }
+    }
+
+    /*
+     * Sum the visits of the root moves of all the trees and return the most visited move
+     */
+    private int mostVisitedMove(int emptyCount) {
+        Arrays.fill(visitsByCell, 0);
+        for (MctsWorker worker : workers) {
+            worker.addRootVisits(visitsByCell);
+        }
+        int bestMove = emptyCells[0];
+        for (int i = 0; i < emptyCount; i++) {
+            if (visitsByCell[emptyCells[i]] > visitsByCell[bestMove]) {
+                bestMove = emptyCells[i];
+            }
+        }
+        return bestMove;
+    }
+
+    /*
+     * Find an empty cell that wins the game right away, returns NO_MOVE if there is none
+     */
+    private int findWinningMove(int emptyCount, byte player) {
+        for (int i = 0; i < emptyCount; i++) {
+            int cell = emptyCells[i];
+            cells[cell] = player;
+            boolean isWinning = CellStreaks.isWinningMove(cells, size, winStreak, cell, player);
+            cells[cell] = MctsWorker.EMPTY;
+            if (isWinning) {
+                return cell;
+            }
+        }
+        return NO_MOVE;
+    }
+
+    /*
+     * Copy the board into the shared position and return the number of empty cells
+     */
+    private int loadPosition(Board board) {
+        int emptyCount = 0;
+        for (int row = 0; row < size; row++) {
+            for (int col = 0; col < size; col++) {
+                int cell = row * size + col;
+                Mark mark = board.getMark(row, col);
+                if (mark == Mark.BLANK) {
+                    cells[cell] = MctsWorker.EMPTY;
+                    emptyCells[emptyCount] = cell;
+                    emptyPositions[cell] = emptyCount;
+                    emptyCount++;
+                } else {
+                    cells[cell] = mark == Mark.X ? MctsWorker.X_CELL : MctsWorker.O_CELL;
+                }
+            }
+        }
+        return emptyCount;
+    }
+
+    /*
+     * Allocate the shared position and the workers for a board size and win streak
+     */
+    private void initializeSearch(int size, int winStreak) {
+        this.size = size;
+        this.winStreak = winStreak;
+        int cellCount = size * size;
+        this.cells = new byte[cellCount];
+        this.emptyCells = new int[cellCount];
+        this.emptyPositions = new int[cellCount];
+        this.visitsByCell = new long[cellCount];
+        this.workers = new MctsWorker[threads];
+        this.tasks = new ForkJoinTask<?>[threads];
+        for (int i = 0; i < threads; i++) {
+            workers[i] = new MctsWorker(size, winStreak, System.nanoTime() + i);
+        }
+    }
+}
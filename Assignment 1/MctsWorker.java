@@ -0,0 +1,310 @@
+import java.util.SplittableRandom;
+
+/**
+ * The MctsWorker class grows a single Monte Carlo search tree from the position of a move.
+ * Every iteration walks down the tree by the UCT rule, expands the reached node and plays a
+ * random game to the end on a scratch copy of the position. The tree nodes and the scratch
+ * position are allocated once and reused for every iteration and every move, so a playout
+ * doesn't allocate anything. Several workers search the same position in parallel, each with
+ * its own tree, and the player sums the visits of their root moves.
+ * @author Neriya Ben David
+ * @see MctsPlayer
+ */
+public class MctsWorker implements Runnable {
+
+    // constants
+    private static final int MAX_NODES = 1 << 17;
+    private static final int ROOT = 0;
+    private static final int NO_CHILDREN = -1;
+    private static final double EXPLORATION = Math.sqrt(2);
+    private static final float WIN_RESULT = 1f;
+    private static final float DRAW_RESULT = 0.5f;
+
+    // cell codes, shared with the player
+    static final byte EMPTY = 0;
+    static final byte X_CELL = 1;
+    static final byte O_CELL = 2;
+
+    // board settings
+    private final int size;
+    private final int winStreak;
+    private final SplittableRandom random;
+
+    // tree nodes, node i moved into cell nodeMoves[i] and its children are kept one after another
+    private final int[] nodeMoves;
+    private final int[] firstChildren;
+    private final int[] childCounts;
+    private final int[] visits;
+    private final float[] results;
+    private final int[] path;
+    private int nodeCount;
+
+    // scratch position, the empty cells kept packed with the position of every cell among them
+    private final byte[] cells;
+    private final int[] emptyCells;
+    private final int[] emptyPositions;
+    private int emptyCount;
+
+    // position and budget of the current move, set by the player
+    private byte[] rootCells;
+    private int[] rootEmptyCells;
+    private int[] rootEmptyPositions;
+    private int rootEmptyCount;
+    private byte rootPlayer;
+    private long playoutBudget;
+    private long deadline;
+    // set by the player from its own thread when it is interrupted, which the pool threads aren't
+    private volatile boolean stopped;
+
+    // results of the current move
+    private long playouts;
+    private int maxDepth;
+
+    /**
+     * Constructs a new MctsWorker object.
+     * @param size the size of the board
+     * @param winStreak the number of marks in a row needed to win the game
+     * @param seed the seed of the random playouts of the worker
+     */
+    public MctsWorker(int size, int winStreak, long seed) {
+        this.size = size;
+        this.winStreak = winStreak;
+        this.random = new SplittableRandom(seed);
+        int cellCount = size * size;
+        this.nodeMoves = new int[MAX_NODES];
+        this.firstChildren = new int[MAX_NODES];
+        this.childCounts = new int[MAX_NODES];
+        this.visits = new int[MAX_NODES];
+        this.results = new float[MAX_NODES];
+        this.path = new int[cellCount + 1];
+        this.cells = new byte[cellCount];
+        this.emptyCells = new int[cellCount];
+        this.emptyPositions = new int[cellCount];
+    }
+
+    /**
+     * Sets the position and the budget of the next search. The position arrays are only read.
+     * @param cells the cells of the position
+     * @param emptyCells the empty cells of the position, packed at the start of the array
+     * @param emptyPositions the position of every empty cell in the emptyCells array
+     * @param emptyCount the number of empty cells
+     * @param player the cell code of the player to move
+     * @param playoutBudget the number of playouts to run, or 0 to run until the deadline
+     * @param deadline the System.nanoTime() after which the search stops, or 0 for no deadline
+     */
+    public void setSearch(byte[] cells, int[] emptyCells, int[] emptyPositions, int emptyCount,
+                          byte player, long playoutBudget, long deadline) {
+        this.rootCells = cells;
+        this.rootEmptyCells = emptyCells;
+        this.rootEmptyPositions = emptyPositions;
+        this.rootEmptyCount = emptyCount;
+        this.rootPlayer = player;
+        this.playoutBudget = playoutBudget;
+        this.deadline = deadline;
+        this.stopped = false;
+    }
+
+    /**
+     * Stops the search at the end of the current playout, from any thread.
+     */
+    public void stop() {
+        stopped = true;
+    }
+
+    /**
+     * Runs the search until the playout budget or the deadline is reached.
+     */
+    @Override
+    public void run() {
+        nodeCount = 1;
+        nodeMoves[ROOT] = NO_CHILDREN;
+        firstChildren[ROOT] = NO_CHILDREN;
+        childCounts[ROOT] = 0;
+        visits[ROOT] = 0;
+        results[ROOT] = 0;
+        playouts = 0;
+        maxDepth = 0;
+
+        while (!isBudgetSpent()) {
+            runIteration();
+            playouts++;
+        }
+    }
+
+    /**
+     * Adds the visits of every root move of the last search to the given counts.
+     * @param visitsByCell the visit counts to add to, indexed by cell
+     */
+    public void addRootVisits(long[] visitsByCell) {
+        for (int i = 0; i < childCounts[ROOT]; i++) {
+            int child = firstChildren[ROOT] + i;
+            visitsByCell[nodeMoves[child]] += visits[child];
+        }
+    }
+
+    /**
+     * Gets the number of playouts of the last search.
+     * @return the number of playouts
+     */
+    public long getPlayouts() {
+        return playouts;
+    }
+
+    /**
+     * Gets the deepest tree depth reached by the last search.
+     * @return the deepest tree depth
+     */
+    public int getMaxDepth() {
+        return maxDepth;
+    }
+
+    /*
+     * Select a leaf, expand it, play a random game from it and update the nodes on the way
+     */
+    private void runIteration() {
+        resetScratch();
+        int node = ROOT;
+        int depth = 0;
+        byte player = rootPlayer;
+        byte winner = EMPTY;
+        boolean isOver = false;
+        path[0] = ROOT;
+
+        // walk down the tree, expanding the first node visited for the second time
+        while (!isOver) {
+            if (childCounts[node] == 0) {
+                if (visits[node] == 0 || !expand(node)) {
+                    break;
+                }
+            }
+            node = selectChild(node);
+            int cell = nodeMoves[node];
+            play(cell, player);
+            path[++depth] = node;
+            if (CellStreaks.isWinningMove(cells, size, winStreak, cell, player)) {
+                winner = player;
+                isOver = true;
+            } else if (emptyCount == 0) {
+                isOver = true;
+            }
+            player = opponentOf(player);
+        }
+        maxDepth = Math.max(maxDepth, depth);
+
+        if (!isOver) {
+            winner = playout(player);
+        }
+
+        // the result of a node is counted for the player that moved into it
+        byte mover = opponentOf(rootPlayer);
+        for (int i = 0; i <= depth; i++) {
+            int pathNode = path[i];
+            visits[pathNode]++;
+            if (winner == mover) {
+                results[pathNode] += WIN_RESULT;
+            } else if (winner == EMPTY) {
+                results[pathNode] += DRAW_RESULT;
+            }
+            mover = opponentOf(mover);
+        }
+    }
+
+    /*
+     * Add a child to the node for every empty cell, returns false if there is no room
+     */
+    private boolean expand(int node) {
+        if (emptyCount == 0 || nodeCount + emptyCount > MAX_NODES) {
+            return false;
+        }
+        firstChildren[node] = nodeCount;
+        childCounts[node] = emptyCount;
+        for (int i = 0; i < emptyCount; i++) {
+            int child = nodeCount++;
+            nodeMoves[child] = emptyCells[i];
+            firstChildren[child] = NO_CHILDREN;
+            childCounts[child] = 0;
+            visits[child] = 0;
+            results[child] = 0;
+        }
+        return true;
+    }
+
+    /*
+     * Select the child with the highest UCT value, trying unvisited children first
+     */
+    private int selectChild(int node) {
+        int first = firstChildren[node];
+        double logVisits = Math.log(visits[node]);
+        int bestChild = first;
+        double bestValue = Double.NEGATIVE_INFINITY;
+        for (int child = first; child < first + childCounts[node]; child++) {
+            if (visits[child] == 0) {
+                return child;
+            }
+            double value = results[child] / visits[child] +
+                    EXPLORATION * Math.sqrt(logVisits / visits[child]);
+            if (value > bestValue) {
+                bestValue = value;
+                bestChild = child;
+            }
+        }
+        return bestChild;
+    }
+
+    /*
+     * Play random moves until the game is over, returns the winner or EMPTY for a tie
+     */
+    private byte playout(byte player) {
+        while (emptyCount > 0) {
+            int cell = emptyCells[random.nextInt(emptyCount)];
+            play(cell, player);
+            if (CellStreaks.isWinningMove(cells, size, winStreak, cell, player)) {
+                return player;
+            }
+            player = opponentOf(player);
+        }
+        return EMPTY;
+    }
+
+    /*
+     * Put a mark in an empty cell of the scratch position
+     */
+    private void play(int cell, byte player) {
+        cells[cell] = player;
+
+        // move the last empty cell into the place of the taken one
+        emptyCount--;
+        int position = emptyPositions[cell];
+        int lastCell = emptyCells[emptyCount];
+        emptyCells[position] = lastCell;
+        emptyPositions[lastCell] = position;
+    }
+
+    /*
+     * Copy the position of the move into the scratch position
+     */
+    private void resetScratch() {
+        System.arraycopy(rootCells, 0, cells, 0, cells.length);
+        System.arraycopy(rootEmptyCells, 0, emptyCells, 0, rootEmptyCount);
+        System.arraycopy(rootEmptyPositions, 0, emptyPositions, 0, emptyPositions.length);
+        emptyCount = rootEmptyCount;
+    }
+
+    /*
+     * Check if the playout budget or the deadline of the search was reached, or the search was
+     * stopped or interrupted
+     */
+    private boolean isBudgetSpent() {
+        if (stopped || (playoutBudget > 0 && playouts >= playoutBudget)) {
+            return true;
+        }
+        return (deadline != 0 && System.nanoTime() > deadline) || Thread.currentThread().isInterrupted();
+    }
+
+    /*
+     * Get the cell code of the other player
+     */
+    private static byte opponentOf(byte player) {
+        return player == X_CELL ? O_CELL : X_CELL;
+    }
+}
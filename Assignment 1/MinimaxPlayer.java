@@ -0,0 +1,516 @@
+import java.util.Arrays;
+
+/**
+ * The MinimaxPlayer class represents a player that searches the game tree with iterative
+ * deepening alpha-beta search to choose its moves.
+ * Positions are identified by a Zobrist key that is the same for all their rotations and
+ * reflections, and their results are kept in a fixed-size transposition table, the best move
+ * of an entry kept in the canonical form of its position. Moves are tried from the one closest
+ * to the last move outwards, and only empty cells near marks already on the board are
+ * considered. Every move is searched
+ * deeper and deeper until the time budget of the move runs out, and the best move of the
+ * deepest finished search is played.
+ * @author Neriya Ben David
+ * @see Player
+ * @see SearchingPlayer
+ */
+public class MinimaxPlayer implements SearchingPlayer {
+
+    // constants
+    private static final long DEFAULT_MOVE_TIME_MILLIS = 100;
+    private static final int DEFAULT_WIN_STREAK = 3;
+    private static final long NANOS_PER_MILLI = 1_000_000L;
+    private static final String SEARCH_UNIT = "nodes";
+    private static final int TABLE_SIZE_BITS = 19;
+    private static final int WIN_SCORE = 1 << 30;
+    private static final int WIN_THRESHOLD = WIN_SCORE >> 1;
+    private static final int INFINITE_SCORE = WIN_SCORE + 1;
+    private static final int CANDIDATE_DISTANCE = 2;
+    private static final int MAX_WINDOW_WEIGHT_SHIFT = 12;
+    private static final int WINDOW_WEIGHT_SHIFT_PER_MARK = 2;
+    private static final int NO_MOVE = -1;
+    private static final int TWO_BASE_NUMBER = 2;
+
+    // cell codes
+    private static final byte EMPTY = 0;
+    private static final byte X_CELL = 1;
+    private static final byte O_CELL = 2;
+    private static final Mark[] MARKS = {Mark.BLANK, Mark.X, Mark.O};
+
+    // transposition table entry types
+    private static final byte EXACT = 0;
+    private static final byte LOWER_BOUND = 1;
+    private static final byte UPPER_BOUND = 2;
+
+    // settings
+    private final long moveTimeNanos;
+    private final SearchStatistics statistics;
+
+    // transposition table
+    private final int tableMask;
+    private final long[] tableKeys;
+    private final int[] tableScores;
+    private final int[] tableMoves;
+    private final short[] tableDepths;
+    private final byte[] tableTypes;
+
+    // position being searched
+    private int size;
+    private int winStreak;
+    private byte[] cells;
+    private int[] neighbours;
+    private SymmetricHasher hasher;
+    private int emptyCount;
+    private int[][] movesByPly;
+    private int[][] orderKeysByPly;
+    private int[] windowWeights;
+
+    // search state
+    private long nodes;
+    private long deadline;
+    private boolean aborted;
+    private int lastRootScore;
+
+    /**
+     * Constructs a new MinimaxPlayer object with the default time budget per move.
+     */
+    public MinimaxPlayer() {
+        this(DEFAULT_MOVE_TIME_MILLIS);
+    }
+
+    /**
+     * Constructs a new MinimaxPlayer object.
+     * @param moveTimeMillis the time budget of a single move in milliseconds
+     */
+    public MinimaxPlayer(long moveTimeMillis) {
+        this.moveTimeNanos = moveTimeMillis * NANOS_PER_MILLI;
+        this.statistics = new SearchStatistics(SEARCH_UNIT);
+        int tableSize = 1 << TABLE_SIZE_BITS;
+        this.tableMask = tableSize - 1;
+        this.tableKeys = new long[tableSize];
+        this.tableScores = new int[tableSize];
+        this.tableMoves = new int[tableSize];
+        this.tableDepths = new short[tableSize];
+        this.tableTypes = new byte[tableSize];
+        this.size = 0;
+        this.winStreak = 0;
+    }
+
+    /**
+     * Prepares the search structures for the board size and win streak of the new game.
+     * @param board the board the game is played on
+     * @param winStreak the number of marks in a row needed to win the game
+     */
+    @Override
+    public void startGame(Board board, int winStreak) {
+        if (board.getSize() != size || winStreak != this.winStreak) {
+            initializeSearch(board.getSize(), winStreak);
+        }
+    }
+
+    /**
+     * Play a turn by searching the game tree for the best move within the time budget.
+     * @param board game board to play on
+     * @param mark mark to put on board
+     */
+    @Override
+    public void playTurn(Board board, Mark mark) {
+        long startTime = System.nanoTime();
+        if (board.getSize() != size || cells == null) {
+            initializeSearch(board.getSize(), winStreak == 0 ? DEFAULT_WIN_STREAK : winStreak);
+        }
+        loadPosition(board);
+        byte player = mark == Mark.X ? X_CELL : O_CELL;
+        int lastMove = board.getLastMoveRow() == Board.NO_MOVE ? NO_MOVE :
+                board.getLastMoveRow() * size + board.getLastMoveCol();
+
+        nodes = 0;
+        aborted = false;
+        deadline = startTime + moveTimeNanos;
+
+        // deepen the search until the time runs out or the result of the game is known
+        int bestMove = NO_MOVE;
+        int depth = 0;
+        while (depth < emptyCount) {
+            int move = searchRoot(depth + 1, player, lastMove, bestMove);
+            if (aborted) {
+                break;
+            }
+            depth++;
+            bestMove = move;
+            if (Math.abs(lastRootScore) >= WIN_THRESHOLD) {
+                break;
+            }
+        }
+        if (bestMove == NO_MOVE) {
+            bestMove = firstCandidate(lastMove);
+        }
+
+        board.putMark(mark, bestMove / size, bestMove % size);
+        statistics.addSearch(nodes, System.nanoTime() - startTime, depth);
+    }
+
+    /**
+     * Gets the statistics of all the searches the player made so far.
+     * @return the search statistics of the player
+     */
+    @Override
+    public SearchStatistics getSearchStatistics() {
+        return statistics;
+    }
+
+    /*
+     * Search all the moves of the root position to the given depth and return the best one
+     */
+    private int searchRoot(int depth, byte player, int lastMove, int previousBest) {
+        int[] moves = movesAt(0);
+        int moveCount = generateMoves(moves, orderKeysByPly[0], previousBest, lastMove);
+        byte opponent = opponentOf(player);
+        int alpha = -INFINITE_SCORE;
+        int bestMove = NO_MOVE;
+
+        for (int i = 0; i < moveCount; i++) {
+            int move = moves[i];
+            place(move, player);
+            int score = CellStreaks.isWinningMove(cells, size, winStreak, move, player) ?
+                    WIN_SCORE - 1 : -search(depth - 1, -INFINITE_SCORE, -alpha, opponent, 1, move);
+            remove(move, player);
+            if (aborted) {
+                return NO_MOVE;
+            }
+            if (score > alpha) {
+                alpha = score;
+                bestMove = move;
+            }
+        }
+        lastRootScore = alpha;
+        return bestMove;
+    }
+
+    /*
+     * Negamax alpha-beta search, returns the score of the position for the player to move
+     */
+    private int search(int depth, int alpha, int beta, byte player, int ply, int lastMove) {
+        nodes++;
+        if (isOutOfTime()) {
+            aborted = true;
+        }
+        if (aborted || emptyCount == 0) {
+            return 0;
+        }
+        if (depth == 0) {
+            return evaluate(player);
+        }
+
+        // use the transposition table to cut the search or to order the moves
+        int originalAlpha = alpha;
+        long hash = hasher.getKey();
+        int slot = (int) hash & tableMask;
+        int tableMove = NO_MOVE;
+        if (tableKeys[slot] == hash) {
+            tableMove = hasher.fromCanonicalCell(tableMoves[slot]);
+            if (tableDepths[slot] >= depth) {
+                int score = fromTableScore(tableScores[slot], ply);
+                if (tableTypes[slot] == EXACT) {
+                    return score;
+                } else if (tableTypes[slot] == LOWER_BOUND) {
+                    alpha = Math.max(alpha, score);
+                } else {
+                    beta = Math.min(beta, score);
+                }
+                if (alpha >= beta) {
+                    return score;
+                }
+            }
+        }
+
+        int[] moves = movesAt(ply);
+        int moveCount = generateMoves(moves, orderKeysByPly[ply], tableMove, lastMove);
+        byte opponent = opponentOf(player);
+        int bestScore = -INFINITE_SCORE;
+        int bestMove = NO_MOVE;
+
+        for (int i = 0; i < moveCount; i++) {
+            int move = moves[i];
+            place(move, player);
+            int score = CellStreaks.isWinningMove(cells, size, winStreak, move, player) ?
+                    WIN_SCORE - ply - 1 : -search(depth - 1, -beta, -alpha, opponent, ply + 1, move);
+            remove(move, player);
+            if (aborted) {
+                return 0;
+            }
+            if (score > bestScore) {
+                bestScore = score;
+                bestMove = move;
+            }
+            alpha = Math.max(alpha, score);
+            if (alpha >= beta) {
+                break;
+            }
+        }
+
+        storeInTable(hash, slot, depth, ply, bestScore, bestMove, originalAlpha, beta);
+        return bestScore;
+    }
+
+    /*
+     * Keep the result of a search in the transposition table
+     */
+    private void storeInTable(long hash, int slot, int depth, int ply, int score, int move, int alpha,
+                              int beta) {
+        if (tableKeys[slot] == hash && tableDepths[slot] > depth) {
+            return;
+        }
+        tableKeys[slot] = hash;
+        tableScores[slot] = toTableScore(score, ply);
+        tableMoves[slot] = move == NO_MOVE ? NO_MOVE : hasher.toCanonicalCell(move);
+        tableDepths[slot] = (short) Math.min(depth, Short.MAX_VALUE);
+        if (score <= alpha) {
+            tableTypes[slot] = UPPER_BOUND;
+        } else if (score >= beta) {
+            tableTypes[slot] = LOWER_BOUND;
+        } else {
+            tableTypes[slot] = EXACT;
+        }
+    }
+
+    /*
+     * Winning scores are kept in the table relative to the stored position, not to the root
+     */
+    private static int toTableScore(int score, int ply) {
+        if (score >= WIN_THRESHOLD) {
+            return score + ply;
+        }
+        if (score <= -WIN_THRESHOLD) {
+            return score - ply;
+        }
+        return score;
+    }
+
+    /*
+     * Convert a score read from the table back to be relative to the root
+     */
+    private static int fromTableScore(int score, int ply) {
+        if (score >= WIN_THRESHOLD) {
+            return score - ply;
+        }
+        if (score <= -WIN_THRESHOLD) {
+            return score + ply;
+        }
+        return score;
+    }
+
+    /*
+     * Fill the moves to search, the preferred move first and the rest by their distance from
+     * the last move, and return their number
+     */
+    private int generateMoves(int[] moves, int[] orderKeys, int preferredMove, int lastMove) {
+        int moveCount = 0;
+        boolean isBoardEmpty = emptyCount == cells.length;
+        for (int cell = 0; cell < cells.length; cell++) {
+            if (cells[cell] != EMPTY || (!isBoardEmpty && neighbours[cell] == 0)) {
+                continue;
+            }
+            int orderKey = cell == preferredMove ? NO_MOVE : distance(cell, lastMove, isBoardEmpty);
+
+            // insert the move in its place among the moves found so far
+            int position = moveCount;
+            while (position > 0 && orderKeys[position - 1] > orderKey) {
+                moves[position] = moves[position - 1];
+                orderKeys[position] = orderKeys[position - 1];
+                position--;
+            }
+            moves[position] = cell;
+            orderKeys[position] = orderKey;
+            moveCount++;
+        }
+        return moveCount;
+    }
+
+    /*
+     * The first move the search would try, used when there was no time to finish any search
+     */
+    private int firstCandidate(int lastMove) {
+        generateMoves(movesAt(0), orderKeysByPly[0], NO_MOVE, lastMove);
+        return movesByPly[0][0];
+    }
+
+    /*
+     * The distance of a cell from the last move, or from the center of an empty board
+     */
+    private int distance(int cell, int lastMove, boolean isBoardEmpty) {
+        int fromRow = size / TWO_BASE_NUMBER;
+        int fromCol = size / TWO_BASE_NUMBER;
+        if (!isBoardEmpty && lastMove != NO_MOVE) {
+            fromRow = lastMove / size;
+            fromCol = lastMove % size;
+        }
+        return Math.max(Math.abs(cell / size - fromRow), Math.abs(cell % size - fromCol));
+    }
+
+    /*
+     * Score a position for the player to move by the windows of a winning streak length that
+     * only one of the players has marks in, the more marks the higher the score
+     */
+    private int evaluate(byte player) {
+        long score = 0;
+        for (int direction = 0; direction < CellStreaks.ROW_STEPS.length; direction++) {
+            int rowStep = CellStreaks.ROW_STEPS[direction];
+            int colStep = CellStreaks.COL_STEPS[direction];
+            for (int row = 0; row < size; row++) {
+                for (int col = 0; col < size; col++) {
+                    // every line is scored once, from its first cell
+                    if (!isInside(row - rowStep, col - colStep)) {
+                        score += evaluateLine(row, col, rowStep, colStep);
+                    }
+                }
+            }
+        }
+        // a heuristic score must never look like a won game
+        int boundedScore = (int) Math.max(Math.min(score, WIN_THRESHOLD - 1), 1 - WIN_THRESHOLD);
+        return player == X_CELL ? boundedScore : -boundedScore;
+    }
+
+    /*
+     * Score the windows of a single line for X, sliding a window along the line
+     */
+    private int evaluateLine(int row, int col, int rowStep, int colStep) {
+        int score = 0;
+        int xCount = 0;
+        int oCount = 0;
+        int length = 0;
+        int tailRow = row;
+        int tailCol = col;
+        while (isInside(row, col)) {
+            byte cell = cells[row * size + col];
+            xCount += cell == X_CELL ? 1 : 0;
+            oCount += cell == O_CELL ? 1 : 0;
+            length++;
+
+            // drop the cell that left the window
+            if (length > winStreak) {
+                byte tail = cells[tailRow * size + tailCol];
+                xCount -= tail == X_CELL ? 1 : 0;
+                oCount -= tail == O_CELL ? 1 : 0;
+                tailRow += rowStep;
+                tailCol += colStep;
+            }
+            if (length >= winStreak) {
+                if (oCount == 0) {
+                    score += windowWeights[xCount];
+                } else if (xCount == 0) {
+                    score -= windowWeights[oCount];
+                }
+            }
+            row += rowStep;
+            col += colStep;
+        }
+        return score;
+    }
+
+    /*
+     * Put a mark of the player in a cell of the searched position
+     */
+    private void place(int cell, byte player) {
+        cells[cell] = player;
+        hasher.place(cell, MARKS[player]);
+        emptyCount--;
+        updateNeighbours(cell, 1);
+    }
+
+    /*
+     * Take back a mark of the player from a cell of the searched position
+     */
+    private void remove(int cell, byte player) {
+        cells[cell] = EMPTY;
+        hasher.remove(cell, MARKS[player]);
+        emptyCount++;
+        updateNeighbours(cell, -1);
+    }
+
+    /*
+     * Update the number of marks near every cell around the given cell
+     */
+    private void updateNeighbours(int cell, int change) {
+        int row = cell / size;
+        int col = cell % size;
+        for (int i = Math.max(row - CANDIDATE_DISTANCE, 0); i <= Math.min(row + CANDIDATE_DISTANCE, size - 1); i++) {
+            for (int j = Math.max(col - CANDIDATE_DISTANCE, 0); j <= Math.min(col + CANDIDATE_DISTANCE, size - 1); j++) {
+                neighbours[i * size + j] += change;
+            }
+        }
+    }
+
+    /*
+     * Copy the position of the board into the search structures
+     */
+    private void loadPosition(Board board) {
+        Arrays.fill(cells, EMPTY);
+        Arrays.fill(neighbours, 0);
+        hasher.clear();
+        emptyCount = cells.length;
+        for (int row = 0; row < size; row++) {
+            for (int col = 0; col < size; col++) {
+                Mark mark = board.getMark(row, col);
+                if (mark != Mark.BLANK) {
+                    place(row * size + col, mark == Mark.X ? X_CELL : O_CELL);
+                }
+            }
+        }
+    }
+
+    /*
+     * Allocate the search structures for a board size and win streak
+     */
+    private void initializeSearch(int size, int winStreak) {
+        this.size = size;
+        this.winStreak = winStreak;
+        int cellCount = size * size;
+        this.cells = new byte[cellCount];
+        this.neighbours = new int[cellCount];
+        this.movesByPly = new int[cellCount + 1][];
+        this.orderKeysByPly = new int[cellCount + 1][];
+
+        this.hasher = new SymmetricHasher(size);
+
+        this.windowWeights = new int[winStreak + 1];
+        for (int count = 0; count <= winStreak; count++) {
+            windowWeights[count] = 1 << Math.min(count * WINDOW_WEIGHT_SHIFT_PER_MARK, MAX_WINDOW_WEIGHT_SHIFT);
+        }
+
+        // results of another win streak are not valid anymore
+        Arrays.fill(tableKeys, 0);
+    }
+
+    /*
+     * Get the moves buffer of a ply, allocating it the first time the ply is reached
+     */
+    private int[] movesAt(int ply) {
+        if (movesByPly[ply] == null) {
+            movesByPly[ply] = new int[cells.length];
+            orderKeysByPly[ply] = new int[cells.length];
+        }
+        return movesByPly[ply];
+    }
+
+    /*
+     * Check if the search should stop, either out of time or because it was interrupted
+     */
+    private boolean isOutOfTime() {
+        return System.nanoTime() > deadline || Thread.currentThread().isInterrupted();
+    }
+
+    /*
+     * Check if a row and column are on the board
+     */
+    private boolean isInside(int row, int col) {
+        return row >= 0 && row < size && col >= 0 && col < size;
+    }
+
+    /*
+     * Get the cell code of the other player
+     */
+    private static byte opponentOf(byte player) {
+        return player == X_CELL ? O_CELL : X_CELL;
+    }
+}
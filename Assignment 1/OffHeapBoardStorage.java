@@ -0,0 +1,184 @@
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * The OffHeapBoardStorage class keeps the cells of a board outside the Java heap, at two bits
+ * per cell, so even a 5000x5000 board takes about 6 MB and adds nothing for the garbage
+ * collector to trace. The cells are numbered in row-major order and every 32 of them are packed
+ * into a single long of a direct buffer, 0 for BLANK, 1 for X and 2 for O.
+ * The memory is released as soon as the storage is closed, rather than whenever the buffer is
+ * collected, and the storage can't be used after that.
+ * @author Neriya Ben David
+ * @see BoardStorage
+ */
+public class OffHeapBoardStorage implements BoardStorage {
+
+    // constants
+    /** The largest board size whose cells fit in a single direct buffer. */
+    public static final int MAX_SIZE = 92_681;
+    private static final int CELLS_PER_WORD_SHIFT = 5;
+    private static final int BITS_PER_CELL = 2;
+    private static final long CELL_MASK = (1L << BITS_PER_CELL) - 1;
+    private static final long X_CODE = 1;
+    private static final long O_CODE = 2;
+    private static final Mark[] MARKS = {Mark.BLANK, Mark.X, Mark.O, Mark.BLANK};
+    private static final String TOO_LARGE_MESSAGE = "Board size %d is larger than %d";
+    private static final String CLOSED_MESSAGE = "The board storage was closed";
+
+    // the way to free a direct buffer at once, or null if the virtual machine has none
+    private static final Object UNSAFE;
+    private static final Method INVOKE_CLEANER;
+
+    static {
+        Object unsafe = null;
+        Method invokeCleaner = null;
+        try {
+            Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+            Field field = unsafeClass.getDeclaredField("theUnsafe");
+            field.setAccessible(true);
+            unsafe = field.get(null);
+            invokeCleaner = unsafeClass.getMethod("invokeCleaner", ByteBuffer.class);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            // the buffers are freed when they are collected instead
+            unsafe = null;
+            invokeCleaner = null;
+        }
+        UNSAFE = unsafe;
+        INVOKE_CLEANER = invokeCleaner;
+    }
+
+    // fields
+    private final int size;
+    private ByteBuffer memory;
+
+    /**
+     * Constructs a new OffHeapBoardStorage object with all cells BLANK.
+     * @param size the size of the board, up to MAX_SIZE
+     * @throws IllegalArgumentException if the board is too large
+     */
+    public OffHeapBoardStorage(int size) {
+        if (size > MAX_SIZE) {
+            throw new IllegalArgumentException(String.format(TOO_LARGE_MESSAGE, size, MAX_SIZE));
+        }
+        this.size = size;
+        long words = (((long) size * size) >>> CELLS_PER_WORD_SHIFT) + 1;
+        // direct buffers are allocated zeroed, so all the cells start BLANK
+        this.memory = ByteBuffer.allocateDirect((int) (words * Long.BYTES)).order(ByteOrder.nativeOrder());
+    }
+
+    /**
+     * Gets the size of the stored board.
+     * @return the size of the stored board
+     */
+    @Override
+    public int getSize() {
+        return size;
+    }
+
+    /**
+     * Gets the mark stored at the specified row and column.
+     * @param row the row of the cell
+     * @param col the column of the cell
+     * @return the mark stored in the cell
+     */
+    @Override
+    public Mark getMark(int row, int col) {
+        long cell = cellIndex(row, col);
+        return MARKS[(int) ((memory().getLong(wordOffset(cell)) >>> shiftOf(cell)) & CELL_MASK)];
+    }
+
+    /**
+     * Checks whether the cell at the specified row and column is empty.
+     * @param row the row of the cell
+     * @param col the column of the cell
+     * @return true if both bits of the cell are clear, false otherwise
+     */
+    @Override
+    public boolean isEmpty(int row, int col) {
+        long cell = cellIndex(row, col);
+        return (memory().getLong(wordOffset(cell)) & (CELL_MASK << shiftOf(cell))) == 0;
+    }
+
+    /**
+     * Stores a mark at the specified row and column.
+     * @param row the row of the cell
+     * @param col the column of the cell
+     * @param mark the mark to store
+     */
+    @Override
+    public void setMark(int row, int col, Mark mark) {
+        long cell = cellIndex(row, col);
+        int offset = wordOffset(cell);
+        int shift = shiftOf(cell);
+        long code = mark == Mark.X ? X_CODE : mark == Mark.O ? O_CODE : 0;
+        ByteBuffer buffer = memory();
+        buffer.putLong(offset, (buffer.getLong(offset) & ~(CELL_MASK << shift)) | (code << shift));
+    }
+
+    /**
+     * Sets all the cells back to BLANK by clearing the memory.
+     */
+    @Override
+    public void clear() {
+        ByteBuffer buffer = memory();
+        for (int offset = 0; offset < buffer.capacity(); offset += Long.BYTES) {
+            buffer.putLong(offset, 0);
+        }
+    }
+
+    /**
+     * Releases the memory of the cells at once. The storage can't be used afterwards, and
+     * closing it again does nothing.
+     */
+    @Override
+    public void close() {
+        if (memory == null) {
+            return;
+        }
+        ByteBuffer buffer = memory;
+        memory = null;
+        if (INVOKE_CLEANER != null) {
+            try {
+                INVOKE_CLEANER.invoke(UNSAFE, buffer);
+            } catch (ReflectiveOperationException e) {
+                // the buffer is freed when it is collected instead
+            }
+        }
+    }
+
+    /*
+     * Gets the memory of the cells, failing if the storage was closed
+     */
+    private ByteBuffer memory() {
+        if (memory == null) {
+            throw new IllegalStateException(CLOSED_MESSAGE);
+        }
+        return memory;
+    }
+
+    /*
+     * Gets the row-major index of the cell, checking the bounds like an array access would.
+     */
+    private long cellIndex(int row, int col) {
+        if (row < 0 || row >= size || col < 0 || col >= size) {
+            throw new ArrayIndexOutOfBoundsException("Cell (" + row + ", " + col + ") is out of the board");
+        }
+        return (long) row * size + col;
+    }
+
+    /*
+     * Gets the offset in bytes of the word holding the cell.
+     */
+    private static int wordOffset(long cell) {
+        return (int) (cell >>> CELLS_PER_WORD_SHIFT) * Long.BYTES;
+    }
+
+    /*
+     * Gets the position of the lowest bit of the cell in its word.
+     */
+    private static int shiftOf(long cell) {
+        return (int) (cell & ((1 << CELLS_PER_WORD_SHIFT) - 1)) * BITS_PER_CELL;
+    }
+}
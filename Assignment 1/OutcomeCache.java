@@ -0,0 +1,56 @@
+import java.io.Serializable;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The OutcomeCache class remembers the outcomes of games between deterministic players.
+ * Two deterministic players play the exact same game every time they meet on the same board
+ * with the same one moving first, so the outcome of such a game is played once and looked up
+ * afterwards, by the types of the players, the board size, the win streak and who plays X.
+ * Games of any other players are always played. The cache is safe to share between threads.
+ * Games answered from the cache are not played at all, so it must only be used for games
+ * that are not rendered.
+ * @author Neriya Ben David
+ * @see Player#isDeterministic()
+ * @see Tournament
+ */
+public class OutcomeCache implements Serializable {
+
+    // constants
+    private static final long serialVersionUID = 1L;
+    private static final String KEY_SEPARATOR = ":";
+
+    // fields
+    private final ConcurrentHashMap<String, Mark> outcomes;
+
+    /**
+     * Constructs a new empty OutcomeCache object.
+     */
+    public OutcomeCache() {
+        this.outcomes = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * Resets the game with the given players and runs it, unless both players are deterministic
+     * and the outcome of their game is already known.
+     * @param game the game to run, played without rendering
+     * @param playerX the player who plays with X
+     * @param playerO the player who plays with O
+     * @return the mark of the winning player, or BLANK if there is a tie between the players
+     */
+    public Mark play(Game game, Player playerX, Player playerO) {
+        if (!playerX.isDeterministic() || !playerO.isDeterministic()) {
+            game.reset(playerX, playerO);
+            return game.run();
+        }
+
+        String key = playerX.getClass().getName() + KEY_SEPARATOR + playerO.getClass().getName() +
+                KEY_SEPARATOR + game.getBoardSize() + KEY_SEPARATOR + game.getWinStreak();
+        Mark winner = outcomes.get(key);
+        if (winner == null) {
+            game.reset(playerX, playerO);
+            winner = game.run();
+            outcomes.putIfAbsent(key, winner);
+        }
+        return winner;
+    }
+}
@@ -0,0 +1,125 @@
+/**
+ * The OvershootStatistics class counts how the players of a tournament kept to the time they
+ * have for a move: how many moves each player made under the time control, how many of them ran
+ * past the deadline and by how much, how many turns were played for them while they were still
+ * busy with a move they were given up on, and how many games were forfeited by running out of time.
+ * @author Neriya Ben David
+ * @see TimeControl
+ */
+public class OvershootStatistics {
+
+    // constants
+    private static final int PLAYER_1 = 0;
+    private static final int PLAYER_2 = 1;
+    private static final int PLAYERS = 2;
+    private static final double NANOS_PER_MILLI = 1e6;
+    private static final double MEDIAN = 50;
+    private static final double TAIL = 99;
+    private static final String SUMMARY_FORMAT = "overshot %,d of %,d moves, by p50 %.1f ms, p99 %.1f ms, " +
+            "max %.1f ms, skipped %,d turns while busy, and forfeited %,d rounds";
+
+    // fields
+    private final long[] moves;
+    private final long[] skips;
+    private final long[] forfeits;
+    private final Histogram[] overshootNanos;
+
+    /**
+     * Constructs a new OvershootStatistics object with no moves counted.
+     */
+    public OvershootStatistics() {
+        this.moves = new long[PLAYERS];
+        this.skips = new long[PLAYERS];
+        this.forfeits = new long[PLAYERS];
+        this.overshootNanos = new Histogram[] {new Histogram(), new Histogram()};
+    }
+
+    /**
+     * Counts a move made before the deadline.
+     * @param isPlayer1 true for a move of player 1, false for a move of player 2
+     */
+    public void recordMove(boolean isPlayer1) {
+        moves[playerOf(isPlayer1)]++;
+    }
+
+    /**
+     * Counts a move that ran past the deadline.
+     * @param isPlayer1 true for a move of player 1, false for a move of player 2
+     * @param overshootNanos how long after the deadline the player stopped, or was given up on
+     * @param isForfeit true if the player forfeited the game, false if a fallback move was played
+     */
+    public void recordOvershoot(boolean isPlayer1, long overshootNanos, boolean isForfeit) {
+        int player = playerOf(isPlayer1);
+        moves[player]++;
+        this.overshootNanos[player].record(overshootNanos);
+        if (isForfeit) {
+            forfeits[player]++;
+        }
+    }
+
+    /**
+     * Counts a turn the player wasn't called for, since it was still busy with an earlier move.
+     * @param isPlayer1 true for a turn of player 1, false for a turn of player 2
+     * @param isForfeit true if the player forfeited the game, false if a fallback move was played
+     */
+    public void recordSkip(boolean isPlayer1, boolean isForfeit) {
+        int player = playerOf(isPlayer1);
+        moves[player]++;
+        skips[player]++;
+        if (isForfeit) {
+            forfeits[player]++;
+        }
+    }
+
+    /**
+     * Adds the counts of other games of the same tournament to these counts.
+     * @param other the statistics of the other games
+     */
+    public void merge(OvershootStatistics other) {
+        for (int player = 0; player < PLAYERS; player++) {
+            moves[player] += other.moves[player];
+            skips[player] += other.skips[player];
+            forfeits[player] += other.forfeits[player];
+            overshootNanos[player].merge(other.overshootNanos[player]);
+        }
+    }
+
+    /**
+     * Gets the number of moves of a player that ran past the deadline.
+     * @param isPlayer1 true for player 1, false for player 2
+     * @return the number of overshooting moves
+     */
+    public long getOvershoots(boolean isPlayer1) {
+        return overshootNanos[playerOf(isPlayer1)].getCount();
+    }
+
+    /**
+     * Gets the number of games a player forfeited by running out of time.
+     * @param isPlayer1 true for player 1, false for player 2
+     * @return the number of forfeited games
+     */
+    public long getForfeits(boolean isPlayer1) {
+        return forfeits[playerOf(isPlayer1)];
+    }
+
+    /**
+     * Describes how a player kept to the time control.
+     * @param isPlayer1 true for player 1, false for player 2
+     * @return a single line summary of the moves and overshoots of the player
+     */
+    public String getSummary(boolean isPlayer1) {
+        int player = playerOf(isPlayer1);
+        Histogram overshoots = overshootNanos[player];
+        return String.format(SUMMARY_FORMAT, overshoots.getCount(), moves[player],
+                overshoots.getPercentile(MEDIAN) / NANOS_PER_MILLI,
+                overshoots.getPercentile(TAIL) / NANOS_PER_MILLI, overshoots.getMax() / NANOS_PER_MILLI,
+                skips[player], forfeits[player]);
+    }
+
+    /*
+     * Get the index of a player in the arrays
+     */
+    private static int playerOf(boolean isPlayer1) {
+        return isPlayer1 ? PLAYER_1 : PLAYER_2;
+    }
+}
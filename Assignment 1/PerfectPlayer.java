@@ -0,0 +1,104 @@
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * The PerfectPlayer class represents a player that never makes a mistake on small boards.
+ * Every move is a single lookup in the tablebase of the board, which holds the best move of every
+ * position, winning as soon as possible and losing as late as possible. The tablebase file is
+ * memory-mapped from the working directory, and solved and saved there the first time a board is
+ * played. Players of parallel tournaments share a lock, so a tablebase is solved only once while
+ * the other players wait for its file. On boards too large to solve the player takes the last
+ * empty cell, like the genius player.
+ * @author Neriya Ben David
+ * @see Player
+ * @see Tablebase
+ * @see TablebaseSolver
+ */
+public class PerfectPlayer implements Player {
+
+    // constants
+    private static final int DEFAULT_WIN_STREAK = 3;
+    private static final int NOT_LOADED = 0;
+    private static final Object SOLVE_LOCK = new Object();
+    private static final String LOAD_FAILED_MESSAGE = "The tablebase %s can't be used";
+
+    // fields
+    private Tablebase tablebase;
+    private int loadedSize;
+    private int loadedWinStreak;
+
+    /**
+     * Constructs a new PerfectPlayer object.
+     */
+    public PerfectPlayer() {
+        this.tablebase = null;
+        this.loadedSize = NOT_LOADED;
+        this.loadedWinStreak = NOT_LOADED;
+    }
+
+    /**
+     * Opens the tablebase of the board size and win streak of the new game, solving it if needed.
+     * @param board the board the game is played on
+     * @param winStreak the number of marks in a row needed to win the game
+     * @throws IllegalStateException if the tablebase can't be saved or read
+     */
+    @Override
+    public void startGame(Board board, int winStreak) {
+        if (board.getSize() != loadedSize || winStreak != loadedWinStreak) {
+            loadedSize = board.getSize();
+            loadedWinStreak = winStreak;
+            tablebase = loadTablebase(loadedSize, winStreak);
+        }
+    }
+
+    /**
+     * Play a turn by putting the mark in the best cell found in the tablebase.
+     * @param board game board to play on
+     * @param mark mark to put on board
+     */
+    @Override
+    public void playTurn(Board board, Mark mark) {
+        if (board.getSize() != loadedSize) {
+            startGame(board, DEFAULT_WIN_STREAK);
+        }
+        int move = tablebase == null ? Tablebase.NO_MOVE : tablebase.findMove(board);
+        if (move != Tablebase.NO_MOVE) {
+            board.putMark(mark, move / loadedSize, move % loadedSize);
+        } else {
+            board.putMarkInLastEmptyCell(mark);
+        }
+    }
+
+    /**
+     * The tablebase holds a single best move for every position, so the player is deterministic.
+     * @return true
+     */
+    @Override
+    public boolean isDeterministic() {
+        return true;
+    }
+
+    /*
+     * Open the tablebase of a board, solving and saving it first if there is no file for it,
+     * returns null if the board is too large to solve
+     */
+    private static Tablebase loadTablebase(int size, int winStreak) {
+        if (size > TablebaseSolver.MAX_SIZE || winStreak > size) {
+            return null;
+        }
+        Path path = Tablebase.defaultPath(size, winStreak);
+        try {
+            synchronized (SOLVE_LOCK) {
+                if (!Files.exists(path)) {
+                    TablebaseSolver solver = new TablebaseSolver(size, winStreak);
+                    solver.solve();
+                    solver.save(path);
+                }
+            }
+            return Tablebase.open(path);
+        } catch (IOException e) {
+            throw new IllegalStateException(String.format(LOAD_FAILED_MESSAGE, path), e);
+        }
+    }
+}
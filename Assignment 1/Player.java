@@ -6,8 +6,28 @@ public interface Player {
 
     /**
      * Play a turn in a game by putting a mark on the board.
+     * The game finds where the mark landed through the last move recorded by the board.
      * @param board game board to play on
      * @param mark mark to put on board
      */
     void playTurn(Board board, Mark mark);
+
+    /**
+     * Notifies the player that a new game is about to start, before any mark is put on the board.
+     * Players that don't keep anything between their turns don't need to do anything.
+     * @param board the board the game is played on
+     * @param winStreak the number of marks in a row needed to win the game
+     */
+    default void startGame(Board board, int winStreak) {
+    }
+
+    /**
+     * Checks whether the player always plays the same move in the same position, without any
+     * randomness, time limit or memory of earlier games, so two deterministic players always
+     * play the same game and its outcome can be reused.
+     * @return true if the player is deterministic, false otherwise
+     */
+    default boolean isDeterministic() {
+        return false;
+    }
 }
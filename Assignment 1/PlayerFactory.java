@@ -7,6 +7,11 @@
  * @see WhateverPlayer
  * @see CleverPlayer
  * @see GeniusPlayer
+ * @see MinimaxPlayer
+ * @see MctsPlayer
+ * @see PerfectPlayer
+ * @see GreedyPlayer
+ * @see ThreatPlayer
  */
 public class PlayerFactory {
 
@@ -15,6 +20,11 @@ public class PlayerFactory {
     private static final String WHATEVER_PLAYER = "whatever";
     private static final String CLEVER_PLAYER = "clever";
     private static final String GENIUS_PLAYER = "genius";
+    private static final String MINIMAX_PLAYER = "minimax";
+    private static final String MCTS_PLAYER = "mcts";
+    private static final String PERFECT_PLAYER = "perfect";
+    private static final String GREEDY_PLAYER = "greedy";
+    private static final String THREAT_PLAYER = "threat";
 
     /**
      * Constructs a new PlayerFactory object.
@@ -38,6 +48,16 @@ public class PlayerFactory {
                 return new CleverPlayer();
             case GENIUS_PLAYER:
                 return new GeniusPlayer();
+            case MINIMAX_PLAYER:
+                return new MinimaxPlayer();
+            case MCTS_PLAYER:
+                return new MctsPlayer();
+            case PERFECT_PLAYER:
+                return new PerfectPlayer();
+            case GREEDY_PLAYER:
+                return new GreedyPlayer();
+            case THREAT_PLAYER:
+                return new ThreatPlayer();
             default:
                 return null;
         }
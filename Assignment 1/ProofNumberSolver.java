@@ -0,0 +1,292 @@
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The ProofNumberSolver class finds out whether the player to move on a board can force a win,
+ * by a depth-first proof-number search run by several workers in parallel over a single shared
+ * transposition table. The workers all search from the same root, each trying equal moves in
+ * an order of its own, and stop as soon as one of them proves or disproves the root.
+ * The solver prints its progress every second while it runs, and can save the table to a
+ * checkpoint file every minute and when it stops, so a search that is stopped, or runs out of
+ * its time limit, can be resumed later from the checkpoint instead of from scratch.
+ * On an empty board the first player can't lose, since an extra mark never hurts a player, so
+ * if it can't force a win the game is a draw.
+ * @author Neriya Ben David
+ * @see ProofNumberWorker
+ * @see ProofNumberTable
+ */
+public class ProofNumberSolver {
+
+    // constants
+    /** The result of a root the player to move can force a win from. */
+    public static final int PROVEN = 1;
+    /** The result of a root the player to move can't force a win from. */
+    public static final int DISPROVEN = -1;
+    /** The result of a search that stopped before the root was solved. */
+    public static final int UNKNOWN = 0;
+    private static final long PROGRESS_INTERVAL_MILLIS = 1000;
+    private static final long CHECKPOINT_INTERVAL_NANOS = 60_000_000_000L;
+    private static final double NANOS_PER_SECOND = 1e9;
+    private static final double PERCENT = 100;
+
+    // Constants Arguments
+    private static final int SIZE_ARG = 0;
+    private static final int WIN_STREAK_ARG = 1;
+    private static final int FIRST_OPTIONAL_ARG = 2;
+    private static final String OPTION_PREFIX = "--";
+    private static final String VALUE_SEPARATOR = "=";
+    private static final String THREADS_OPTION = "threads";
+    private static final String TABLE_OPTION = "table";
+    private static final String CHECKPOINT_OPTION = "checkpoint";
+    private static final String TIME_OPTION = "time";
+    private static final int DEFAULT_TABLE_CAPACITY = 1 << 22;
+    private static final int MIN_SIZE = 2;
+    private static final int MAX_SIZE = 8;
+
+    // Constants Messages
+    private static final String USAGE_MESSAGE = "Usage: java ProofNumberSolver [size: 2-" + MAX_SIZE +
+            "] [win_streak] [optional: --threads=count] [optional: --table=positions] " +
+            "[optional: --checkpoint=path] [optional: --time=seconds]";
+    private static final String PROGRESS_MESSAGE = "%7.1f s %,15d nodes %,12.0f nodes/s table %5.1f%% full\n";
+    private static final String RESUMED_MESSAGE = "Resumed %,d positions from %s\n";
+    private static final String CHECKPOINT_MESSAGE = "Checkpoint %s: %,d positions\n";
+    private static final String CHECKPOINT_FAILED_MESSAGE = "Could not use the checkpoint: %s\n";
+    private static final String RESULT_MESSAGE = "%dx%d with win streak %d: %s after %,d nodes in %.1f s\n";
+    private static final String PROVEN_RESULT = "the first player wins";
+    private static final String DISPROVEN_RESULT = "a draw";
+    private static final String UNKNOWN_RESULT = "unsolved";
+
+    // fields
+    private final Board root;
+    private final int winStreak;
+    private final ProofNumberTable table;
+    private final ProofNumberWorker[] workers;
+    private final LongAdder nodes;
+    private volatile boolean stopped;
+    private volatile int result;
+
+    /**
+     * Constructs a new ProofNumberSolver object.
+     * @param root the position to solve, which is only read
+     * @param winStreak the number of marks in a row needed to win the game
+     * @param threads the number of workers searching in parallel
+     * @param table the transposition table of the search, which may hold an earlier search of the
+     *              same root
+     */
+    public ProofNumberSolver(Board root, int winStreak, int threads, ProofNumberTable table) {
+        this.root = root;
+        this.winStreak = winStreak;
+        this.table = table;
+        this.workers = new ProofNumberWorker[threads];
+        for (int i = 0; i < threads; i++) {
+            workers[i] = new ProofNumberWorker(this, table, root.getSize(), winStreak, i);
+        }
+        this.nodes = new LongAdder();
+        this.result = UNKNOWN;
+    }
+
+    /**
+     * Searches the root until it is solved or the time limit passes, printing the progress of the
+     * search and saving checkpoints of the table along the way.
+     * @param timeLimitNanos the time the search may take, or 0 for no limit
+     * @param checkpoint the checkpoint file of the table, or null for no checkpoints
+     * @return PROVEN if the player to move can force a win, DISPROVEN if it can't and UNKNOWN if
+     *         the search stopped first
+     */
+    public int solve(long timeLimitNanos, Path checkpoint) {
+        stopped = false;
+        result = UNKNOWN;
+        long startTime = System.nanoTime();
+        long nextCheckpoint = startTime + CHECKPOINT_INTERVAL_NANOS;
+        ForkJoinPool pool = new ForkJoinPool(workers.length);
+        ForkJoinTask<?>[] tasks = new ForkJoinTask<?>[workers.length];
+        for (int i = 0; i < workers.length; i++) {
+            tasks[i] = pool.submit(workers[i]);
+        }
+        pool.shutdown();
+
+        // report the progress until all the workers stop, without running a worker on this thread
+        try {
+            while (!pool.awaitTermination(PROGRESS_INTERVAL_MILLIS, TimeUnit.MILLISECONDS)) {
+                long now = System.nanoTime();
+                printProgress(now - startTime);
+                if (timeLimitNanos != 0 && now - startTime > timeLimitNanos) {
+                    stop();
+                }
+                if (checkpoint != null && now > nextCheckpoint) {
+                    saveCheckpoint(checkpoint);
+                    nextCheckpoint = now + CHECKPOINT_INTERVAL_NANOS;
+                }
+            }
+        } catch (InterruptedException e) {
+            stop();
+            Thread.currentThread().interrupt();
+        }
+        for (ForkJoinTask<?> task : tasks) {
+            task.join();
+        }
+        printProgress(System.nanoTime() - startTime);
+        if (checkpoint != null) {
+            saveCheckpoint(checkpoint);
+        }
+        return getResult();
+    }
+
+    /**
+     * Gets the result of the last search.
+     * @return PROVEN, DISPROVEN or UNKNOWN
+     */
+    public int getResult() {
+        return result;
+    }
+
+    /**
+     * Gets the number of positions searched so far, over all the workers.
+     * @return the number of nodes
+     */
+    public long getNodes() {
+        return nodes.sum();
+    }
+
+    /**
+     * Gets the position the workers search from.
+     * @return the root position
+     */
+    Board getRoot() {
+        return root;
+    }
+
+    /**
+     * Adds to the number of positions the workers searched.
+     * @param count the number of positions to add
+     */
+    void addNodes(long count) {
+        nodes.add(count);
+    }
+
+    /**
+     * Checks whether the workers should stop searching.
+     * @return true if the search was stopped, false otherwise
+     */
+    boolean isStopped() {
+        return stopped;
+    }
+
+    /**
+     * Makes all the workers stop searching soon.
+     */
+    void stop() {
+        stopped = true;
+    }
+
+    /**
+     * Records the result of a worker that solved the root and stops all the workers.
+     * @param isProven true if the root was proven, false if it was disproven
+     */
+    void finish(boolean isProven) {
+        result = isProven ? PROVEN : DISPROVEN;
+        stop();
+    }
+
+    /*
+     * Print the nodes, the speed of the search and how full the table is
+     */
+    private void printProgress(long elapsedNanos) {
+        long searched = nodes.sum();
+        System.out.printf(PROGRESS_MESSAGE, elapsedNanos / NANOS_PER_SECOND, searched,
+                searched * NANOS_PER_SECOND / Math.max(elapsedNanos, 1),
+                PERCENT * table.getUsedSlots() / table.getCapacity());
+    }
+
+    /*
+     * Save the table to the checkpoint file, reporting a failure without stopping the search
+     */
+    private void saveCheckpoint(Path checkpoint) {
+        try {
+            long saved = table.save(checkpoint, root.getSize(), winStreak);
+            System.out.printf(CHECKPOINT_MESSAGE, checkpoint, saved);
+        } catch (IOException e) {
+            System.out.printf(CHECKPOINT_FAILED_MESSAGE, e.getMessage());
+        }
+    }
+
+    /**
+     * Main method to solve the empty board of a size and win streak
+     * @param args command line arguments
+     */
+    public static void main(String[] args) {
+        int size;
+        int winStreak;
+        int threads = Runtime.getRuntime().availableProcessors();
+        int tableCapacity = DEFAULT_TABLE_CAPACITY;
+        Path checkpoint = null;
+        long timeLimitNanos = 0;
+        try {
+            size = Integer.parseInt(args[SIZE_ARG]);
+            winStreak = Integer.parseInt(args[WIN_STREAK_ARG]);
+            for (int i = FIRST_OPTIONAL_ARG; i < args.length; i++) {
+                int separator = args[i].indexOf(VALUE_SEPARATOR);
+                if (!args[i].startsWith(OPTION_PREFIX) || separator < 0) {
+                    System.out.println(USAGE_MESSAGE);
+                    return;
+                }
+                String name = args[i].substring(OPTION_PREFIX.length(), separator);
+                String value = args[i].substring(separator + VALUE_SEPARATOR.length());
+                switch (name) {
+                    case THREADS_OPTION:
+                        threads = Integer.parseInt(value);
+                        break;
+                    case TABLE_OPTION:
+                        tableCapacity = Integer.parseInt(value);
+                        break;
+                    case CHECKPOINT_OPTION:
+                        if (value.isEmpty()) {
+                            System.out.println(USAGE_MESSAGE);
+                            return;
+                        }
+                        checkpoint = Paths.get(value);
+                        break;
+                    case TIME_OPTION:
+                        timeLimitNanos = (long) (Double.parseDouble(value) * NANOS_PER_SECOND);
+                        break;
+                    default:
+                        System.out.println(USAGE_MESSAGE);
+                        return;
+                }
+            }
+        } catch (RuntimeException e) {
+            System.out.println(USAGE_MESSAGE);
+            return;
+        }
+        if (size < MIN_SIZE || size > MAX_SIZE || winStreak < MIN_SIZE || winStreak > size || threads < 1 ||
+                tableCapacity < 1) {
+            System.out.println(USAGE_MESSAGE);
+            return;
+        }
+
+        // resume from the checkpoint if there is one
+        ProofNumberTable table = new ProofNumberTable(tableCapacity);
+        if (checkpoint != null && Files.exists(checkpoint)) {
+            try {
+                System.out.printf(RESUMED_MESSAGE, table.load(checkpoint, size, winStreak), checkpoint);
+            } catch (IOException e) {
+                System.out.printf(CHECKPOINT_FAILED_MESSAGE, e.getMessage());
+                return;
+            }
+        }
+
+        ProofNumberSolver solver = new ProofNumberSolver(new Board(size), winStreak, threads, table);
+        long startTime = System.nanoTime();
+        int result = solver.solve(timeLimitNanos, checkpoint);
+        String resultName = result == PROVEN ? PROVEN_RESULT : result == DISPROVEN ? DISPROVEN_RESULT :
+                UNKNOWN_RESULT;
+        System.out.printf(RESULT_MESSAGE, size, size, winStreak, resultName, solver.getNodes(),
+                (System.nanoTime() - startTime) / NANOS_PER_SECOND);
+    }
+}
@@ -0,0 +1,249 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The ProofNumberTable class is the transposition table shared by all the workers of a
+ * proof-number search. Every position is kept under its key with its proof number, its
+ * disproof number and the work spent on it, in a bucket of a few slots picked by the key; a
+ * position that finds its bucket full replaces the one the least work was spent on.
+ * The buckets are guarded by a fixed set of locks, a bucket taking the lock of its index modulo
+ * the number of locks, so threads only wait for each other when they touch buckets that share
+ * a lock, which is rare with many more locks than threads.
+ * The table can be saved to a checkpoint file while it is being searched and loaded back into
+ * a new table, so a long search can be resumed from where it stopped.
+ * @author Neriya Ben David
+ * @see ProofNumberSolver
+ */
+public class ProofNumberTable {
+
+    // constants
+    /** The proof or disproof number of a position that can't be proven or disproven. */
+    public static final int INFINITY = Integer.MAX_VALUE;
+    /** The result of probing a position that is not in the table. */
+    public static final long MISSING = -1;
+    private static final int WAYS = 4;
+    private static final int STRIPES = 1 << 10;
+    private static final long HASH_MULTIPLIER = 0x9E3779B97F4A7C15L;
+
+    // checkpoint file: magic, size, win streak and entry count, then key, proof, disproof and work
+    private static final int MAGIC = 0x50524E54;
+    private static final int HEADER_SIZE = 4 * Integer.BYTES;
+    private static final int COUNT_OFFSET = 3 * Integer.BYTES;
+    private static final int ENTRY_SIZE = Long.BYTES + 3 * Integer.BYTES;
+    private static final int WRITE_BUFFER_SIZE = 1 << 20;
+    private static final String TEMP_SUFFIX = ".tmp";
+    private static final String INVALID_FILE_MESSAGE =
+            "Not a checkpoint of a %dx%d board with win streak %d: %s";
+
+    // fields
+    private final long[] keys;
+    private final int[] proofs;
+    private final int[] disproofs;
+    // the work of a free slot is 0, every stored position has some
+    private final int[] works;
+    private final Object[] locks;
+    private final int bucketMask;
+    private final AtomicLong usedSlots;
+
+    /**
+     * Constructs a new empty ProofNumberTable object.
+     * @param capacity the number of positions the table can hold, rounded up to a power of two
+     */
+    public ProofNumberTable(int capacity) {
+        int buckets = Integer.highestOneBit(Math.max(capacity / WAYS, 1) * 2 - 1);
+        int slots = buckets * WAYS;
+        this.keys = new long[slots];
+        this.proofs = new int[slots];
+        this.disproofs = new int[slots];
+        this.works = new int[slots];
+        this.locks = new Object[STRIPES];
+        for (int i = 0; i < STRIPES; i++) {
+            locks[i] = new Object();
+        }
+        this.bucketMask = buckets - 1;
+        this.usedSlots = new AtomicLong();
+    }
+
+    /**
+     * Gets the number of positions the table can hold.
+     * @return the number of slots of the table
+     */
+    public int getCapacity() {
+        return works.length;
+    }
+
+    /**
+     * Gets the number of slots that hold a position.
+     * @return the number of used slots
+     */
+    public long getUsedSlots() {
+        return usedSlots.get();
+    }
+
+    /**
+     * Looks up a position.
+     * @param key the key of the position
+     * @return the proof and disproof numbers of the position packed into a long, to be read with
+     *         proofOf and disproofOf, or MISSING if the position is not in the table
+     */
+    public long probe(long key) {
+        int bucket = bucketOf(key);
+        synchronized (locks[bucket & (STRIPES - 1)]) {
+            for (int slot = bucket * WAYS; slot < (bucket + 1) * WAYS; slot++) {
+                if (keys[slot] == key && works[slot] != 0) {
+                    return pack(proofs[slot], disproofs[slot]);
+                }
+            }
+        }
+        return MISSING;
+    }
+
+    /**
+     * Gets the proof number of a probed position.
+     * @param entry the result of probe, other than MISSING
+     * @return the proof number of the position
+     */
+    public static int proofOf(long entry) {
+        return (int) (entry >>> Integer.SIZE);
+    }
+
+    /**
+     * Gets the disproof number of a probed position.
+     * @param entry the result of probe, other than MISSING
+     * @return the disproof number of the position
+     */
+    public static int disproofOf(long entry) {
+        return (int) entry;
+    }
+
+    /**
+     * Stores the numbers of a position, replacing its older numbers or, if its bucket is full,
+     * the position of the bucket the least work was spent on.
+     * @param key the key of the position
+     * @param proof the proof number of the position
+     * @param disproof the disproof number of the position
+     * @param work the work spent on the position, at least 1
+     */
+    public void store(long key, int proof, int disproof, int work) {
+        int bucket = bucketOf(key);
+        synchronized (locks[bucket & (STRIPES - 1)]) {
+            int victim = bucket * WAYS;
+            for (int slot = bucket * WAYS; slot < (bucket + 1) * WAYS; slot++) {
+                if (works[slot] != 0 && keys[slot] == key) {
+                    victim = slot;
+                    break;
+                }
+                if (works[slot] < works[victim]) {
+                    victim = slot;
+                }
+            }
+            if (works[victim] == 0) {
+                usedSlots.incrementAndGet();
+            }
+            keys[victim] = key;
+            proofs[victim] = proof;
+            disproofs[victim] = disproof;
+            works[victim] = Math.max(work, 1);
+        }
+    }
+
+    /**
+     * Saves all the positions of the table to a checkpoint file, while other threads may keep
+     * searching. Every bucket is copied under its lock, and the file is written under a temporary
+     * name and then moved over the old checkpoint, so a checkpoint is never left half written.
+     * @param path the path of the checkpoint file
+     * @param size the size of the board of the search
+     * @param winStreak the win streak of the search
+     * @return the number of positions saved
+     * @throws IOException if the file can't be written
+     */
+    public long save(Path path, int size, int winStreak) throws IOException {
+        Path tempPath = path.resolveSibling(path.getFileName() + TEMP_SUFFIX);
+        long count = 0;
+        ByteBuffer buffer = ByteBuffer.allocate(WRITE_BUFFER_SIZE);
+        try (FileChannel channel = FileChannel.open(tempPath, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            buffer.putInt(MAGIC).putInt(size).putInt(winStreak).putInt(0);
+            for (int bucket = 0; bucket <= bucketMask; bucket++) {
+                if (buffer.remaining() < WAYS * ENTRY_SIZE) {
+                    writeAll(channel, buffer);
+                }
+                synchronized (locks[bucket & (STRIPES - 1)]) {
+                    for (int slot = bucket * WAYS; slot < (bucket + 1) * WAYS; slot++) {
+                        if (works[slot] != 0) {
+                            buffer.putLong(keys[slot]).putInt(proofs[slot]).putInt(disproofs[slot])
+                                    .putInt(works[slot]);
+                            count++;
+                        }
+                    }
+                }
+            }
+            writeAll(channel, buffer);
+            buffer.putInt((int) count).flip();
+            channel.write(buffer, COUNT_OFFSET);
+        }
+        Files.move(tempPath, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return count;
+    }
+
+    /**
+     * Loads the positions of a checkpoint file into the table, on top of the positions it holds.
+     * @param path the path of the checkpoint file
+     * @param size the size of the board of the search, which must match the checkpoint
+     * @param winStreak the win streak of the search, which must match the checkpoint
+     * @return the number of positions loaded
+     * @throws IOException if the file can't be read or is not a checkpoint of the same search
+     */
+    public long load(Path path, int size, int winStreak) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.capacity() < HEADER_SIZE || buffer.getInt() != MAGIC || buffer.getInt() != size ||
+                    buffer.getInt() != winStreak ||
+                    buffer.capacity() != HEADER_SIZE + (long) buffer.getInt() * ENTRY_SIZE) {
+                throw new IOException(String.format(INVALID_FILE_MESSAGE, size, size, winStreak, path));
+            }
+            long count = 0;
+            while (buffer.hasRemaining()) {
+                store(buffer.getLong(), buffer.getInt(), buffer.getInt(), buffer.getInt());
+                count++;
+            }
+            return count;
+        }
+    }
+
+    /**
+     * Packs the proof and disproof numbers of a position into a long, as probe returns them.
+     * @param proof the proof number of the position
+     * @param disproof the disproof number of the position
+     * @return the packed numbers
+     */
+    static long pack(int proof, int disproof) {
+        return ((long) proof << Integer.SIZE) | (disproof & 0xFFFFFFFFL);
+    }
+
+    /*
+     * Get the bucket a key is kept in
+     */
+    private int bucketOf(long key) {
+        long hash = key * HASH_MULTIPLIER;
+        return (int) (hash ^ (hash >>> Integer.SIZE)) & bucketMask;
+    }
+
+    /*
+     * Write the buffered bytes to the channel and empty the buffer
+     */
+    private static void writeAll(FileChannel channel, ByteBuffer buffer) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+}
@@ -0,0 +1,443 @@
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * The ProofNumberWorker class runs a depth-first proof-number search (df-pn) from the root
+ * position of a solver, on a scratch copy of the position of its own. The player to move at the
+ * root is the attacker: a position is proven when the attacker can force a win from it and
+ * disproven when it can't. Every position visited is kept in the table shared by all the
+ * workers, under a key that is the same for all its rotations and reflections, so the workers
+ * pick up each other's results as they go.
+ * A worker only leaves a position once its proof or disproof number reaches the threshold its
+ * parent gave it, and the threshold of the best child is raised by a quarter past the number
+ * of the second best child, so the search doesn't bounce between two close children. Numbers
+ * that count all the children are weak sums, which don't blow up over transpositions.
+ * The counts of both marks in every winning window are kept with every move, so a position that
+ * is over, a move that must block a threat and an attacker that can't complete any window are
+ * all found without reading the board.
+ * @author Neriya Ben David
+ * @see ProofNumberSolver
+ * @see ProofNumberTable
+ */
+public class ProofNumberWorker implements Runnable {
+
+    // constants
+    private static final int INFINITY = ProofNumberTable.INFINITY;
+    private static final int NODE_BATCH = 1 << 10;
+    private static final int THRESHOLD_EPSILON_DIVISOR = 4;
+    private static final byte EMPTY = 0;
+    private static final byte X_CELL = 1;
+    private static final byte O_CELL = 2;
+    private static final Mark[] MARKS = {Mark.BLANK, Mark.X, Mark.O};
+
+    // results of generating the moves of a position that is already decided
+    private static final int PLAYER_WINS = -1;
+    private static final int PLAYER_LOSES = -2;
+    private static final int NOBODY_WINS = 0;
+
+    // settings
+    private final ProofNumberSolver solver;
+    private final ProofNumberTable table;
+    private final int size;
+    private final int winStreak;
+    // the cells in the order their moves are tried, which differs between the workers
+    private final int[] cellOrder;
+
+    // windows, window w covers the cells windowCells[w * winStreak ...] and the windows through
+    // every cell are listed in cellWindows
+    private final int[] windowCells;
+    private final int[][] cellWindows;
+
+    // scratch position
+    private final byte[] cells;
+    private final SymmetricHasher hasher;
+    private final int[] xCounts;
+    private final int[] oCounts;
+    private byte attacker;
+    // windows with no mark of the defender, which the attacker can still complete
+    private int liveWindows;
+    private int emptyCount;
+    private int[][] movesByPly;
+    // the last known numbers of the children of every ply, packed like the entries of the table,
+    // so a child pushed out of the table by its siblings isn't taken for a new position
+    private long[][] childEntriesByPly;
+
+    // node counting
+    private long nodes;
+    private boolean stopped;
+
+    /**
+     * Constructs a new ProofNumberWorker object.
+     * @param solver the solver the worker searches for
+     * @param table the table shared by all the workers of the solver
+     * @param size the size of the board
+     * @param winStreak the number of marks in a row needed to win the game
+     * @param seed the seed of the order the moves are tried in, or 0 for the natural order
+     */
+    public ProofNumberWorker(ProofNumberSolver solver, ProofNumberTable table, int size, int winStreak,
+                             long seed) {
+        this.solver = solver;
+        this.table = table;
+        this.size = size;
+        this.winStreak = winStreak;
+        int cellCount = size * size;
+        this.cells = new byte[cellCount];
+        this.hasher = new SymmetricHasher(size);
+        this.movesByPly = new int[cellCount + 1][];
+        this.childEntriesByPly = new long[cellCount + 1][];
+
+        // list the windows and the windows through every cell
+        int windowCount = 0;
+        int[] windowsThrough = new int[cellCount];
+        int[] starts = new int[CellStreaks.ROW_STEPS.length * cellCount];
+        int[] directions = new int[starts.length];
+        for (int direction = 0; direction < CellStreaks.ROW_STEPS.length; direction++) {
+            for (int cell = 0; cell < cellCount; cell++) {
+                if (isInside(cell / size + (winStreak - 1) * CellStreaks.ROW_STEPS[direction],
+                        cell % size + (winStreak - 1) * CellStreaks.COL_STEPS[direction])) {
+                    starts[windowCount] = cell;
+                    directions[windowCount++] = direction;
+                }
+            }
+        }
+        this.windowCells = new int[windowCount * winStreak];
+        for (int window = 0; window < windowCount; window++) {
+            int step = CellStreaks.ROW_STEPS[directions[window]] * size +
+                    CellStreaks.COL_STEPS[directions[window]];
+            for (int i = 0; i < winStreak; i++) {
+                windowCells[window * winStreak + i] = starts[window] + i * step;
+                windowsThrough[starts[window] + i * step]++;
+            }
+        }
+        this.cellWindows = new int[cellCount][];
+        for (int cell = 0; cell < cellCount; cell++) {
+            cellWindows[cell] = new int[windowsThrough[cell]];
+            windowsThrough[cell] = 0;
+        }
+        for (int i = 0; i < windowCells.length; i++) {
+            int cell = windowCells[i];
+            cellWindows[cell][windowsThrough[cell]++] = i / winStreak;
+        }
+        this.xCounts = new int[windowCount];
+        this.oCounts = new int[windowCount];
+        this.cellOrder = buildCellOrder(seed);
+    }
+
+    /**
+     * Searches the root position of the solver until it is proven or disproven, or until the
+     * solver is stopped.
+     */
+    @Override
+    public void run() {
+        loadRoot(solver.getRoot());
+        nodes = 0;
+        stopped = false;
+        long rootKey = hasher.getKey();
+        long rootEntry = table.probe(rootKey);
+        while (!stopped && !isSolved(rootEntry)) {
+            rootEntry = search(attacker, 0, INFINITY, INFINITY);
+        }
+        solver.addNodes(nodes % NODE_BATCH);
+        if (isSolved(rootEntry)) {
+            solver.finish(ProofNumberTable.proofOf(rootEntry) == 0);
+        }
+    }
+
+    /*
+     * Search a position until its proof number reaches the proof threshold or its disproof number
+     * reaches the disproof threshold, keep its numbers in the table and return them packed
+     */
+    private long search(byte player, int ply, int proofThreshold, int disproofThreshold) {
+        long key = hasher.getKey();
+        long startNodes = nodes;
+        countNode();
+        int[] moves = movesAt(ply);
+        int moveCount = generateMoves(player, moves);
+        if (moveCount <= NOBODY_WINS) {
+            boolean isProven = moveCount == PLAYER_WINS ? player == attacker :
+                    moveCount == PLAYER_LOSES && player != attacker;
+            table.store(key, isProven ? 0 : INFINITY, isProven ? INFINITY : 0, 1);
+            return ProofNumberTable.pack(isProven ? 0 : INFINITY, isProven ? INFINITY : 0);
+        }
+        long[] childEntries = childEntriesAt(ply);
+        Arrays.fill(childEntries, 0, moveCount, ProofNumberTable.pack(1, 1));
+
+        boolean isOrNode = player == attacker;
+        byte opponent = player == X_CELL ? O_CELL : X_CELL;
+        while (true) {
+            // the attacker needs a single proven child and the defender a single disproven child,
+            // so the smallest number of the children counts on one side and all of them on the other
+            int smallest = INFINITY;
+            int largest = 0;
+            int openChildren = 0;
+            int bestChild = 0;
+            int bestNumber = INFINITY;
+            int secondNumber = INFINITY;
+            int bestProof = 0;
+            int bestDisproof = 0;
+            for (int i = 0; i < moveCount; i++) {
+                place(moves[i], player);
+                long entry = table.probe(hasher.getKey());
+                remove(moves[i], player);
+                if (entry != ProofNumberTable.MISSING) {
+                    childEntries[i] = entry;
+                }
+                int childProof = ProofNumberTable.proofOf(childEntries[i]);
+                int childDisproof = ProofNumberTable.disproofOf(childEntries[i]);
+                int number = isOrNode ? childProof : childDisproof;
+                int otherNumber = isOrNode ? childDisproof : childProof;
+                smallest = Math.min(smallest, number);
+                largest = Math.max(largest, otherNumber);
+                openChildren += otherNumber == 0 ? 0 : 1;
+                if (number < bestNumber) {
+                    secondNumber = bestNumber;
+                    bestNumber = number;
+                    bestChild = i;
+                    bestProof = childProof;
+                    bestDisproof = childDisproof;
+                } else if (number < secondNumber) {
+                    secondNumber = number;
+                }
+            }
+
+            int proof = isOrNode ? smallest : weakSum(largest, openChildren);
+            int disproof = isOrNode ? weakSum(largest, openChildren) : smallest;
+            if (proof >= proofThreshold || disproof >= disproofThreshold || stopped) {
+                table.store(key, proof, disproof, (int) Math.min(nodes - startNodes, Integer.MAX_VALUE));
+                return ProofNumberTable.pack(proof, disproof);
+            }
+
+            // search the best child until it stops being the best or its parent reaches a threshold
+            int childProofThreshold;
+            int childDisproofThreshold;
+            if (isOrNode) {
+                childProofThreshold = Math.min(proofThreshold, raiseThreshold(secondNumber));
+                childDisproofThreshold = disproofThreshold == INFINITY ? INFINITY :
+                        disproofThreshold - disproof + bestDisproof;
+            } else {
+                childProofThreshold = proofThreshold == INFINITY ? INFINITY :
+                        proofThreshold - proof + bestProof;
+                childDisproofThreshold = Math.min(disproofThreshold, raiseThreshold(secondNumber));
+            }
+            place(moves[bestChild], player);
+            childEntries[bestChild] = search(opponent, ply + 1, childProofThreshold, childDisproofThreshold);
+            remove(moves[bestChild], player);
+        }
+    }
+
+    /*
+     * List the moves worth trying in the position, or return whether it is decided already:
+     * the player wins if it can complete a window, loses if the opponent has two different cells
+     * to complete a window in, and nobody wins if the board is full or the attacker can't complete
+     * any window. A single threat of the opponent leaves a single move, blocking it.
+     */
+    private int generateMoves(byte player, int[] moves) {
+        int[] playerCounts = player == X_CELL ? xCounts : oCounts;
+        int[] opponentCounts = player == X_CELL ? oCounts : xCounts;
+        int threatCell = Board.NO_MOVE;
+        for (int window = 0; window < xCounts.length; window++) {
+            if (playerCounts[window] == winStreak - 1 && opponentCounts[window] == 0) {
+                return PLAYER_WINS;
+            }
+        }
+        for (int window = 0; window < xCounts.length; window++) {
+            if (opponentCounts[window] == winStreak - 1 && playerCounts[window] == 0) {
+                int cell = findEmptyCell(window);
+                if (threatCell != Board.NO_MOVE && cell != threatCell) {
+                    return PLAYER_LOSES;
+                }
+                threatCell = cell;
+            }
+        }
+        if (emptyCount == 0 || liveWindows == 0) {
+            return NOBODY_WINS;
+        }
+        if (threatCell != Board.NO_MOVE) {
+            moves[0] = threatCell;
+            return 1;
+        }
+        int moveCount = 0;
+        for (int cell : cellOrder) {
+            if (cells[cell] == EMPTY && isUseful(cell)) {
+                moves[moveCount++] = cell;
+            }
+        }
+        return moveCount;
+    }
+
+    /*
+     * Check if a mark in the cell can still matter, being in a window one of the players can
+     * complete. A mark in any other cell is as good as passing, and a player is never worse off
+     * with its mark anywhere else, so those cells are not tried.
+     */
+    private boolean isUseful(int cell) {
+        for (int window : cellWindows[cell]) {
+            if (xCounts[window] == 0 || oCounts[window] == 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /*
+     * Copy the root position of the solver, the player to move being the attacker
+     */
+    private void loadRoot(Board board) {
+        Arrays.fill(cells, EMPTY);
+        Arrays.fill(xCounts, 0);
+        Arrays.fill(oCounts, 0);
+        hasher.clear();
+        liveWindows = xCounts.length;
+        emptyCount = cells.length;
+        int xCount = 0;
+        int oCount = 0;
+        for (int row = 0; row < size; row++) {
+            for (int col = 0; col < size; col++) {
+                Mark mark = board.getMark(row, col);
+                if (mark != Mark.BLANK) {
+                    place(row * size + col, mark == Mark.X ? X_CELL : O_CELL);
+                    xCount += mark == Mark.X ? 1 : 0;
+                    oCount += mark == Mark.O ? 1 : 0;
+                }
+            }
+        }
+
+        // the live windows depend on who attacks, so they are counted once all the marks are placed
+        attacker = xCount == oCount ? X_CELL : O_CELL;
+        int[] defenderCounts = attacker == X_CELL ? oCounts : xCounts;
+        liveWindows = 0;
+        for (int count : defenderCounts) {
+            liveWindows += count == 0 ? 1 : 0;
+        }
+    }
+
+    /*
+     * Put a mark in a cell and update the hashes and the windows through the cell
+     */
+    private void place(int cell, byte player) {
+        cells[cell] = player;
+        hasher.place(cell, MARKS[player]);
+        emptyCount--;
+        int[] counts = player == X_CELL ? xCounts : oCounts;
+        for (int window : cellWindows[cell]) {
+            if (counts[window]++ == 0 && player != attacker) {
+                liveWindows--;
+            }
+        }
+    }
+
+    /*
+     * Take a mark out of a cell and update the hashes and the windows through the cell
+     */
+    private void remove(int cell, byte player) {
+        cells[cell] = EMPTY;
+        hasher.remove(cell, MARKS[player]);
+        emptyCount++;
+        int[] counts = player == X_CELL ? xCounts : oCounts;
+        for (int window : cellWindows[cell]) {
+            if (--counts[window] == 0 && player != attacker) {
+                liveWindows++;
+            }
+        }
+    }
+
+    /*
+     * Find the empty cell of a window
+     */
+    private int findEmptyCell(int window) {
+        for (int i = window * winStreak; i < (window + 1) * winStreak; i++) {
+            if (cells[windowCells[i]] == EMPTY) {
+                return windowCells[i];
+            }
+        }
+        return Board.NO_MOVE;
+    }
+
+    /*
+     * Count a node, and every batch of nodes report them to the solver and check if it stopped
+     */
+    private void countNode() {
+        if (++nodes % NODE_BATCH == 0) {
+            solver.addNodes(NODE_BATCH);
+            stopped = solver.isStopped();
+        }
+    }
+
+    /*
+     * Get the moves of a ply, allocated the first time the ply is reached
+     */
+    private int[] movesAt(int ply) {
+        if (movesByPly[ply] == null) {
+            movesByPly[ply] = new int[cells.length];
+        }
+        return movesByPly[ply];
+    }
+
+    /*
+     * Get the numbers of the children of a ply, allocated the first time the ply is reached
+     */
+    private long[] childEntriesAt(int ply) {
+        if (childEntriesByPly[ply] == null) {
+            childEntriesByPly[ply] = new long[cells.length];
+        }
+        return childEntriesByPly[ply];
+    }
+
+    /*
+     * Order the cells by the number of windows through them, the center first, and shuffle the
+     * order of the cells that tie by the seed, so the workers split up among equal moves
+     */
+    private int[] buildCellOrder(long seed) {
+        Integer[] order = new Integer[cells.length];
+        int[] ties = new int[cells.length];
+        Random random = new Random(seed);
+        for (int cell = 0; cell < order.length; cell++) {
+            order[cell] = cell;
+            ties[cell] = seed == 0 ? cell : random.nextInt();
+        }
+        Arrays.sort(order, (a, b) -> cellWindows[a].length != cellWindows[b].length ?
+                cellWindows[b].length - cellWindows[a].length : Integer.compare(ties[a], ties[b]));
+        int[] result = new int[order.length];
+        for (int i = 0; i < order.length; i++) {
+            result[i] = order[i];
+        }
+        return result;
+    }
+
+    /*
+     * Check whether a table entry is proven or disproven
+     */
+    private static boolean isSolved(long entry) {
+        return entry != ProofNumberTable.MISSING &&
+                (ProofNumberTable.proofOf(entry) == 0 || ProofNumberTable.disproofOf(entry) == 0);
+    }
+
+    /*
+     * Sum the numbers of the children that all count, as the largest of them plus one for every
+     * other child that isn't solved yet. The plain sum counts a position reached by several move
+     * orders once for every order, which grows past any bound on boards with many transpositions.
+     */
+    private static int weakSum(int largest, int openChildren) {
+        if (largest == INFINITY || largest == 0) {
+            return largest;
+        }
+        return (int) Math.min((long) largest + openChildren - 1, INFINITY - 1);
+    }
+
+    /*
+     * Raise the number of the second best child by a quarter, so the best child is searched a
+     * little past the point it stops being the best. A number that can't be raised anymore gives
+     * no threshold at all, since the best child could never get below it.
+     */
+    private static int raiseThreshold(int number) {
+        long raised = (long) number + number / THRESHOLD_EPSILON_DIVISOR + 1;
+        return raised >= INFINITY - 1 ? INFINITY : (int) raised;
+    }
+
+    /*
+     * Check if a cell is inside the board
+     */
+    private boolean isInside(int row, int col) {
+        return row >= 0 && row < size && col >= 0 && col < size;
+    }
+}
@@ -10,4 +10,12 @@ public interface Renderer {
      * @param board the board to render
      */
     void renderBoard(Board board);
+
+    /**
+     * Renders the board once the game is over. Renderers that render every move already
+     * rendered the final board, so they don't need to do anything.
+     * @param board the final board of the game
+     */
+    default void renderGameEnd(Board board) {
+    }
 }
\ No newline at end of file
@@ -4,6 +4,7 @@
  * @author Neriya Ben David
  * @see Renderer
  * @see ConsoleRenderer
+ * @see BufferedConsoleRenderer
  * @see VoidRenderer
  */
 public class RendererFactory {
@@ -11,6 +12,9 @@ public class RendererFactory {
     // constants for renderer types
     private static final String CONSOLE_RENDERER = "console";
     private static final String VOID_RENDERER = "none";
+    private static final String BUFFERED_RENDERER = "buffered";
+    private static final String DIFF_RENDERER = "diff";
+    private static final int EVERY_FRAME = 1;
 
     /**
      * Constructs a new RendererFactory object.
@@ -25,12 +29,29 @@ public class RendererFactory {
      * @return a new renderer object based on the type given
      */
     public Renderer buildRenderer(String type, int size) {
+        return buildRenderer(type, size, EVERY_FRAME);
+    }
+
+    /**
+     * Builds a new renderer according to the type given, drawing only some of the frames
+     * if the renderer can skip frames
+     * @param type the type of renderer to build
+     * @param size the size of the renderer
+     * @param frameInterval draw every frameInterval-th frame of a game, or
+     *                      BufferedConsoleRenderer.FINAL_FRAME_ONLY for only its final board
+     * @return a new renderer object based on the type given
+     */
+    public Renderer buildRenderer(String type, int size, int frameInterval) {
         // switch case to return the appropriate renderer based on the type given
         switch (type) {
             case CONSOLE_RENDERER:
                 return new ConsoleRenderer(size);
             case VOID_RENDERER:
                 return new VoidRenderer();
+            case BUFFERED_RENDERER:
+                return new BufferedConsoleRenderer(size, false, frameInterval, System.out);
+            case DIFF_RENDERER:
+                return new BufferedConsoleRenderer(size, true, frameInterval, System.out);
             default:
                 return null;
         }
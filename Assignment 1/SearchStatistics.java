@@ -0,0 +1,92 @@
+/**
+ * The SearchStatistics class sums up the work done by a searching player over its moves,
+ * so its search speed can be followed over tournaments.
+ * @author Neriya Ben David
+ * @see SearchingPlayer
+ */
+public class SearchStatistics {
+
+    // constants
+    private static final String REPORT_FORMAT =
+            "searched %d %s in %.2f seconds (%.0f %s/sec), deepest search: %d";
+    private static final double NANOS_PER_SECOND = 1e9;
+
+    // fields
+    private final String unit;
+    private long positions;
+    private long nanos;
+    private int maxDepth;
+
+    /**
+     * Constructs a new SearchStatistics object with no searches recorded.
+     * @param unit the name of the positions the player counts, such as nodes or playouts
+     */
+    public SearchStatistics(String unit) {
+        this.unit = unit;
+        this.positions = 0;
+        this.nanos = 0;
+        this.maxDepth = 0;
+    }
+
+    /**
+     * Records a single search.
+     * @param positions the number of positions visited by the search
+     * @param nanos the time the search took in nanoseconds
+     * @param depth the depth the search reached
+     */
+    public void addSearch(long positions, long nanos, int depth) {
+        this.positions += positions;
+        this.nanos += nanos;
+        this.maxDepth = Math.max(maxDepth, depth);
+    }
+
+    /**
+     * Adds the searches recorded by other statistics of the same kind to these statistics.
+     * @param other the other statistics
+     */
+    public void merge(SearchStatistics other) {
+        addSearch(other.positions, other.nanos, other.maxDepth);
+    }
+
+    /**
+     * Gets the name of the positions the player counts.
+     * @return the name of the counted positions, such as nodes or playouts
+     */
+    public String getUnit() {
+        return unit;
+    }
+
+    /**
+     * Gets the number of positions visited by all the recorded searches.
+     * @return the number of visited positions
+     */
+    public long getPositions() {
+        return positions;
+    }
+
+    /**
+     * Gets the average number of positions visited per second of search.
+     * @return the number of positions per second, or 0 if no time was spent searching
+     */
+    public double getPositionsPerSecond() {
+        return nanos == 0 ? 0 : positions * NANOS_PER_SECOND / nanos;
+    }
+
+    /**
+     * Gets the deepest depth reached by a recorded search.
+     * @return the deepest search depth
+     */
+    public int getMaxDepth() {
+        return maxDepth;
+    }
+
+    /**
+     * Gets a single line report of the statistics.
+     * @return the report of the statistics
+     */
+    @Override
+    public String toString() {
+        return String.format(REPORT_FORMAT, positions, unit, nanos / NANOS_PER_SECOND,
+                getPositionsPerSecond(), unit, maxDepth);
+    }
+}
@@ -0,0 +1,15 @@
+/**
+ * SearchingPlayer interface to represent a player that searches positions to choose its moves,
+ * and keeps statistics about the searches it made.
+ * @author Neriya Ben David
+ * @see Player
+ * @see SearchStatistics
+ */
+public interface SearchingPlayer extends Player {
+
+    /**
+     * Gets the statistics of all the searches the player made so far.
+     * @return the search statistics of the player
+     */
+    SearchStatistics getSearchStatistics();
+}
@@ -0,0 +1,109 @@
+/**
+ * The SparseBoardStorage class keeps only the occupied cells of a board, in a map from the
+ * packed row and column of a cell to its mark, so the memory of the storage grows with the
+ * moves played rather than with the size of the board. Boards of millions of rows and columns
+ * can be played on as long as the game itself only covers a small part of them, as random
+ * games with short win streaks do. Reading a cell is a lookup in an open-addressing table, so
+ * it is slower than reading a dense storage, and every empty cell is simply absent.
+ * @author Neriya Ben David
+ * @see BoardStorage
+ * @see LongByteMap
+ */
+public class SparseBoardStorage implements BoardStorage {
+
+    // constants
+    private static final int EXPECTED_MARKS = 64;
+    private static final byte X_CODE = 1;
+    private static final byte O_CODE = 2;
+    private static final byte BLANK_CODE = 0;
+    private static final Mark[] MARKS = {Mark.BLANK, Mark.X, Mark.O};
+
+    // fields
+    private final int size;
+    // the code of the mark of every occupied cell, keyed by the row in the high half of the key
+    // and the column in the low half, so a key is never the free key of the map
+    private final LongByteMap cells;
+
+    /**
+     * Constructs a new SparseBoardStorage object with all cells BLANK.
+     * @param size the size of the board
+     */
+    public SparseBoardStorage(int size) {
+        this.size = size;
+        this.cells = new LongByteMap(EXPECTED_MARKS);
+    }
+
+    /**
+     * Gets the size of the stored board.
+     * @return the size of the stored board
+     */
+    @Override
+    public int getSize() {
+        return size;
+    }
+
+    /**
+     * Gets the mark stored at the specified row and column.
+     * @param row the row of the cell
+     * @param col the column of the cell
+     * @return the mark stored in the cell
+     */
+    @Override
+    public Mark getMark(int row, int col) {
+        return MARKS[cells.get(keyOf(row, col), BLANK_CODE)];
+    }
+
+    /**
+     * Checks whether the cell at the specified row and column is empty.
+     * @param row the row of the cell
+     * @param col the column of the cell
+     * @return true if the cell is not in the map, false otherwise
+     */
+    @Override
+    public boolean isEmpty(int row, int col) {
+        return !cells.containsKey(keyOf(row, col));
+    }
+
+    /**
+     * Stores a mark at the specified row and column, taking the cell out of the map when the
+     * mark is BLANK.
+     * @param row the row of the cell
+     * @param col the column of the cell
+     * @param mark the mark to store
+     */
+    @Override
+    public void setMark(int row, int col, Mark mark) {
+        long key = keyOf(row, col);
+        if (mark == Mark.BLANK) {
+            cells.remove(key);
+        } else {
+            cells.put(key, mark == Mark.X ? X_CODE : O_CODE);
+        }
+    }
+
+    /**
+     * Sets all the cells back to BLANK by emptying the map, keeping its capacity.
+     */
+    @Override
+    public void clear() {
+        cells.clear();
+    }
+
+    /**
+     * Gets the number of occupied cells.
+     * @return the number of marks stored
+     */
+    public int getMarkCount() {
+        return cells.size();
+    }
+
+    /*
+     * Gets the key of the cell in the map, checking the bounds like an array access would.
+     */
+    private long keyOf(int row, int col) {
+        if (row < 0 || row >= size || col < 0 || col >= size) {
+            throw new ArrayIndexOutOfBoundsException("Cell (" + row + ", " + col + ") is out of the board");
+        }
+        return ((long) row << Integer.SIZE) | col;
+    }
+}
@@ -0,0 +1,163 @@
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * The SymmetricHasher class gives every board position a Zobrist key that is the same for all
+ * the rotations and reflections of the position, so caches and searches keep a single entry
+ * for the up to eight positions that only differ by a symmetry of the board.
+ * The hasher keeps the Zobrist hash of every symmetric form of the position and updates all
+ * eight of them when a mark is placed or removed, and the canonical key is the smallest of
+ * them. The symmetry that turns the position into its canonical form maps moves to the
+ * canonical form and back, so a move kept under the canonical key can be played on the board.
+ * @author Neriya Ben David
+ * @see BoardSymmetry
+ * @see MinimaxPlayer
+ */
+public class SymmetricHasher {
+
+    // constants
+    private static final long ZOBRIST_SEED = 0x9E3779B97F4A7C15L;
+    private static final int MARK_KINDS = 2;
+
+    // fields
+    private final int size;
+    private final BoardSymmetry symmetry;
+    // formKeys[form][cell * 2 + mark] is the key of the mark in the cell of the symmetric form
+    private final long[][] formKeys;
+    private final long[] hashes;
+
+    /**
+     * Constructs a new SymmetricHasher object for an empty board. The keys are always drawn
+     * from the same seed, so a position gets the same key in every hasher of its board size.
+     * @param size the size of the board
+     */
+    public SymmetricHasher(int size) {
+        this.size = size;
+        this.symmetry = new BoardSymmetry(size);
+        int cellCount = size * size;
+        long[] keys = new long[cellCount * MARK_KINDS];
+        Random random = new Random(ZOBRIST_SEED);
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = random.nextLong();
+        }
+
+        // a mark in a cell of a form is keyed like the mark in the cell the symmetry moves it to
+        this.formKeys = new long[BoardSymmetry.COUNT][keys.length];
+        for (int form = 0; form < BoardSymmetry.COUNT; form++) {
+            for (int cell = 0; cell < cellCount; cell++) {
+                for (int mark = 0; mark < MARK_KINDS; mark++) {
+                    formKeys[form][cell * MARK_KINDS + mark] =
+                            keys[symmetry.map(form, cell) * MARK_KINDS + mark];
+                }
+            }
+        }
+        this.hashes = new long[BoardSymmetry.COUNT];
+    }
+
+    /**
+     * Gets the size of the board.
+     * @return the size of the board
+     */
+    public int getSize() {
+        return size;
+    }
+
+    /**
+     * Forgets all the marks, hashing the empty board.
+     */
+    public void clear() {
+        Arrays.fill(hashes, 0);
+    }
+
+    /**
+     * Hashes all the marks of a board from scratch, forgetting the marks placed before.
+     * @param board the board to hash, of the size of the hasher
+     */
+    public void load(Board board) {
+        clear();
+        for (int row = 0; row < size; row++) {
+            for (int col = 0; col < size; col++) {
+                Mark mark = board.getMark(row, col);
+                if (mark != Mark.BLANK) {
+                    toggle(row * size + col, mark);
+                }
+            }
+        }
+    }
+
+    /**
+     * Updates the hashes with a mark placed in an empty cell.
+     * @param cell the cell, row * size + col
+     * @param mark the mark placed, X or O
+     */
+    public void place(int cell, Mark mark) {
+        toggle(cell, mark);
+    }
+
+    /**
+     * Updates the hashes with a mark taken back from a cell.
+     * @param cell the cell, row * size + col
+     * @param mark the mark taken back, X or O
+     */
+    public void remove(int cell, Mark mark) {
+        toggle(cell, mark);
+    }
+
+    /**
+     * Gets the key of the position, the same for all its rotations and reflections.
+     * @return the canonical key
+     */
+    public long getKey() {
+        return hashes[getCanonicalForm()];
+    }
+
+    /**
+     * Gets the key of the position as it is, without symmetry reduction.
+     * @return the plain Zobrist key
+     */
+    public long getPlainKey() {
+        return hashes[0];
+    }
+
+    /**
+     * Gets the symmetry that turns the position into its canonical form.
+     * @return the index of the symmetry, as understood by BoardSymmetry
+     */
+    public int getCanonicalForm() {
+        int canonicalForm = 0;
+        for (int form = 1; form < BoardSymmetry.COUNT; form++) {
+            if (hashes[form] < hashes[canonicalForm]) {
+                canonicalForm = form;
+            }
+        }
+        return canonicalForm;
+    }
+
+    /**
+     * Maps a cell of the position to the same cell of its canonical form.
+     * @param cell the cell on the board, row * size + col
+     * @return the cell in the canonical form
+     */
+    public int toCanonicalCell(int cell) {
+        return symmetry.map(getCanonicalForm(), cell);
+    }
+
+    /**
+     * Maps a cell of the canonical form back to the same cell of the position on the board.
+     * @param cell the cell in the canonical form
+     * @return the cell on the board, row * size + col
+     */
+    public int fromCanonicalCell(int cell) {
+        return symmetry.unmap(getCanonicalForm(), cell);
+    }
+
+    /*
+     * Add or take away the key of a mark in a cell from the hashes of all the forms
+     */
+    private void toggle(int cell, Mark mark) {
+        int index = cell * MARK_KINDS + mark.ordinal();
+        for (int form = 0; form < BoardSymmetry.COUNT; form++) {
+            hashes[form] ^= formKeys[form][index];
+        }
+    }
+}
@@ -0,0 +1,164 @@
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * The Tablebase class answers the best move of a position from a tablebase file written by the
+ * TablebaseSolver. The file is memory-mapped, so opening it reads nothing and the operating
+ * system shares its pages between all the players that use it. The file starts with a header:
+ * a magic number, the board size, the win streak and the number of positions, all ints,
+ * followed by the sorted canonical codes of the positions as ints, then the best move of every
+ * position as a byte and its score as a byte, in the order of the codes.
+ * A lookup finds the canonical code of the board and binary searches it in the codes, without
+ * allocating anything, so a Tablebase object must not be shared by threads; every player opens
+ * its own.
+ * @author Neriya Ben David
+ * @see TablebaseSolver
+ * @see PerfectPlayer
+ */
+public class Tablebase {
+
+    // constants, shared with the solver
+    static final int MAGIC = 0x54544254;
+    static final int HEADER_SIZE = 4 * Integer.BYTES;
+    static final int ENTRY_SIZE = Integer.BYTES + 2 * Byte.BYTES;
+    private static final String FILE_NAME_FORMAT = "tablebase-%dx%d-%d.bin";
+    private static final String INVALID_FILE_MESSAGE = "Not a tablebase file: ";
+    private static final int BASE = 3;
+
+    // constants
+    /** The move returned for positions that are not in the tablebase. */
+    public static final int NO_MOVE = -1;
+
+    // fields
+    private final MappedByteBuffer buffer;
+    private final int size;
+    private final int winStreak;
+    private final int positionCount;
+    private final int movesOffset;
+    private final BoardSymmetry symmetry;
+    private final long[][] cellValues;
+    private final long[] codes;
+
+    /*
+     * Wrap a mapped tablebase file
+     */
+    private Tablebase(MappedByteBuffer buffer) {
+        this.buffer = buffer;
+        this.size = buffer.getInt(Integer.BYTES);
+        this.winStreak = buffer.getInt(2 * Integer.BYTES);
+        this.positionCount = buffer.getInt(3 * Integer.BYTES);
+        this.movesOffset = HEADER_SIZE + positionCount * Integer.BYTES;
+        this.symmetry = new BoardSymmetry(size);
+        this.cellValues = TablebaseSolver.buildCellValues(symmetry);
+        this.codes = new long[BoardSymmetry.COUNT];
+    }
+
+    /**
+     * Maps a tablebase file into memory.
+     * @param path the path of the file
+     * @return the tablebase of the file
+     * @throws IOException if the file can't be read or is not a tablebase file
+     */
+    public static Tablebase open(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.capacity() < HEADER_SIZE || buffer.getInt(0) != MAGIC ||
+                    buffer.capacity() != HEADER_SIZE + (long) buffer.getInt(3 * Integer.BYTES) * ENTRY_SIZE) {
+                throw new IOException(INVALID_FILE_MESSAGE + path);
+            }
+            return new Tablebase(buffer);
+        }
+    }
+
+    /**
+     * Gets the path the tablebase of a board is saved to by default, in the working directory.
+     * @param size the size of the board
+     * @param winStreak the number of marks in a row needed to win the game
+     * @return the default path of the tablebase file
+     */
+    public static Path defaultPath(int size, int winStreak) {
+        return Paths.get(String.format(FILE_NAME_FORMAT, size, size, winStreak));
+    }
+
+    /**
+     * Gets the size of the board of the tablebase.
+     * @return the size of the board
+     */
+    public int getSize() {
+        return size;
+    }
+
+    /**
+     * Gets the win streak of the tablebase.
+     * @return the number of marks in a row needed to win the game
+     */
+    public int getWinStreak() {
+        return winStreak;
+    }
+
+    /**
+     * Gets the number of positions in the tablebase.
+     * @return the number of positions
+     */
+    public int getPositionCount() {
+        return positionCount;
+    }
+
+    /**
+     * Finds the best move of the player to move on the board.
+     * @param board the board, of the size of the tablebase
+     * @return the cell of the best move, row * size + col, or NO_MOVE if the game is over
+     */
+    public int findMove(Board board) {
+        // find the code of every form of the board and the smallest of them
+        Arrays.fill(codes, 0);
+        for (int row = 0; row < size; row++) {
+            for (int col = 0; col < size; col++) {
+                Mark mark = board.getMark(row, col);
+                if (mark != Mark.BLANK) {
+                    int value = (row * size + col) * BASE + (mark == Mark.X ? 1 : 2);
+                    for (int form = 0; form < BoardSymmetry.COUNT; form++) {
+                        codes[form] += cellValues[form][value];
+                    }
+                }
+            }
+        }
+        int canonicalForm = 0;
+        for (int form = 1; form < BoardSymmetry.COUNT; form++) {
+            if (codes[form] < codes[canonicalForm]) {
+                canonicalForm = form;
+            }
+        }
+
+        int entry = findEntry((int) codes[canonicalForm]);
+        if (entry < 0) {
+            return NO_MOVE;
+        }
+        return symmetry.unmap(canonicalForm, buffer.get(movesOffset + entry));
+    }
+
+    /*
+     * Binary search the canonical code among the codes of the positions, returns -1 if it's missing
+     */
+    private int findEntry(int code) {
+        int low = 0;
+        int high = positionCount - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            int middleCode = buffer.getInt(HEADER_SIZE + middle * Integer.BYTES);
+            if (middleCode < code) {
+                low = middle + 1;
+            } else if (middleCode > code) {
+                high = middle - 1;
+            } else {
+                return middle;
+            }
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,310 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * The TablebaseSolver class solves a small board completely and saves the solution as a
+ * tablebase file. Every position reachable from the empty board is searched once, positions
+ * that only differ by a symmetry of the board counting as one: a position is identified by the
+ * smallest of the base-3 codes of its eight symmetric forms, and the eight codes are updated
+ * with every move, so finding the canonical form takes no more than eight additions.
+ * The value of a position is scored for the player to move: a win scores more the sooner it
+ * comes and a loss scores less the sooner it comes, so the best move also wins fastest and
+ * loses slowest. The file holds, for every position that isn't over yet, its canonical code,
+ * the best move in the canonical form and the score, sorted by code.
+ * @author Neriya Ben David
+ * @see Tablebase
+ * @see PerfectPlayer
+ */
+public class TablebaseSolver {
+
+    // constants
+    /** The largest board size a tablebase can be solved for. */
+    public static final int MAX_SIZE = 4;
+    private static final byte EMPTY = 0;
+    private static final byte X_CELL = 1;
+    private static final byte O_CELL = 2;
+    private static final int BASE = 3;
+    private static final int EXPECTED_POSITIONS = 1 << 16;
+    private static final byte NO_SCORE = Byte.MIN_VALUE;
+    private static final String TEMP_SUFFIX = ".tmp";
+
+    // Constants Arguments
+    private static final int SIZE_ARG = 0;
+    private static final int WIN_STREAK_ARG = 1;
+    private static final int FILE_ARG = 2;
+    private static final int MIN_ARGS = 2;
+
+    // Constants Messages
+    private static final String USAGE_MESSAGE = "Usage: java TablebaseSolver [size: 2-" + MAX_SIZE +
+            "] [win_streak] [optional: tablebase file]";
+    private static final String SOLVED_MESSAGE = "Solved %dx%d with win streak %d in %.1f ms: " +
+            "%d positions, the first player %s\n";
+    private static final String SAVED_MESSAGE = "Saved %s: %d bytes, %.2f bytes per position\n";
+    private static final String LOOKUP_MESSAGE = "Lookup latency: %.1f ns over %d lookups of %d positions\n";
+    private static final String WRITE_FAILED_MESSAGE = "Could not write the tablebase: %s\n";
+    private static final String[] OUTCOME_NAMES = {"loses", "draws", "wins"};
+    private static final double NANOS_PER_MILLI = 1e6;
+    private static final int LOOKUP_GAMES = 10_000;
+    private static final int LOOKUPS_PER_POSITION = 16;
+    private static final long LOOKUP_SEED = 42;
+
+    // fields
+    private final int size;
+    private final int winStreak;
+    private final BoardSymmetry symmetry;
+    private final long[][] cellValues;
+    private final byte[] cells;
+    private final long[] codes;
+    private final LongByteMap scores;
+    private final LongByteMap moves;
+
+    /**
+     * Constructs a new TablebaseSolver object.
+     * @param size the size of the board, up to MAX_SIZE
+     * @param winStreak the number of marks in a row needed to win the game
+     */
+    public TablebaseSolver(int size, int winStreak) {
+        this.size = size;
+        this.winStreak = winStreak;
+        this.symmetry = new BoardSymmetry(size);
+        this.cellValues = buildCellValues(symmetry);
+        this.cells = new byte[size * size];
+        this.codes = new long[BoardSymmetry.COUNT];
+        this.scores = new LongByteMap(EXPECTED_POSITIONS);
+        this.moves = new LongByteMap(EXPECTED_POSITIONS);
+    }
+
+    /**
+     * Gets the value of the code of a mark in a cell of every symmetric form of a board,
+     * values[symmetry][cell * 3 + mark], so the codes of the forms are sums of these values.
+     * @param symmetry the symmetries of the board
+     * @return the values of the marks in the cells
+     */
+    static long[][] buildCellValues(BoardSymmetry symmetry) {
+        int cellCount = symmetry.getSize() * symmetry.getSize();
+        long[] powers = new long[cellCount];
+        for (int cell = 0; cell < cellCount; cell++) {
+            powers[cell] = cell == 0 ? 1 : powers[cell - 1] * BASE;
+        }
+        long[][] values = new long[BoardSymmetry.COUNT][cellCount * BASE];
+        for (int form = 0; form < BoardSymmetry.COUNT; form++) {
+            for (int cell = 0; cell < cellCount; cell++) {
+                for (int mark = 0; mark < BASE; mark++) {
+                    values[form][cell * BASE + mark] = mark * powers[symmetry.map(form, cell)];
+                }
+            }
+        }
+        return values;
+    }
+
+    /**
+     * Solves every position reachable from the empty board.
+     * @return the score of the empty board for the first player, positive if it wins,
+     *         zero for a draw and negative if it loses
+     */
+    public int solve() {
+        scores.clear();
+        moves.clear();
+        Arrays.fill(cells, EMPTY);
+        Arrays.fill(codes, 0);
+        return search(cells.length, X_CELL);
+    }
+
+    /**
+     * Gets the number of solved positions that are not over yet.
+     * @return the number of positions
+     */
+    public int getPositionCount() {
+        return scores.size();
+    }
+
+    /**
+     * Saves the solved positions to a tablebase file, replacing the file if it exists. The file is
+     * written next to it first and moved into place at once, so a tablebase mapped by a player
+     * is never rewritten under it and no player opens a file that is only partly written.
+     * @param path the path of the file
+     * @throws IOException if the file can't be written
+     */
+    public void save(Path path) throws IOException {
+        long[] keys = scores.keys();
+        Arrays.sort(keys);
+        ByteBuffer buffer = ByteBuffer.allocate(Tablebase.HEADER_SIZE + keys.length * Tablebase.ENTRY_SIZE);
+        buffer.putInt(Tablebase.MAGIC);
+        buffer.putInt(size);
+        buffer.putInt(winStreak);
+        buffer.putInt(keys.length);
+        for (long key : keys) {
+            buffer.putInt((int) key);
+        }
+        for (long key : keys) {
+            buffer.put(moves.get(key, NO_SCORE));
+        }
+        for (long key : keys) {
+            buffer.put(scores.get(key, NO_SCORE));
+        }
+        buffer.flip();
+
+        Path tempPath = path.resolveSibling(path.getFileName() + TEMP_SUFFIX);
+        try (FileChannel channel = FileChannel.open(tempPath, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        }
+        Files.move(tempPath, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /*
+     * Score the position for the player to move and remember its best move, by its canonical code
+     */
+    private int search(int emptyCount, byte player) {
+        long key = canonicalCode();
+        byte known = scores.get(key, NO_SCORE);
+        if (known != NO_SCORE) {
+            return known;
+        }
+
+        int bestScore = Integer.MIN_VALUE;
+        int bestMove = 0;
+        for (int cell = 0; cell < cells.length; cell++) {
+            if (cells[cell] != EMPTY) {
+                continue;
+            }
+            place(cell, player);
+            int score;
+            if (CellStreaks.isWinningMove(cells, size, winStreak, cell, player)) {
+                // a sooner win leaves more empty cells
+                score = emptyCount;
+            } else if (emptyCount == 1) {
+                score = 0;
+            } else {
+                score = -search(emptyCount - 1, player == X_CELL ? O_CELL : X_CELL);
+            }
+            remove(cell, player);
+            if (score > bestScore) {
+                bestScore = score;
+                bestMove = cell;
+            }
+        }
+
+        scores.put(key, (byte) bestScore);
+        moves.put(key, (byte) symmetry.map(canonicalForm(key), bestMove));
+        return bestScore;
+    }
+
+    /*
+     * Put a mark in a cell and update the codes of all the forms
+     */
+    private void place(int cell, byte player) {
+        cells[cell] = player;
+        for (int form = 0; form < BoardSymmetry.COUNT; form++) {
+            codes[form] += cellValues[form][cell * BASE + player];
+        }
+    }
+
+    /*
+     * Take a mark out of a cell and update the codes of all the forms
+     */
+    private void remove(int cell, byte player) {
+        cells[cell] = EMPTY;
+        for (int form = 0; form < BoardSymmetry.COUNT; form++) {
+            codes[form] -= cellValues[form][cell * BASE + player];
+        }
+    }
+
+    /*
+     * Get the smallest code of the forms of the position
+     */
+    private long canonicalCode() {
+        long smallest = codes[0];
+        for (int form = 1; form < BoardSymmetry.COUNT; form++) {
+            smallest = Math.min(smallest, codes[form]);
+        }
+        return smallest;
+    }
+
+    /*
+     * Get a symmetry that turns the position into its canonical form
+     */
+    private int canonicalForm(long key) {
+        int form = 0;
+        while (codes[form] != key) {
+            form++;
+        }
+        return form;
+    }
+
+    /**
+     * Main method to solve a board, save its tablebase and report the time, size and lookup latency
+     * @param args command line arguments
+     */
+    public static void main(String[] args) {
+        int size;
+        int winStreak;
+        try {
+            size = Integer.parseInt(args[SIZE_ARG]);
+            winStreak = Integer.parseInt(args[WIN_STREAK_ARG]);
+        } catch (RuntimeException e) {
+            System.out.println(USAGE_MESSAGE);
+            return;
+        }
+        if (args.length < MIN_ARGS || size < 2 || size > MAX_SIZE || winStreak < 2 || winStreak > size) {
+            System.out.println(USAGE_MESSAGE);
+            return;
+        }
+        Path path = args.length > FILE_ARG ? Paths.get(args[FILE_ARG]) :
+                Tablebase.defaultPath(size, winStreak);
+
+        // solve the board
+        TablebaseSolver solver = new TablebaseSolver(size, winStreak);
+        long startTime = System.nanoTime();
+        int score = solver.solve();
+        double solveMillis = (System.nanoTime() - startTime) / NANOS_PER_MILLI;
+        System.out.printf(SOLVED_MESSAGE, size, size, winStreak, solveMillis, solver.getPositionCount(),
+                OUTCOME_NAMES[Integer.signum(score) + 1]);
+
+        // save it and measure the lookups of the positions of random games
+        try {
+            solver.save(path);
+            System.out.printf(SAVED_MESSAGE, path, Files.size(path),
+                    (double) Files.size(path) / Math.max(solver.getPositionCount(), 1));
+            measureLookups(Tablebase.open(path), size);
+        } catch (IOException e) {
+            System.out.printf(WRITE_FAILED_MESSAGE, e.getMessage());
+        }
+    }
+
+    /*
+     * Measure the average time of a lookup over the positions of random games
+     */
+    private static void measureLookups(Tablebase tablebase, int size) {
+        Board board = new Board(size);
+        Random random = new Random(LOOKUP_SEED);
+        long lookupNanos = 0;
+        long moveSum = 0;
+        int positions = 0;
+        for (int game = 0; game < LOOKUP_GAMES; game++) {
+            board.clear();
+            for (int turn = 0; turn < size * size; turn++) {
+                long startTime = System.nanoTime();
+                for (int i = 0; i < LOOKUPS_PER_POSITION; i++) {
+                    moveSum += tablebase.findMove(board);
+                }
+                lookupNanos += System.nanoTime() - startTime;
+                positions++;
+                board.putMarkInRandomEmptyCell(turn % 2 == 0 ? Mark.X : Mark.O, random);
+            }
+        }
+        BenchmarkRunner.consume(moveSum);
+        long lookups = (long) positions * LOOKUPS_PER_POSITION;
+        System.out.printf(LOOKUP_MESSAGE, (double) lookupNanos / lookups, lookups, positions);
+    }
+}
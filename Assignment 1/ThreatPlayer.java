@@ -0,0 +1,409 @@
+/**
+ * The ThreatPlayer class represents a player for gomoku-like games, which looks for forced wins
+ * by threat-space search. A four is a move that leaves a window a single mark short of
+ * complete, so the opponent must block its last cell, and a three is a move that leaves at
+ * least two windows two marks short of complete, so the opponent must answer it or face a four
+ * it can't block. The search only plays such threats, answered by every block of the opponent
+ * and by every four of the opponent's own, so it stays narrow and finds long forced wins quickly.
+ * Every turn the player wins if it can, blocks the opponent if it must, and then searches its
+ * own threats deeper and deeper until the time budget of the move runs out. Without a forced
+ * win it searches the threats of the opponent, and against a forced win of the opponent it
+ * plays the first cell it finds that stops all of them, trying the cell the win found starts
+ * in and then the threats of the opponent. If the opponent has no forced win either, it plays
+ * the most valuable cell by the line evaluator.
+ * @author Neriya Ben David
+ * @see Player
+ * @see SearchingPlayer
+ * @see LineEvaluator
+ */
+public class ThreatPlayer implements SearchingPlayer {
+
+    // constants
+    private static final long DEFAULT_MOVE_TIME_MILLIS = 100;
+    private static final long NANOS_PER_MILLI = 1_000_000L;
+    private static final String SEARCH_UNIT = "nodes";
+    private static final int NO_MOVE = Board.NO_MOVE;
+    // threes are only threats when a window holds more than a win streak less three marks
+    private static final int MIN_STREAK_FOR_THREES = 4;
+    private static final int MIN_THREE_WINDOWS = 2;
+    private static final int SAFE_CANDIDATES = 8;
+    private static final int TIME_PARTS = 3;
+
+    // settings
+    private final long moveTimeNanos;
+    private final SearchStatistics statistics;
+
+    // position being searched
+    private LineEvaluator evaluator;
+    private int[][] movesByPly;
+    private final long[] candidateValues;
+
+    // search state
+    private long nodes;
+    private long deadline;
+    private boolean aborted;
+    private boolean cutByDepth;
+    private int winningMove;
+    private int finishedDepth;
+
+    /**
+     * Constructs a new ThreatPlayer object with the default time budget per move.
+     */
+    public ThreatPlayer() {
+        this(DEFAULT_MOVE_TIME_MILLIS);
+    }
+
+    /**
+     * Constructs a new ThreatPlayer object.
+     * @param moveTimeMillis the time budget of a single move in milliseconds
+     */
+    public ThreatPlayer(long moveTimeMillis) {
+        this.moveTimeNanos = moveTimeMillis * NANOS_PER_MILLI;
+        this.statistics = new SearchStatistics(SEARCH_UNIT);
+        this.candidateValues = new long[SAFE_CANDIDATES];
+        this.evaluator = null;
+    }
+
+    /**
+     * Prepares the evaluator and the search structures for the board size and win streak of the
+     * new game.
+     * @param board the board the game is played on
+     * @param winStreak the number of marks in a row needed to win the game
+     */
+    @Override
+    public void startGame(Board board, int winStreak) {
+        if (evaluator == null || evaluator.getSize() != board.getSize() ||
+                evaluator.getWinStreak() != winStreak) {
+            int cellCount = board.getSize() * board.getSize();
+            evaluator = new LineEvaluator(board.getSize(), winStreak);
+            movesByPly = new int[cellCount + 1][];
+        }
+    }
+
+    /**
+     * Play a turn by the first move of a forced win if one is found within the time budget, and
+     * by the best defensive or heuristic move otherwise.
+     * @param board game board to play on
+     * @param mark mark to put on board
+     */
+    @Override
+    public void playTurn(Board board, Mark mark) {
+        long startTime = System.nanoTime();
+        if (evaluator == null || evaluator.getSize() != board.getSize()) {
+            startGame(board, evaluator == null ? LineEvaluator.DEFAULT_WIN_STREAK : evaluator.getWinStreak());
+        }
+        evaluator.follow(board);
+
+        nodes = 0;
+        int depth = 0;
+        int almostComplete = evaluator.getWinStreak() - 1;
+        Mark opponent = opponentOf(mark);
+
+        int move;
+        if (evaluator.getWindowCount(mark, almostComplete) > 0) {
+            // a winning move is worth more than any other
+            move = evaluator.bestCell(mark);
+        } else if (evaluator.getWindowCount(opponent, almostComplete) > 0) {
+            move = evaluator.bestCell(opponent);
+        } else {
+            // the time is shared by the search for a win, the search for a loss and the defence
+            long partNanos = moveTimeNanos / TIME_PARTS;
+            move = searchThreats(mark, startTime + partNanos);
+            depth = finishedDepth;
+            if (move == NO_MOVE) {
+                int threat = searchThreats(opponent, startTime + 2 * partNanos);
+                depth = Math.max(depth, finishedDepth);
+                move = findSafeMove(mark, threat, Math.max(finishedDepth, 1), startTime + moveTimeNanos);
+            }
+        }
+
+        if (move != NO_MOVE) {
+            int size = evaluator.getSize();
+            board.putMark(mark, move / size, move % size);
+            evaluator.place(move / size, move % size, mark);
+        }
+        statistics.addSearch(nodes, System.nanoTime() - startTime, depth);
+    }
+
+    /**
+     * Gets the statistics of all the searches the player made so far.
+     * @return the search statistics of the player
+     */
+    @Override
+    public SearchStatistics getSearchStatistics() {
+        return statistics;
+    }
+
+    /*
+     * Search the threats of the attacker deeper and deeper, as if it was its move, and return the
+     * first move of a forced win, or NO_MOVE if none was found before the deadline
+     */
+    private int searchThreats(Mark attacker, long deadline) {
+        this.deadline = deadline;
+        aborted = false;
+        finishedDepth = 0;
+        for (int depth = 1; depth <= evaluator.getSize() * evaluator.getSize(); depth++) {
+            cutByDepth = false;
+            winningMove = NO_MOVE;
+            boolean isWin = attack(attacker, depth, 0);
+            if (aborted) {
+                return NO_MOVE;
+            }
+            finishedDepth = depth;
+            if (isWin) {
+                return winningMove;
+            }
+            // no line of threats was long enough to need a deeper search
+            if (!cutByDepth) {
+                return NO_MOVE;
+            }
+        }
+        return NO_MOVE;
+    }
+
+    /*
+     * Find a move after which the opponent has no forced win found at the given depth: the first
+     * move of the win found and the threats of both players when the opponent has a forced win,
+     * and the most valuable cells otherwise. Returns the first candidate if none is safe in time
+     */
+    private int findSafeMove(Mark mark, int threat, int threatDepth, long deadline) {
+        this.deadline = deadline;
+        aborted = false;
+        Mark opponent = opponentOf(mark);
+        int size = evaluator.getSize();
+        int[] candidates = movesAt(0);
+        int candidateCount;
+        if (threat != NO_MOVE) {
+            // block the threats of the opponent, or answer them with threats of the player
+            candidates[0] = threat;
+            candidateCount = 1 + generateThreats(opponent, candidates, 1);
+            candidateCount += generateThreats(mark, candidates, candidateCount);
+        } else {
+            candidateCount = collectMostValuableCells(mark, candidates);
+        }
+        if (candidateCount == 0) {
+            return NO_MOVE;
+        }
+
+        for (int i = 0; i < candidateCount && !aborted; i++) {
+            if (isOutOfTime()) {
+                break;
+            }
+            int row = candidates[i] / size;
+            int col = candidates[i] % size;
+            evaluator.place(row, col, mark);
+            boolean isLost = attack(opponent, threatDepth, 1);
+            evaluator.remove(row, col, mark);
+            if (!isLost && !aborted) {
+                return candidates[i];
+            }
+        }
+        return candidates[0];
+    }
+
+    /*
+     * Check if the attacker, to move, wins by threats played at most the given number of times
+     */
+    private boolean attack(Mark attacker, int depth, int ply) {
+        int almostComplete = evaluator.getWinStreak() - 1;
+        if (evaluator.getWindowCount(attacker, almostComplete) > 0) {
+            if (ply == 0) {
+                winningMove = evaluator.bestCell(attacker);
+            }
+            return true;
+        }
+        if (depth == 0) {
+            cutByDepth = true;
+            return false;
+        }
+
+        int size = evaluator.getSize();
+        int[] moves = movesAt(ply);
+        int moveCount = generateThreats(attacker, moves, 0);
+        for (int i = 0; i < moveCount; i++) {
+            int row = moves[i] / size;
+            int col = moves[i] % size;
+            evaluator.place(row, col, attacker);
+            boolean isWin = defend(attacker, row, col, depth, ply + 1);
+            evaluator.remove(row, col, attacker);
+            if (aborted) {
+                return false;
+            }
+            if (isWin) {
+                if (ply == 0) {
+                    winningMove = moves[i];
+                }
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /*
+     * Check if the attacker wins against every answer of the defender to the threat just played
+     */
+    private boolean defend(Mark attacker, int row, int col, int depth, int ply) {
+        nodes++;
+        if (isOutOfTime()) {
+            aborted = true;
+        }
+        Mark defender = opponentOf(attacker);
+        int almostComplete = evaluator.getWinStreak() - 1;
+        if (aborted || evaluator.getWindowCount(defender, almostComplete) > 0) {
+            return false;
+        }
+
+        // a four is answered in its last cell, a three in any cell of its windows
+        int[] answers = movesAt(ply);
+        int answerCount = evaluator.collectGaps(row, col, attacker, almostComplete, answers);
+        if (answerCount > 1) {
+            return true;
+        }
+        if (answerCount == 0) {
+            answerCount = evaluator.collectGaps(row, col, attacker, almostComplete - 1, answers);
+            answerCount = addFours(defender, answers, answerCount);
+        }
+
+        int size = evaluator.getSize();
+        for (int i = 0; i < answerCount; i++) {
+            int answerRow = answers[i] / size;
+            int answerCol = answers[i] % size;
+            evaluator.place(answerRow, answerCol, defender);
+            boolean isWin = attack(attacker, depth - 1, ply + 1);
+            evaluator.remove(answerRow, answerCol, defender);
+            if (!isWin) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /*
+     * Fill the threats of the attacker from the given index of the moves, fours before threes,
+     * and return their number. When the defender threatens to win, only the threats that also
+     * block it are filled
+     */
+    private int generateThreats(Mark attacker, int[] moves, int first) {
+        int size = evaluator.getSize();
+        int winStreak = evaluator.getWinStreak();
+        Mark defender = opponentOf(attacker);
+        boolean mustBlock = evaluator.getWindowCount(defender, winStreak - 1) > 0;
+        boolean allowThrees = winStreak >= MIN_STREAK_FOR_THREES;
+        int minMarksInReach = allowThrees ? winStreak - 3 : winStreak - 2;
+        int fourCount = first;
+        int moveCount = first;
+        for (int row = 0; row < size; row++) {
+            for (int col = 0; col < size; col++) {
+                if (!evaluator.isEmpty(row, col) ||
+                        evaluator.getMarksInReach(row, col, attacker) < minMarksInReach ||
+                        (mustBlock && !isWin(row, col, defender))) {
+                    continue;
+                }
+                if (isFour(row, col, attacker)) {
+                    // keep the fours in front of the threes
+                    moves[moveCount++] = moves[fourCount];
+                    moves[fourCount++] = row * size + col;
+                } else if (allowThrees && evaluator.countWindowsThrough(row, col, attacker,
+                        winStreak - 3) >= MIN_THREE_WINDOWS) {
+                    moves[moveCount++] = row * size + col;
+                }
+            }
+        }
+        return moveCount - first;
+    }
+
+    /*
+     * Add the empty cells the defender makes a four in to the answers, each cell once, and
+     * return the new number of answers
+     */
+    private int addFours(Mark defender, int[] answers, int answerCount) {
+        int size = evaluator.getSize();
+        int winStreak = evaluator.getWinStreak();
+        int count = answerCount;
+        for (int row = 0; row < size; row++) {
+            for (int col = 0; col < size; col++) {
+                int cell = row * size + col;
+                if (evaluator.isEmpty(row, col) && isFour(row, col, defender) &&
+                        !LineEvaluator.contains(answers, answerCount, cell)) {
+                    answers[count++] = cell;
+                }
+            }
+        }
+        return count;
+    }
+
+    /*
+     * Check if a mark of the player in an empty cell leaves a window a single mark short of
+     * complete
+     */
+    private boolean isFour(int row, int col, Mark mark) {
+        int marks = evaluator.getWinStreak() - 2;
+        return evaluator.getMarksInReach(row, col, mark) >= marks &&
+                evaluator.countWindowsThrough(row, col, mark, marks) > 0;
+    }
+
+    /*
+     * Check if a mark of the player in an empty cell completes a window
+     */
+    private boolean isWin(int row, int col, Mark mark) {
+        int marks = evaluator.getWinStreak() - 1;
+        return evaluator.getMarksInReach(row, col, mark) >= marks &&
+                evaluator.countWindowsThrough(row, col, mark, marks) > 0;
+    }
+
+    /*
+     * Fill the most valuable empty cells for the player, most valuable first, and return their
+     * number. Once a cell is found the scan stops at the end of the first row out of time
+     */
+    private int collectMostValuableCells(Mark mark, int[] cells) {
+        int size = evaluator.getSize();
+        int count = 0;
+        for (int row = 0; row < size && (count == 0 || !isOutOfTime()); row++) {
+            for (int col = 0; col < size; col++) {
+                if (!evaluator.isEmpty(row, col)) {
+                    continue;
+                }
+                long value = evaluator.getMoveValue(row, col, mark);
+                if (count == SAFE_CANDIDATES && value <= candidateValues[count - 1]) {
+                    continue;
+                }
+
+                // insert the cell in its place among the cells found so far
+                int position = Math.min(count, SAFE_CANDIDATES - 1);
+                while (position > 0 && candidateValues[position - 1] < value) {
+                    cells[position] = cells[position - 1];
+                    candidateValues[position] = candidateValues[position - 1];
+                    position--;
+                }
+                cells[position] = row * size + col;
+                candidateValues[position] = value;
+                count = Math.min(count + 1, SAFE_CANDIDATES);
+            }
+        }
+        return count;
+    }
+
+    /*
+     * The moves buffer of a ply, allocated the first time the ply is reached
+     */
+    private int[] movesAt(int ply) {
+        if (movesByPly[ply] == null) {
+            movesByPly[ply] = new int[evaluator.getSize() * evaluator.getSize()];
+        }
+        return movesByPly[ply];
+    }
+
+    /*
+     * Check if the search should stop, either out of time or because it was interrupted
+     */
+    private boolean isOutOfTime() {
+        return System.nanoTime() > deadline || Thread.currentThread().isInterrupted();
+    }
+
+    /*
+     * Get the mark of the opponent of a player
+     */
+    private static Mark opponentOf(Mark mark) {
+        return mark == Mark.X ? Mark.O : Mark.X;
+    }
+}
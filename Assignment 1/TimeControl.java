@@ -0,0 +1,336 @@
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * The TimeControl class gives every move of a game a deadline, so a player that searches for too
+ * long can't hold up a tournament. The player plays its turn on a worker thread, on a mirror of
+ * the game board that follows all the moves of the game, and the move is copied to the game
+ * board only if it was made in time. A player that runs past the deadline is interrupted, which
+ * the searching players check for, and waited for as long again; its move is thrown away and
+ * either a random fallback move is played for it or it forfeits the game.
+ * A player that doesn't stop even then is given up on: the mirror is left to it and a new one is
+ * used from the next move on, so the game always goes on in time. Players aren't made to be
+ * called from two threads at once, so each player has a worker thread of its own, and a player
+ * that was given up on isn't called again, not even to start a new game, until its last call
+ * returns: its turns are played by the fallback move or forfeited until then, and the start of
+ * the game is passed on to it right before its next turn.
+ * @author Neriya Ben David
+ * @see Game
+ * @see OvershootStatistics
+ */
+public class TimeControl implements AutoCloseable {
+
+    // constants
+    private static final String WORKER_THREAD_NAME = "time-control";
+    private static final String UNEXPECTED_FAILURE_MESSAGE = "The player failed to play its turn";
+    private static final int PLAYER_1 = 0;
+    private static final int PLAYER_2 = 1;
+    private static final int PLAYERS = 2;
+    private static final int NO_DEFERRED_START = 0;
+
+    // fields
+    private final long moveTimeNanos;
+    private final boolean forfeitOnOvertime;
+    private final BoardFactory boardFactory;
+    private final String boardType;
+    private final Player fallbackPlayer;
+    private final OvershootStatistics statistics;
+    private final ExecutorService[] workers;
+    // the board the players play on, or null if it has to be copied from the game board again
+    private Board mirror;
+    // for every player given up on whose call hasn't returned yet, the latch the call opens when
+    // it returns and the mirror it plays on, and null otherwise
+    private final CountDownLatch[] runningCalls;
+    private final Board[] abandonedMirrors;
+    // the win streak of a game a busy player wasn't told about yet, or NO_DEFERRED_START
+    private final int[] deferredWinStreaks;
+    private boolean isPlayer1X;
+    private boolean isForfeited;
+
+    /**
+     * Constructs a new TimeControl object.
+     * @param moveTimeMillis the time a player has for every move, in milliseconds
+     * @param forfeitOnOvertime true if a player that runs out of time forfeits the game, false if
+     *                          a random move is played for it instead
+     * @param boardType the type of board the mirror is kept on, as understood by the BoardFactory
+     */
+    public TimeControl(long moveTimeMillis, boolean forfeitOnOvertime, String boardType) {
+        this.moveTimeNanos = TimeUnit.MILLISECONDS.toNanos(moveTimeMillis);
+        this.forfeitOnOvertime = forfeitOnOvertime;
+        this.boardFactory = new BoardFactory();
+        this.boardType = boardType;
+        this.fallbackPlayer = new WhateverPlayer();
+        this.statistics = new OvershootStatistics();
+        this.workers = new ExecutorService[] {buildWorker(), buildWorker()};
+        this.mirror = null;
+        this.runningCalls = new CountDownLatch[PLAYERS];
+        this.abandonedMirrors = new Board[PLAYERS];
+        this.deferredWinStreaks = new int[PLAYERS];
+        this.isPlayer1X = true;
+        this.isForfeited = false;
+    }
+
+    /**
+     * Tells which player plays with X in the next game, so the overshoots are counted for the
+     * players of the tournament rather than for the marks.
+     * @param isPlayer1First true if player 1 plays with X in the next game, false otherwise
+     */
+    public void startGame(boolean isPlayer1First) {
+        isPlayer1X = isPlayer1First;
+    }
+
+    /**
+     * Starts following a new game on a board, which may already hold some marks.
+     * @param board the board of the game
+     */
+    public void followBoard(Board board) {
+        isForfeited = false;
+        if (mirror != null && isEmpty(board)) {
+            mirror.clear();
+        } else {
+            closeMirror();
+        }
+    }
+
+    /**
+     * Notifies a player that a new game is about to start, or, if the player is still busy with a
+     * move it was given up on, notifies it right before its next turn instead.
+     * @param player the player to notify
+     * @param board the board the game is played on
+     * @param mark the mark of the player in the new game
+     * @param winStreak the number of marks in a row needed to win the game
+     */
+    public void startPlayer(Player player, Board board, Mark mark, int winStreak) {
+        int playerIndex = playerOf(mark);
+        if (isIdle(playerIndex)) {
+            deferredWinStreaks[playerIndex] = NO_DEFERRED_START;
+            player.startGame(board, winStreak);
+        } else {
+            deferredWinStreaks[playerIndex] = winStreak;
+        }
+    }
+
+    /**
+     * Lets a player play its turn within the move time, and plays a random move for it or makes
+     * it forfeit the game if it runs out of time or is still busy with a move it was given up on.
+     * @param player the player whose turn it is
+     * @param board the board of the game
+     * @param mark the mark of the player
+     */
+    public void playTurn(Player player, Board board, Mark mark) {
+        int playerIndex = playerOf(mark);
+        boolean isPlayer1 = playerIndex == PLAYER_1;
+        if (!isIdle(playerIndex)) {
+            statistics.recordSkip(isPlayer1, forfeitOnOvertime);
+            playOvertime(board, mark);
+            return;
+        }
+        Board playedBoard = followLastMove(board);
+        int winStreak = deferredWinStreaks[playerIndex];
+        deferredWinStreaks[playerIndex] = NO_DEFERRED_START;
+        CountDownLatch stopped = new CountDownLatch(1);
+        long startTime = System.nanoTime();
+        Future<?> move = workers[playerIndex].submit(() -> {
+            try {
+                if (winStreak != NO_DEFERRED_START) {
+                    player.startGame(playedBoard, winStreak);
+                }
+                player.playTurn(playedBoard, mark);
+            } finally {
+                stopped.countDown();
+            }
+        });
+        try {
+            move.get(moveTimeNanos, TimeUnit.NANOSECONDS);
+            copyLastMove(playedBoard, board);
+            statistics.recordMove(isPlayer1);
+            return;
+        } catch (ExecutionException e) {
+            throw asUnchecked(e.getCause());
+        } catch (TimeoutException e) {
+            move.cancel(true);
+        } catch (InterruptedException e) {
+            move.cancel(true);
+            Thread.currentThread().interrupt();
+        }
+
+        // wait for the interrupted player as long as the move time again, then give up on it
+        boolean isStopped = awaitQuietly(stopped);
+        long overshootNanos = System.nanoTime() - startTime - moveTimeNanos;
+        statistics.recordOvershoot(isPlayer1, overshootNanos, forfeitOnOvertime);
+        if (isStopped) {
+            closeMirror();
+        } else {
+            runningCalls[playerIndex] = stopped;
+            abandonedMirrors[playerIndex] = mirror;
+            mirror = null;
+        }
+        playOvertime(board, mark);
+    }
+
+    /**
+     * Checks whether the player of the last turn forfeited the game by running out of time.
+     * @return true if the game was forfeited, false otherwise
+     */
+    public boolean isForfeited() {
+        return isForfeited;
+    }
+
+    /**
+     * Gets the overshoot statistics of the players over all the games played so far.
+     * @return the overshoot statistics
+     */
+    public OvershootStatistics getStatistics() {
+        return statistics;
+    }
+
+    /**
+     * Stops the worker threads and releases the mirror board, and the mirrors of the players
+     * given up on whose calls have returned.
+     */
+    @Override
+    public void close() {
+        for (int playerIndex = 0; playerIndex < PLAYERS; playerIndex++) {
+            workers[playerIndex].shutdownNow();
+            isIdle(playerIndex);
+        }
+        closeMirror();
+    }
+
+    /*
+     * Play the turn of a player that ran out of time by the fallback move, or forfeit the game
+     */
+    private void playOvertime(Board board, Mark mark) {
+        if (forfeitOnOvertime) {
+            isForfeited = true;
+        } else {
+            fallbackPlayer.playTurn(board, mark);
+        }
+    }
+
+    /*
+     * Check if a player can be called, which it can unless the last call it was given up on is
+     * still running, and release the mirror of that call once it returned
+     */
+    private boolean isIdle(int playerIndex) {
+        CountDownLatch runningCall = runningCalls[playerIndex];
+        if (runningCall == null) {
+            return true;
+        }
+        if (runningCall.getCount() != 0) {
+            return false;
+        }
+        runningCalls[playerIndex] = null;
+        abandonedMirrors[playerIndex].close();
+        abandonedMirrors[playerIndex] = null;
+        return true;
+    }
+
+    /*
+     * Get the index of the tournament player who plays with a mark in the current game
+     */
+    private int playerOf(Mark mark) {
+        return (mark == Mark.X) == isPlayer1X ? PLAYER_1 : PLAYER_2;
+    }
+
+    /*
+     * Bring the mirror up to date with the game board, which is one move ahead of it when the
+     * other player just played, and copy the whole game board if there is no mirror
+     */
+    private Board followLastMove(Board board) {
+        if (mirror == null) {
+            mirror = boardFactory.buildBoard(boardType, board.getSize());
+            copyMarks(board, mirror);
+            return mirror;
+        }
+        copyLastMove(board, mirror);
+        return mirror;
+    }
+
+    /*
+     * Put the last move of one board on the other board, if it isn't there already
+     */
+    private static void copyLastMove(Board from, Board to) {
+        int row = from.getLastMoveRow();
+        int col = from.getLastMoveCol();
+        if (row != Board.NO_MOVE && to.getMark(row, col) == Mark.BLANK) {
+            to.putMark(from.getMark(row, col), row, col);
+        }
+    }
+
+    /*
+     * Copy all the marks of one board to an empty board, the last move of the board last so
+     * both boards report the same last move
+     */
+    private static void copyMarks(Board from, Board to) {
+        int size = from.getSize();
+        for (int row = 0; row < size; row++) {
+            for (int col = 0; col < size; col++) {
+                Mark mark = from.getMark(row, col);
+                boolean isLastMove = row == from.getLastMoveRow() && col == from.getLastMoveCol();
+                if (mark != Mark.BLANK && !isLastMove) {
+                    to.putMark(mark, row, col);
+                }
+            }
+        }
+        copyLastMove(from, to);
+    }
+
+    /*
+     * Check if a board has no marks, which is the case of every board whose game just started
+     */
+    private static boolean isEmpty(Board board) {
+        return board.getLastMoveRow() == Board.NO_MOVE;
+    }
+
+    /*
+     * Release the mirror, which is copied from the game board again at the next move
+     */
+    private void closeMirror() {
+        if (mirror != null) {
+            mirror.close();
+            mirror = null;
+        }
+    }
+
+    /*
+     * Wait up to the move time for the interrupted player to stop
+     */
+    private boolean awaitQuietly(CountDownLatch stopped) {
+        try {
+            return stopped.await(moveTimeNanos, TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    /*
+     * Build the worker thread a player plays on, which doesn't keep the program running
+     */
+    private static ExecutorService buildWorker() {
+        return Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, WORKER_THREAD_NAME);
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /*
+     * Rethrow what the player threw on the worker thread as it was, wrapping checked exceptions
+     */
+    private static RuntimeException asUnchecked(Throwable cause) {
+        if (cause instanceof RuntimeException) {
+            return (RuntimeException) cause;
+        }
+        if (cause instanceof Error) {
+            throw (Error) cause;
+        }
+        return new IllegalStateException(UNEXPECTED_FAILURE_MESSAGE, cause);
+    }
+}
@@ -1,3 +1,11 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
 /**
  * The Tournament class is responsible for running a tournament between two players
  * @author Neriya Ben David
@@ -11,20 +19,43 @@ public class Tournament {
     private static final int FOURTH_ARG = 3;
     private static final int FIFTH_ARG = 4;
     private static final int SIXTH_ARG = 5;
+    private static final int FIRST_OPTIONAL_ARG = 6;
 
     // Constants Messages
     private static final String INVALID_ARGUMENTS_MESSAGE =
             "Usage: Please run the game again: java Tournament " +
-                    "[round count] [size] [win_streak] [render target: console/none] " +
-                    "[first player: human/whatever/clever/genius] " +
-                    "[second player: human/whatever/clever/genius]";
+                    "[round count] [size] [win_streak] [render target: console/buffered/diff/none] " +
+                    "[first player: human/whatever/clever/genius/minimax/mcts/perfect/greedy/threat] " +
+                    "[second player: human/whatever/clever/genius/minimax/mcts/perfect/greedy/threat] " +
+                    "[optional: --board=array/bit/offheap/sparse/byte] [optional: --threads=count] " +
+                    "[optional: --allocation=true/false] [optional: --frames=count/final] " +
+                    "[optional: --record=path] [optional: --batch=true/false] [optional: --stats=path] " +
+                    "[optional: --move-time=millis] [optional: --overtime=fallback/forfeit]";
+    private static final String INVALID_BATCH_ARGUMENTS_MESSAGE =
+            "A batch tournament can only be played between two whatever players with render target " +
+                    "none, without recording the games or their statistics and without a move time";
+    private static final String INVALID_TIME_CONTROL_ARGUMENTS_MESSAGE =
+            "A tournament with a move time can only be played by automatic players";
+    private static final String INVALID_PARALLEL_ARGUMENTS_MESSAGE =
+            "A tournament with more than one thread can only be played by automatic players " +
+                    "with render target none";
     private static final String DECORATED_RESULTS_MESSAGE = "######### Results #########";
     private static final String NUMBER_OF_WINS_OF_PLAYER_1_MESSAGE = "Player 1, %s won: %d rounds\n";
     private static final String NUMBER_OF_WINS_OF_PLAYER2_MESSAGE = "Player 2, %s won: %d rounds\n";
     private static final String NUMBER_OF_TIES_IN_TOURNAMENT_MESSAGE = "Ties: %d\n";
+    private static final String SEARCH_OF_PLAYER_1_MESSAGE = "Player 1, %s %s\n";
+    private static final String SEARCH_OF_PLAYER_2_MESSAGE = "Player 2, %s %s\n";
+    private static final String OVERSHOOT_OF_PLAYER_1_MESSAGE = "Player 1, %s %s\n";
+    private static final String OVERSHOOT_OF_PLAYER_2_MESSAGE = "Player 2, %s %s\n";
+    private static final String ALLOCATION_PER_ROUND_MESSAGE = "Allocated per round: %.1f bytes\n";
+    private static final String RECORD_FAILED_MESSAGE = "Could not record the games: %s\n";
+    private static final String STATS_SAVED_MESSAGE = "Statistics saved to %s\n";
+    private static final String STATS_FAILED_MESSAGE = "Could not save the statistics: %s\n";
+    private static final String ALLOCATION_UNSUPPORTED_MESSAGE =
+            "Allocated per round: not supported by this virtual machine";
 
     // Constants Numbers
-    private static final int TWO_BASE_NUMBER = 2;
+    private static final int TASKS_PER_THREAD = 8;
 
     // private fields
     // rounds to play in the tournament
@@ -33,14 +64,37 @@ public class Tournament {
     // renderer to use
     private Renderer renderer;
 
+    // type of the boards to play on
+    private final String boardType;
+
+    // number of threads to play the rounds on
+    private final int threads;
+
+    // whether to report the heap memory allocated per round
+    private final boolean reportAllocation;
+
+    // file to append the games to, or null if the games are not recorded
+    private final String recordPath;
+
+    // whether the rounds are simulated in batches instead of played as games
+    private final boolean batch;
+
+    // file to save the statistics of the games to, or null if they are not collected
+    private final String statsPath;
+
+    // time every move has to be made in, or 0 for no time control, and what happens after it
+    private final int moveTimeMillis;
+    private final boolean forfeitOnOvertime;
+
     // players in the tournament
     private Player playerX;
     private Player playerO;
 
     // scores of the tournament
-    private int player1Wins;
-    private int player2Wins;
-    private int ties;
+    private final TournamentScore score;
+
+    // outcomes of the games between deterministic players, or null if the games are rendered
+    private final OutcomeCache outcomeCache;
 
     /**
      * Constructor for the Tournament class
@@ -50,60 +104,147 @@ public class Tournament {
      * @param playerO a player object who uses mark O
      */
     public Tournament(int rounds, Renderer renderer, Player playerX, Player playerO) {
+        this(rounds, renderer, playerX, playerO, new TournamentOptions());
+    }
+
+    /**
+     * Constructor for the Tournament class with optional settings
+     * @param rounds number of rounds to play
+     * @param renderer renderer to use
+     * @param playerX a player object who uses mark X
+     * @param playerO a player object who uses mark O
+     * @param options the optional settings of the tournament
+     */
+    public Tournament(int rounds, Renderer renderer, Player playerX, Player playerO,
+                      TournamentOptions options) {
         this.rounds = rounds;
+        this.boardType = options.getBoardType();
+        this.threads = options.getThreads();
+        this.reportAllocation = options.isReportingAllocation();
+        this.recordPath = options.getRecordPath();
+        this.batch = options.isBatch();
+        this.statsPath = options.getStatsPath();
+        this.moveTimeMillis = options.getMoveTimeMillis();
+        this.forfeitOnOvertime = options.isForfeitingOnOvertime();
         this.renderer = renderer;
         this.playerX = playerX;
         this.playerO = playerO;
-        this.player1Wins = 0;
-        this.player2Wins = 0;
-        this.ties = 0;
+        this.score = new TournamentScore();
+        this.outcomeCache = renderer instanceof VoidRenderer && recordPath == null && statsPath == null &&
+                !options.isTimeControlled() ? new OutcomeCache() : null;
     }
 
     /**
-     * Play a tournament of with a couple of rounds between two players
+     * Play a tournament of with a couple of rounds between two players.
+     * When the tournament is played on more than one thread, the rounds are split between
+     * the threads, each of them playing with new players built from the player names,
+     * and the games are not rendered.
+     * Games that are not rendered between deterministic players are played once for each
+     * player moving first, and the outcome is reused for the rest of the rounds, unless the
+     * games are recorded, in which case every game is played and appended to the record file, or
+     * their statistics are collected, in which case every game is played and measured.
+     * With a move time every move has a deadline, enforced by a TimeControl, and the outcome of
+     * a game can depend on the timing so every game is played.
+     * Rounds between two random players can instead be simulated in batches by the
+     * BatchSimulator, which keeps the same scores without playing a game of objects.
      * @param size the size of the board
      * @param winStreak the win streak to win the game
      * @param playerName1 the name of the first player
      * @param playerName2 the name of the second player
      */
     void playTournament(int size, int winStreak, String playerName1, String playerName2) {
-        // loop over the rounds and calculate the scores over the tournament
-        for (int i = 0; i < rounds; i++) {
-            Player firstPlayer = (i % TWO_BASE_NUMBER == 0) ? playerX : playerO;
-            Player secondPlayer = (i % TWO_BASE_NUMBER == 0) ? playerO : playerX;
-
-            // Create a new game and run it
-            Game game = new Game(firstPlayer, secondPlayer, size, winStreak, renderer);
-            Mark winner = game.run();
-
-            //  Update the scores of the tournament
-            updateTournamentScores(winner, firstPlayer, secondPlayer);
+        try (GameRecorder recorder = recordPath == null ? null : new GameRecorder(Paths.get(recordPath))) {
+            if (batch) {
+                playBatchRounds(size, winStreak);
+            } else if (threads > 1) {
+                playParallelRounds(size, winStreak, playerName1, playerName2, recorder);
+            } else {
+                playRounds(size, winStreak, playerName1, playerName2, recorder);
+            }
+        } catch (IOException | UncheckedIOException e) {
+            System.out.printf(RECORD_FAILED_MESSAGE, e.getMessage());
+            return;
         }
 
         // Print the results of the tournament
-        printResults(playerName1, playerName2, player1Wins, player2Wins, ties);
+        printResults(playerName1, playerName2, score.getPlayer1Wins(), score.getPlayer2Wins(),
+                score.getTies());
+        printSearchStatistics(playerName1, playerName2);
+        printOvershootStatistics(playerName1, playerName2);
+        if (reportAllocation) {
+            printAllocation();
+        }
+        if (score.getGameStatistics() != null) {
+            printGameStatistics(playerName1, playerName2);
+        }
     }
 
     /*
-     * Update the scores of the tournament based on the winner of the game
+     * Play the rounds one after another on the current thread with the players and renderer of the
+     * tournament, through the same round loop as the tasks of a parallel tournament
      */
-    private void updateTournamentScores(Mark winner, Player firstPlayer, Player secondPlayer) {
-        if (winner == Mark.X) {
-            if (firstPlayer == playerX) {
-                player1Wins++;
-            } else {
-                player2Wins++;
-            }
+    private void playRounds(int size, int winStreak, String playerName1, String playerName2,
+                            GameRecorder recorder) {
+        TournamentTask task = new TournamentTask(0, rounds, rounds, size, winStreak, boardType,
+                playerName1, playerName2, reportAllocation, statsPath != null, moveTimeMillis,
+                forfeitOnOvertime, outcomeCache, recorder);
+        score.merge(task.playRounds(playerX, playerO, renderer));
+    }
 
-        } else if (winner == Mark.O) {
-            if (secondPlayer == playerX) {
-                player1Wins++;
-            } else {
-                player2Wins++;
+    /*
+     * Simulate the rounds between two random players in batches, splitting them between the
+     * threads of a fork-join pool when there is more than one, and merge their scores
+     */
+    private void playBatchRounds(int size, int winStreak) {
+        if (threads == 1) {
+            score.merge(simulateRounds(size, winStreak, 0, rounds));
+            return;
+        }
+        int roundsPerTask = (rounds + threads - 1) / threads;
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        try {
+            List<ForkJoinTask<TournamentScore>> tasks = new ArrayList<>();
+            for (int firstRound = 0; firstRound < rounds; firstRound += roundsPerTask) {
+                int taskFirstRound = firstRound;
+                int taskRounds = Math.min(roundsPerTask, rounds - firstRound);
+                tasks.add(pool.submit(() -> simulateRounds(size, winStreak, taskFirstRound, taskRounds)));
             }
+            for (ForkJoinTask<TournamentScore> task : tasks) {
+                score.merge(task.join());
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
 
-        } else {
-            ties++;
+    /*
+     * Simulate a range of rounds on the current thread, with the heap memory it allocates
+     */
+    private TournamentScore simulateRounds(int size, int winStreak, int firstRound, int roundCount) {
+        AllocationMeter allocationMeter = reportAllocation ? new AllocationMeter() : null;
+        long allocatedBefore = reportAllocation ? allocationMeter.getAllocatedBytes() : 0;
+        TournamentScore roundsScore = new BatchSimulator(size, winStreak).playRounds(firstRound, roundCount);
+        if (reportAllocation) {
+            roundsScore.addAllocatedBytes(allocationMeter.getAllocatedBytes() - allocatedBefore);
+        }
+        return roundsScore;
+    }
+
+    /*
+     * Play the rounds on a fork-join pool and merge the scores of all the rounds
+     */
+    private void playParallelRounds(int size, int winStreak, String playerName1, String playerName2,
+                                    GameRecorder recorder) {
+        int roundsPerTask = Math.max(rounds / (threads * TASKS_PER_THREAD), 1);
+        TournamentTask task = new TournamentTask(0, rounds, roundsPerTask, size, winStreak, boardType,
+                playerName1, playerName2, reportAllocation, statsPath != null, moveTimeMillis,
+                forfeitOnOvertime, outcomeCache, recorder);
+
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        try {
+            score.merge(pool.invoke(task));
+        } finally {
+            pool.shutdown();
         }
     }
 
@@ -119,15 +260,67 @@ public class Tournament {
         System.out.printf(NUMBER_OF_TIES_IN_TOURNAMENT_MESSAGE, ties);
     }
 
+    /*
+     * Print the search statistics of the players that search their moves
+     */
+    private void printSearchStatistics(String playerName1, String playerName2) {
+        if (score.getPlayer1Search() != null) {
+            System.out.printf(SEARCH_OF_PLAYER_1_MESSAGE, playerName1, score.getPlayer1Search());
+        }
+        if (score.getPlayer2Search() != null) {
+            System.out.printf(SEARCH_OF_PLAYER_2_MESSAGE, playerName2, score.getPlayer2Search());
+        }
+    }
+
+    /*
+     * Print how the players kept to the time control, if the moves had one
+     */
+    private void printOvershootStatistics(String playerName1, String playerName2) {
+        OvershootStatistics overshoots = score.getOvershootStatistics();
+        if (overshoots != null) {
+            System.out.printf(OVERSHOOT_OF_PLAYER_1_MESSAGE, playerName1, overshoots.getSummary(true));
+            System.out.printf(OVERSHOOT_OF_PLAYER_2_MESSAGE, playerName2, overshoots.getSummary(false));
+        }
+    }
+
+    /*
+     * Print the average heap memory allocated while playing a round
+     */
+    private void printAllocation() {
+        if (!new AllocationMeter().isSupported()) {
+            System.out.println(ALLOCATION_UNSUPPORTED_MESSAGE);
+            return;
+        }
+        System.out.printf(ALLOCATION_PER_ROUND_MESSAGE, (double) score.getAllocatedBytes() / Math.max(rounds, 1));
+    }
+
+    /*
+     * Print the statistics of the games and save them to the statistics file
+     */
+    private void printGameStatistics(String playerName1, String playerName2) {
+        GameStatistics statistics = score.getGameStatistics();
+        statistics.print(playerName1, playerName2);
+        try {
+            statistics.save(statsPath, playerName1, playerName2);
+            System.out.printf(STATS_SAVED_MESSAGE, statsPath);
+        } catch (IOException e) {
+            System.out.printf(STATS_FAILED_MESSAGE, e.getMessage());
+        }
+    }
+
     /**
      * Main method to run the tic-tac-toe game tournament
      * @param args command line arguments
      */
     public static void main(String[] args) {
 
-        // [round count] [size] [win_streak] [render target: console/none]
-        // [first player: human/whatever/clever/genius]
-        // [second player: human/whatever/clever/genius]
+        // [round count] [size] [win_streak] [render target: console/buffered/diff/none]
+        // [first player: human/whatever/clever/genius/minimax/mcts/perfect/greedy/threat]
+        // [second player: human/whatever/clever/genius/minimax/mcts/perfect/greedy/threat]
+        // [optional: --board=array/bit/offheap/sparse/byte] [optional: --threads=count]
+        // [optional: --allocation=true/false] [optional: --frames=count/final]
+        // [optional: --record=path] [optional: --batch=true/false] [optional: --stats=path]
+        // [optional: --move-time=millis] [optional: --overtime=fallback/forfeit]
         int rounds = Integer.parseInt(args[FIRST_ARG]);
         int size = Integer.parseInt(args[SECOND_ARG]);
         int winStreak = Integer.parseInt(args[THIRD_ARG]);
@@ -135,9 +328,14 @@ public class Tournament {
         String firstPlayerType = args[FIFTH_ARG];
         String secondPlayerType = args[SIXTH_ARG];
 
+        // Parse the optional settings of the tournament
+        TournamentOptions options = TournamentOptions.parse(args, FIRST_OPTIONAL_ARG);
+        int frameInterval = options == null ? BufferedConsoleRenderer.FINAL_FRAME_ONLY :
+                options.getFrameInterval();
+
         // Create the renderer and players based on the arguments
         RendererFactory rendererFactory = new RendererFactory();
-        Renderer renderer = rendererFactory.buildRenderer(renderTargetType, size);
+        Renderer renderer = rendererFactory.buildRenderer(renderTargetType, size, frameInterval);
 
         // Create the players based on the arguments
         PlayerFactory playerFactory = new PlayerFactory();
@@ -145,13 +343,36 @@ public class Tournament {
         Player secondPlayer = playerFactory.buildPlayer(secondPlayerType);
 
         // Check if the arguments are valid
-        if (renderer == null || firstPlayer == null || secondPlayer == null) {
+        if (renderer == null || firstPlayer == null || secondPlayer == null || options == null ||
+                !new BoardFactory().isBoardType(options.getBoardType())) {
             System.out.println(INVALID_ARGUMENTS_MESSAGE);
             return;
         }
 
+        // Games played in parallel can't share the console with rendering or human players
+        if (options.isParallel() && (!(renderer instanceof VoidRenderer) ||
+                firstPlayer instanceof HumanPlayer || secondPlayer instanceof HumanPlayer)) {
+            System.out.println(INVALID_PARALLEL_ARGUMENTS_MESSAGE);
+            return;
+        }
+
+        // Console input can't be interrupted, so human players can't be held to a move time
+        if (options.isTimeControlled() && (firstPlayer instanceof HumanPlayer ||
+                secondPlayer instanceof HumanPlayer)) {
+            System.out.println(INVALID_TIME_CONTROL_ARGUMENTS_MESSAGE);
+            return;
+        }
+
+        // Only games between two random players that are not shown or measured can be simulated
+        if (options.isBatch() && (!(renderer instanceof VoidRenderer) || options.getRecordPath() != null ||
+                options.getStatsPath() != null || options.isTimeControlled() ||
+                !(firstPlayer instanceof WhateverPlayer) || !(secondPlayer instanceof WhateverPlayer))) {
+            System.out.println(INVALID_BATCH_ARGUMENTS_MESSAGE);
+            return;
+        }
+
         // Create a new tournament and play it
-        Tournament tournament = new Tournament(rounds, renderer, firstPlayer, secondPlayer);
+        Tournament tournament = new Tournament(rounds, renderer, firstPlayer, secondPlayer, options);
         tournament.playTournament(size, winStreak, firstPlayerType, secondPlayerType);
     }
 }
@@ -0,0 +1,232 @@
+/**
+ * The TournamentOptions class holds the optional settings of a tournament, which are given
+ * on the command line after the required arguments in the form --name=value
+ * @author Neriya Ben David
+ * @see Tournament
+ */
+public class TournamentOptions {
+
+    // Constants Syntax
+    private static final String OPTION_PREFIX = "--";
+    private static final String VALUE_SEPARATOR = "=";
+
+    // Constants Option Names
+    private static final String BOARD_OPTION = "board";
+    private static final String THREADS_OPTION = "threads";
+    private static final String ALLOCATION_OPTION = "allocation";
+    private static final String FRAMES_OPTION = "frames";
+    private static final String RECORD_OPTION = "record";
+    private static final String BATCH_OPTION = "batch";
+    private static final String STATS_OPTION = "stats";
+    private static final String MOVE_TIME_OPTION = "move-time";
+    private static final String OVERTIME_OPTION = "overtime";
+
+    // Constants Values
+    private static final String TRUE_VALUE = "true";
+    private static final String FALSE_VALUE = "false";
+    private static final String FINAL_FRAME_VALUE = "final";
+    private static final String FALLBACK_VALUE = "fallback";
+    private static final String FORFEIT_VALUE = "forfeit";
+
+    // Constants Defaults
+    private static final String DEFAULT_BOARD_TYPE = "array";
+    private static final int DEFAULT_THREADS = 1;
+    private static final int DEFAULT_FRAME_INTERVAL = 1;
+    private static final int NO_MOVE_TIME = 0;
+
+    // private fields
+    private String boardType;
+    private int threads;
+    private boolean threadsGiven;
+    private boolean reportAllocation;
+    private int frameInterval;
+    private String recordPath;
+    private boolean batch;
+    private String statsPath;
+    private int moveTimeMillis;
+    private boolean forfeitOnOvertime;
+
+    /**
+     * Constructs a new TournamentOptions object with the default settings.
+     */
+    public TournamentOptions() {
+        this.boardType = DEFAULT_BOARD_TYPE;
+        this.threads = DEFAULT_THREADS;
+        this.threadsGiven = false;
+        this.reportAllocation = false;
+        this.frameInterval = DEFAULT_FRAME_INTERVAL;
+        this.recordPath = null;
+        this.batch = false;
+        this.statsPath = null;
+        this.moveTimeMillis = NO_MOVE_TIME;
+        this.forfeitOnOvertime = false;
+    }
+
+    /**
+     * Parses the optional settings from the command line arguments
+     * @param args command line arguments
+     * @param firstOption the index of the first optional argument
+     * @return the parsed options, or null if one of the options is malformed or unknown
+     */
+    public static TournamentOptions parse(String[] args, int firstOption) {
+        TournamentOptions options = new TournamentOptions();
+        for (int i = firstOption; i < args.length; i++) {
+            int separator = args[i].indexOf(VALUE_SEPARATOR);
+            if (!args[i].startsWith(OPTION_PREFIX) || separator < 0) {
+                return null;
+            }
+            String name = args[i].substring(OPTION_PREFIX.length(), separator);
+            String value = args[i].substring(separator + VALUE_SEPARATOR.length());
+            if (!options.setOption(name, value)) {
+                return null;
+            }
+        }
+        return options;
+    }
+
+    /**
+     * Gets the type of board the games of the tournament are played on
+     * @return the board type, as understood by the BoardFactory
+     */
+    public String getBoardType() {
+        return boardType;
+    }
+
+    /**
+     * Gets the number of threads the rounds of the tournament are played on
+     * @return the number of threads, where 1 means the rounds are played one after another
+     */
+    public int getThreads() {
+        return threads;
+    }
+
+    /**
+     * Checks whether the number of threads was given on the command line
+     * @return true if the threads option was given, false if the default is used
+     */
+    public boolean hasThreads() {
+        return threadsGiven;
+    }
+
+    /**
+     * Checks whether the rounds of the tournament are played in parallel
+     * @return true if more than one thread plays the rounds, false otherwise
+     */
+    public boolean isParallel() {
+        return threads > DEFAULT_THREADS;
+    }
+
+    /**
+     * Checks whether the heap memory allocated per round should be reported
+     * @return true if the allocations should be reported, false otherwise
+     */
+    public boolean isReportingAllocation() {
+        return reportAllocation;
+    }
+
+    /**
+     * Gets how often the frames of a game are drawn by renderers that can skip frames
+     * @return draw every frameInterval-th frame, or BufferedConsoleRenderer.FINAL_FRAME_ONLY
+     */
+    public int getFrameInterval() {
+        return frameInterval;
+    }
+
+    /**
+     * Gets the path of the file the games of the tournament are appended to
+     * @return the path of the record file, or null if the games are not recorded
+     */
+    public String getRecordPath() {
+        return recordPath;
+    }
+
+    /**
+     * Checks whether the rounds between two random players are played by the BatchSimulator
+     * @return true if the rounds are simulated in batches, false if they are played as games
+     */
+    public boolean isBatch() {
+        return batch;
+    }
+
+    /**
+     * Gets the path of the file the statistics of the games are saved to
+     * @return the path of the statistics file, or null if no statistics are collected
+     */
+    public String getStatsPath() {
+        return statsPath;
+    }
+
+    /**
+     * Gets the time every move of the tournament has to be made in
+     * @return the move time in milliseconds, or 0 if the players take as long as they like
+     */
+    public int getMoveTimeMillis() {
+        return moveTimeMillis;
+    }
+
+    /**
+     * Checks whether the moves of the tournament have a time control
+     * @return true if every move has a deadline, false otherwise
+     */
+    public boolean isTimeControlled() {
+        return moveTimeMillis != NO_MOVE_TIME;
+    }
+
+    /**
+     * Checks whether a player that runs out of time for a move forfeits the game
+     * @return true if the player forfeits, false if a random move is played for it
+     */
+    public boolean isForfeitingOnOvertime() {
+        return forfeitOnOvertime;
+    }
+
+    /*
+     * Sets a single option by its name, returns false if there is no such option
+     */
+    private boolean setOption(String name, String value) {
+        switch (name) {
+            case BOARD_OPTION:
+                boardType = value;
+                return true;
+            case THREADS_OPTION:
+                threads = parsePositiveInt(value);
+                threadsGiven = true;
+                return threads > 0;
+            case ALLOCATION_OPTION:
+                reportAllocation = TRUE_VALUE.equals(value);
+                return reportAllocation || FALSE_VALUE.equals(value);
+            case FRAMES_OPTION:
+                frameInterval = FINAL_FRAME_VALUE.equals(value) ?
+                        BufferedConsoleRenderer.FINAL_FRAME_ONLY : parsePositiveInt(value);
+                return frameInterval > 0 || FINAL_FRAME_VALUE.equals(value);
+            case RECORD_OPTION:
+                recordPath = value;
+                return !value.isEmpty();
+            case BATCH_OPTION:
+                batch = TRUE_VALUE.equals(value);
+                return batch || FALSE_VALUE.equals(value);
+            case STATS_OPTION:
+                statsPath = value;
+                return !value.isEmpty();
+            case MOVE_TIME_OPTION:
+                moveTimeMillis = parsePositiveInt(value);
+                return moveTimeMillis > 0;
+            case OVERTIME_OPTION:
+                forfeitOnOvertime = FORFEIT_VALUE.equals(value);
+                return forfeitOnOvertime || FALLBACK_VALUE.equals(value);
+            default:
+                return false;
+        }
+    }
+
+    /*
+     * Parses a positive number, returns 0 if the value is not one
+     */
+    private static int parsePositiveInt(String value) {
+        try {
+            return Math.max(Integer.parseInt(value), 0);
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+}
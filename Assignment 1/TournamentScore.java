@@ -0,0 +1,219 @@
+/**
+ * The TournamentScore class keeps the scores of a tournament, or of a part of its rounds.
+ * Player 1 plays with X in the even rounds and player 2 plays with X in the odd rounds,
+ * so a round is scored only by its index and its winning mark.
+ * @author Neriya Ben David
+ * @see Tournament
+ */
+public class TournamentScore {
+
+    // constants
+    private static final int TWO_BASE_NUMBER = 2;
+
+    // fields
+    private int player1Wins;
+    private int player2Wins;
+    private int ties;
+    private SearchStatistics player1Search;
+    private SearchStatistics player2Search;
+    private long allocatedBytes;
+    private long playNanos;
+    private GameStatistics gameStatistics;
+    private OvershootStatistics overshootStatistics;
+
+    /**
+     * Constructs a new TournamentScore object with no rounds played.
+     */
+    public TournamentScore() {
+        this.player1Wins = 0;
+        this.player2Wins = 0;
+        this.ties = 0;
+    }
+
+    /**
+     * Checks whether player 1 makes the first move in the given round.
+     * @param round the index of the round in the tournament
+     * @return true if player 1 plays with X in the round, false if player 2 does
+     */
+    public static boolean isPlayer1First(int round) {
+        return round % TWO_BASE_NUMBER == 0;
+    }
+
+    /**
+     * Updates the scores with the winner of a single round.
+     * @param round the index of the round in the tournament
+     * @param winner the winning mark of the round, or BLANK for a tie
+     */
+    public void recordRound(int round, Mark winner) {
+        if (winner == Mark.BLANK) {
+            ties++;
+        } else if ((winner == Mark.X) == isPlayer1First(round)) {
+            player1Wins++;
+        } else {
+            player2Wins++;
+        }
+    }
+
+    /**
+     * Adds the scores of other rounds of the same tournament to these scores.
+     * @param other the scores of the other rounds
+     */
+    public void merge(TournamentScore other) {
+        player1Wins += other.player1Wins;
+        player2Wins += other.player2Wins;
+        ties += other.ties;
+        player1Search = mergeSearchStatistics(player1Search, other.player1Search);
+        player2Search = mergeSearchStatistics(player2Search, other.player2Search);
+        allocatedBytes += other.allocatedBytes;
+        playNanos += other.playNanos;
+        if (other.gameStatistics != null) {
+            addGameStatistics(other.gameStatistics);
+        }
+        if (other.overshootStatistics != null) {
+            addOvershootStatistics(other.overshootStatistics);
+        }
+    }
+
+    /**
+     * Adds heap memory allocated while playing the rounds.
+     * @param bytes the number of allocated bytes
+     */
+    public void addAllocatedBytes(long bytes) {
+        allocatedBytes += bytes;
+    }
+
+    /**
+     * Gets the heap memory allocated while playing the rounds, as far as it was measured.
+     * @return the number of allocated bytes
+     */
+    public long getAllocatedBytes() {
+        return allocatedBytes;
+    }
+
+    /**
+     * Adds time spent playing the rounds, summed over the threads that played them.
+     * @param nanos the time in nanoseconds
+     */
+    public void addPlayNanos(long nanos) {
+        playNanos += nanos;
+    }
+
+    /**
+     * Gets the time spent playing the rounds, as far as it was measured.
+     * @return the time in nanoseconds, summed over the threads that played the rounds
+     */
+    public long getPlayNanos() {
+        return playNanos;
+    }
+
+    /**
+     * Adds the statistics of the games played in the rounds.
+     * @param statistics the statistics of the games, which may be merged into later
+     */
+    public void addGameStatistics(GameStatistics statistics) {
+        if (gameStatistics == null) {
+            gameStatistics = new GameStatistics();
+        }
+        gameStatistics.merge(statistics);
+    }
+
+    /**
+     * Gets the statistics of the games played in the rounds.
+     * @return the statistics of the games, or null if they were not collected
+     */
+    public GameStatistics getGameStatistics() {
+        return gameStatistics;
+    }
+
+    /**
+     * Adds the overshoot statistics of the moves played under a time control in the rounds.
+     * @param statistics the overshoot statistics of the moves, which may be merged into later
+     */
+    public void addOvershootStatistics(OvershootStatistics statistics) {
+        if (overshootStatistics == null) {
+            overshootStatistics = new OvershootStatistics();
+        }
+        overshootStatistics.merge(statistics);
+    }
+
+    /**
+     * Gets the overshoot statistics of the moves played under a time control in the rounds.
+     * @return the overshoot statistics, or null if the moves had no time control
+     */
+    public OvershootStatistics getOvershootStatistics() {
+        return overshootStatistics;
+    }
+
+    /**
+     * Adds the search statistics of the players that played these rounds, for players that
+     * search their moves.
+     * @param player1 the first player of the rounds
+     * @param player2 the second player of the rounds
+     */
+    public void recordSearchStatistics(Player player1, Player player2) {
+        if (player1 instanceof SearchingPlayer) {
+            player1Search = mergeSearchStatistics(player1Search,
+                    ((SearchingPlayer) player1).getSearchStatistics());
+        }
+        if (player2 instanceof SearchingPlayer) {
+            player2Search = mergeSearchStatistics(player2Search,
+                    ((SearchingPlayer) player2).getSearchStatistics());
+        }
+    }
+
+    /**
+     * Gets the number of rounds won by player 1.
+     * @return the number of rounds won by player 1
+     */
+    public int getPlayer1Wins() {
+        return player1Wins;
+    }
+
+    /**
+     * Gets the number of rounds won by player 2.
+     * @return the number of rounds won by player 2
+     */
+    public int getPlayer2Wins() {
+        return player2Wins;
+    }
+
+    /**
+     * Gets the number of rounds that ended with a tie.
+     * @return the number of tied rounds
+     */
+    public int getTies() {
+        return ties;
+    }
+
+    /**
+     * Gets the search statistics of player 1.
+     * @return the search statistics of player 1, or null if it doesn't search its moves
+     */
+    public SearchStatistics getPlayer1Search() {
+        return player1Search;
+    }
+
+    /**
+     * Gets the search statistics of player 2.
+     * @return the search statistics of player 2, or null if it doesn't search its moves
+     */
+    public SearchStatistics getPlayer2Search() {
+        return player2Search;
+    }
+
+    /*
+     * Merge two search statistics into a new one, either of them may be missing
+     */
+    private static SearchStatistics mergeSearchStatistics(SearchStatistics first, SearchStatistics second) {
+        if (first == null) {
+            return second;
+        }
+        if (second == null) {
+            return first;
+        }
+        SearchStatistics merged = new SearchStatistics(first.getUnit());
+        merged.merge(first);
+        merged.merge(second);
+        return merged;
+    }
+}
@@ -0,0 +1,162 @@
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * The TournamentTask class plays a range of rounds of a tournament on a fork-join pool.
+ * Large ranges are split in half until they are small enough, and every leaf task builds
+ * its own players, since players such as the clever player keep state over a game.
+ * Games played by a forked task are never rendered, so all the tasks share the outcomes of the
+ * games between deterministic players, and the recorder of the games if they are recorded.
+ * A tournament on a single thread plays its rounds through a task as well, with its own players.
+ * @author Neriya Ben David
+ * @see Tournament
+ * @see TournamentScore
+ */
+public class TournamentTask extends RecursiveTask<TournamentScore> {
+
+    // constants
+    private static final long serialVersionUID = 1L;
+    private static final int TWO_BASE_NUMBER = 2;
+
+    // fields
+    private final int firstRound;
+    private final int lastRound;
+    private final int roundsPerTask;
+    private final int size;
+    private final int winStreak;
+    private final String boardType;
+    private final String playerType1;
+    private final String playerType2;
+    private final boolean measureAllocation;
+    private final boolean collectStatistics;
+    private final int moveTimeMillis;
+    private final boolean forfeitOnOvertime;
+    private final OutcomeCache outcomeCache;
+    private final transient GameRecorder recorder;
+
+    /**
+     * Constructs a new TournamentTask object.
+     * @param firstRound the index of the first round to play
+     * @param lastRound the index after the last round to play
+     * @param roundsPerTask the largest number of rounds a task plays without splitting
+     * @param size the size of the board
+     * @param winStreak the win streak to win the game
+     * @param boardType the type of board to play on, as understood by the BoardFactory
+     * @param playerType1 the type of the first player, as understood by the PlayerFactory
+     * @param playerType2 the type of the second player, as understood by the PlayerFactory
+     * @param measureAllocation whether to measure the heap memory allocated by the rounds
+     * @param collectStatistics whether to collect the statistics of the games
+     * @param moveTimeMillis the time every move has to be made in, or 0 for no time control
+     * @param forfeitOnOvertime whether a player that runs out of time forfeits the game rather than
+     *                          having a random move played for it
+     * @param outcomeCache the outcomes of the games between deterministic players, shared by the
+     *                     tasks, or null to play every game
+     * @param recorder the recorder to append the games to, shared by the tasks, or null
+     */
+    public TournamentTask(int firstRound, int lastRound, int roundsPerTask, int size, int winStreak,
+                          String boardType, String playerType1, String playerType2,
+                          boolean measureAllocation, boolean collectStatistics, int moveTimeMillis,
+                          boolean forfeitOnOvertime, OutcomeCache outcomeCache, GameRecorder recorder) {
+        this.firstRound = firstRound;
+        this.lastRound = lastRound;
+        this.roundsPerTask = roundsPerTask;
+        this.size = size;
+        this.winStreak = winStreak;
+        this.boardType = boardType;
+        this.playerType1 = playerType1;
+        this.playerType2 = playerType2;
+        this.measureAllocation = measureAllocation;
+        this.collectStatistics = collectStatistics;
+        this.moveTimeMillis = moveTimeMillis;
+        this.forfeitOnOvertime = forfeitOnOvertime;
+        this.outcomeCache = outcomeCache;
+        this.recorder = recorder;
+    }
+
+    /**
+     * Plays the rounds of the task, splitting them between sub-tasks if there are too many.
+     * @return the scores of the rounds played
+     */
+    @Override
+    protected TournamentScore compute() {
+        if (lastRound - firstRound <= roundsPerTask) {
+            PlayerFactory playerFactory = new PlayerFactory();
+            return playRounds(playerFactory.buildPlayer(playerType1), playerFactory.buildPlayer(playerType2),
+                    new VoidRenderer());
+        }
+
+        // split the rounds in half, play the second half here and merge the results
+        int middleRound = firstRound + (lastRound - firstRound) / TWO_BASE_NUMBER;
+        TournamentTask firstHalf = new TournamentTask(firstRound, middleRound, roundsPerTask, size,
+                winStreak, boardType, playerType1, playerType2, measureAllocation, collectStatistics,
+                moveTimeMillis, forfeitOnOvertime, outcomeCache, recorder);
+        TournamentTask secondHalf = new TournamentTask(middleRound, lastRound, roundsPerTask, size,
+                winStreak, boardType, playerType1, playerType2, measureAllocation, collectStatistics,
+                moveTimeMillis, forfeitOnOvertime, outcomeCache, recorder);
+        firstHalf.fork();
+        TournamentScore score = secondHalf.compute();
+        score.merge(firstHalf.join());
+        return score;
+    }
+
+    /**
+     * Plays all the rounds of the task one after another on the current thread, reusing a single
+     * game and board for all of them. The leaf tasks play with players of their own, and a
+     * tournament on a single thread plays its own players, rendered, without forking.
+     * @param player1 the first player of the tournament
+     * @param player2 the second player of the tournament
+     * @param renderer the renderer of the games
+     * @return the scores of the rounds played
+     */
+    TournamentScore playRounds(Player player1, Player player2, Renderer renderer) {
+        TournamentScore score = new TournamentScore();
+        try (Board board = new BoardFactory().buildBoard(boardType, size);
+             TimeControl timeControl = moveTimeMillis == 0 ? null :
+                     new TimeControl(moveTimeMillis, forfeitOnOvertime, boardType)) {
+            Game game = new Game(player1, player2, board, winStreak, renderer);
+            game.setTimeControl(timeControl);
+            if (recorder != null) {
+                game.enableMoveLog();
+            }
+            GameStatistics statistics = collectStatistics ? new GameStatistics() : null;
+            game.setStatistics(statistics);
+            AllocationMeter allocationMeter = measureAllocation ? new AllocationMeter() : null;
+            long allocatedBefore = measureAllocation ? allocationMeter.getAllocatedBytes() : 0;
+
+            for (int round = firstRound; round < lastRound; round++) {
+                boolean isPlayer1First = TournamentScore.isPlayer1First(round);
+                Player firstPlayer = isPlayer1First ? player1 : player2;
+                Player secondPlayer = isPlayer1First ? player2 : player1;
+
+                if (statistics != null) {
+                    statistics.startGame(isPlayer1First);
+                }
+                if (timeControl != null) {
+                    timeControl.startGame(isPlayer1First);
+                }
+                Mark winner;
+                if (outcomeCache != null) {
+                    winner = outcomeCache.play(game, firstPlayer, secondPlayer);
+                } else {
+                    game.reset(firstPlayer, secondPlayer);
+                    winner = game.run();
+                }
+                score.recordRound(round, winner);
+                if (recorder != null) {
+                    recorder.recordGame(round, game, isPlayer1First, winner);
+                }
+            }
+
+            if (measureAllocation) {
+                score.addAllocatedBytes(allocationMeter.getAllocatedBytes() - allocatedBefore);
+            }
+            if (statistics != null) {
+                score.addGameStatistics(statistics);
+            }
+            if (timeControl != null) {
+                score.addOvershootStatistics(timeControl.getStatistics());
+            }
+        }
+        score.recordSearchStatistics(player1, player2);
+        return score;
+    }
+}
@@ -8,10 +8,14 @@ import java.util.Random;
  */
 public class WhateverPlayer implements Player {
 
+    // random generator to draw the cells with
+    private final Random random;
+
     /**
      * Constructor for HumanPlayer initializes the player
      */
     public WhateverPlayer() {
+        this.random = new Random();
     }
 
     /**
@@ -22,15 +26,7 @@ public class WhateverPlayer implements Player {
      */
     @Override
     public void playTurn(Board board, Mark mark) {
-        boolean isEmptyCell;
-        int boardSize = board.getSize();
-        Random random = new Random();
-
-        // loop until you pick a coordinate that is not already occupied
-        do {
-            int row = random.nextInt(boardSize);
-            int col = random.nextInt(boardSize);
-            isEmptyCell = board.putMark(mark, row, col);
-        } while (!isEmptyCell);
+        // draw a cell uniformly from the cells that are not already occupied
+        board.putMarkInRandomEmptyCell(mark, random);
     }
 }